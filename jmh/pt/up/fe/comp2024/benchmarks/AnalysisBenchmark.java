@@ -0,0 +1,45 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+
+    @Param({"false", "true"})
+    public String parallel;
+
+    private JmmParserResult parserResult;
+
+    // the analysis passes annotate the AST, so every invocation gets a freshly parsed one
+    @Setup(Level.Invocation)
+    public void setup(BenchmarkInput input) {
+        var config = new HashMap<>(input.config);
+        config.put(CompilerConfig.getParallelAnalysisKey(), parallel);
+
+        parserResult = Stages.parse(input.code, config);
+    }
+
+    @Benchmark
+    public JmmSymbolTable buildSymbolTable() {
+        return JmmSymbolTableBuilder.build(parserResult.getRootNode());
+    }
+
+    @Benchmark
+    public JmmSemanticsResult semanticAnalysis() {
+        return new JmmAnalysisImpl().semanticAnalysis(parserResult);
+    }
+}
@@ -0,0 +1,51 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.specs.util.SpecsIo;
+import utils.JmmProgramGenerator;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Source code given to the benchmarks: either an existing test fixture or a generated program with the given number
+ * of statements (always from the same seed, so every run measures the same program).
+ */
+@State(Scope.Benchmark)
+public class BenchmarkInput {
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+    private static final long SEED = 2024;
+    private static final int STATEMENTS_PER_METHOD = 50;
+
+    private static final Map<String, String> FIXTURES = Map.of(
+            "Simple", "test/pt/up/fe/comp/cp2/apps/Simple.jmm",
+            "regalloc", "test/pt/up/fe/comp/cpf/5_optimizations/reg_alloc/regalloc.jmm"
+    );
+
+    @Param({"Simple", "regalloc", "synthetic-1000", "synthetic-10000", "synthetic-100000"})
+    public String program;
+
+    public String code;
+    public Map<String, String> config;
+
+    @Setup
+    public void setup() {
+        if (program.startsWith(SYNTHETIC_PREFIX)) {
+            int statements = Integer.parseInt(program.substring(SYNTHETIC_PREFIX.length()));
+            var options = new JmmProgramGenerator.Options()
+                    .methods(statements / STATEMENTS_PER_METHOD)
+                    .statements(statements);
+
+            code = JmmProgramGenerator.generate(SEED, options);
+        } else {
+            code = SpecsIo.read(new File(FIXTURES.get(program)));
+        }
+
+        config = CompilerConfig.getDefault();
+    }
+}
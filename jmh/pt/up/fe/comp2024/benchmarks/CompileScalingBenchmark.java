@@ -0,0 +1,65 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import utils.JmmProgramGenerator;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of the whole compilation of generated programs of growing size. Compiling a program 8 times larger should take
+ * about 8 times longer; a much larger ratio between the scores means something grows super-linearly (e.g. quadratic in
+ * the number of methods or statements).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileScalingBenchmark {
+
+    private static final long SEED = 1;
+    private static final int STATEMENTS_PER_METHOD = 40;
+
+    @Param({"1000", "8000"})
+    public int statements;
+
+    @Param({"false", "true"})
+    public String optimize;
+
+    @Param({"-1", "0"})
+    public String registerAllocation;
+
+    private JmmCompiler compiler;
+    private String code;
+    private Map<String, String> config;
+
+    @Setup
+    public void setup() {
+        var options = new JmmProgramGenerator.Options()
+                .methods(Math.max(1, statements / STATEMENTS_PER_METHOD))
+                .statements(statements)
+                .nestingDepth(3)
+                .variables(8)
+                .loopDensity(0.1);
+
+        compiler = new JmmCompiler();
+        code = JmmProgramGenerator.generate(SEED, options);
+        config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), optimize);
+        config.put("registerAllocation", registerAllocation);
+
+        if (compiler.compile(code, config).hasErrors()) {
+            throw new IllegalStateException("Generated program with " + statements + " statements does not compile");
+        }
+    }
+
+    @Benchmark
+    public CompilationResult compile() {
+        return compiler.compile(code, config);
+    }
+}
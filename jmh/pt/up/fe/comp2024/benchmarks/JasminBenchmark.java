@@ -0,0 +1,28 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.backend.JasminGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JasminBenchmark {
+
+    private OllirResult ollirResult;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkInput input) {
+        ollirResult = Stages.toOllir(input.code, input.config);
+    }
+
+    @Benchmark
+    public String build() {
+        return new JasminGenerator(ollirResult).build();
+    }
+}
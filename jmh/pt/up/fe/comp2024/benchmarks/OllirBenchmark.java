@@ -0,0 +1,28 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp2024.optimization.OllirGeneratorVisitor;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OllirBenchmark {
+
+    private JmmSemanticsResult semanticsResult;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkInput input) {
+        semanticsResult = Stages.analyse(input.code, input.config);
+    }
+
+    @Benchmark
+    public String generateOllir() {
+        return new OllirGeneratorVisitor(semanticsResult.getSymbolTable()).visit(semanticsResult.getRootNode());
+    }
+}
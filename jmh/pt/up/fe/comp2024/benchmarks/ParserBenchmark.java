@@ -0,0 +1,45 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.parser.JmmParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    // "sll" tries SLL prediction before falling back to LL, "ll" always uses full LL (both with ANTLR), "pratt" uses
+    // the hand-written parser
+    @Param({"sll", "ll", "pratt"})
+    public String mode;
+
+    private Map<String, String> config;
+    private JmmParser parser;
+
+    @Setup
+    public void setup(BenchmarkInput input) {
+        config = new HashMap<>(input.config);
+        if (mode.equals("pratt")) {
+            parser = new PrattParserImpl();
+        } else {
+            config.put(CompilerConfig.getParseModeKey(), mode);
+            parser = new JmmParserImpl();
+        }
+    }
+
+    @Benchmark
+    public JmmParserResult parse(BenchmarkInput input) {
+        return parser.parse(input.code, config);
+    }
+}
@@ -0,0 +1,60 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.optimization.registers.RegisterAllocationOptimizer;
+import pt.up.fe.comp2024.utils.graph.algorithms.ChaitinBriggsAlgorithm;
+import pt.up.fe.comp2024.utils.graph.algorithms.GraphColoringAlgorithm;
+import pt.up.fe.comp2024.utils.graph.algorithms.GreedyGraphColoringAlgorithm;
+import pt.up.fe.comp2024.utils.graph.algorithms.KColorsAlgorithm;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegisterAllocationBenchmark {
+
+    // enough registers for every input, so that k-colors always succeeds
+    private static final int K_COLORS = 16;
+
+    // "chaitin-briggs" is the allocator of '-r=n' (here with K_COLORS registers), "chaitin-briggs-min" the one of
+    // '-r=0', which looks for the fewest registers
+    @Param({"greedy", "kcolors", "chaitin-briggs", "chaitin-briggs-min"})
+    public String algorithm;
+
+    private JmmSemanticsResult semanticsResult;
+    private String ollirCode;
+    private OllirResult ollirResult;
+
+    @Setup(Level.Trial)
+    public void setupTrial(BenchmarkInput input) {
+        semanticsResult = Stages.analyse(input.code, input.config);
+        ollirCode = Stages.toOllir(semanticsResult).getOllirCode();
+    }
+
+    // allocation changes the registers of the OLLIR class, so every invocation gets a freshly parsed one
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        ollirResult = new OllirResult(semanticsResult, ollirCode, new ArrayList<>());
+    }
+
+    @Benchmark
+    public OllirResult optimize() {
+        GraphColoringAlgorithm coloring = switch (algorithm) {
+            case "greedy" -> new GreedyGraphColoringAlgorithm();
+            case "kcolors" -> new KColorsAlgorithm(K_COLORS);
+            case "chaitin-briggs" -> new ChaitinBriggsAlgorithm(K_COLORS);
+            case "chaitin-briggs-min" -> new ChaitinBriggsAlgorithm(0);
+            default -> throw new IllegalArgumentException("Unknown coloring algorithm '" + algorithm + "'");
+        };
+
+        new RegisterAllocationOptimizer(ollirResult, coloring).optimize();
+        return ollirResult;
+    }
+}
@@ -0,0 +1,43 @@
+package pt.up.fe.comp2024.benchmarks;
+
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.util.Map;
+
+/**
+ * Runs the stages before the one being measured, failing if the input does not compile.
+ */
+public class Stages {
+
+    public static JmmParserResult parse(String code, Map<String, String> config) {
+        var parserResult = new JmmParserImpl().parse(code, config);
+        check(parserResult.getReports().isEmpty() && parserResult.getRootNode() != null, "parse");
+        return parserResult;
+    }
+
+    public static JmmSemanticsResult analyse(String code, Map<String, String> config) {
+        var semanticsResult = new JmmAnalysisImpl().semanticAnalysis(parse(code, config));
+        check(!ReportUtils.anyError(semanticsResult.getReports()), "semantic analysis");
+        return semanticsResult;
+    }
+
+    public static OllirResult toOllir(String code, Map<String, String> config) {
+        return toOllir(analyse(code, config));
+    }
+
+    public static OllirResult toOllir(JmmSemanticsResult semanticsResult) {
+        return new JmmOptimizationImpl().toOllir(semanticsResult);
+    }
+
+    private static void check(boolean success, String stage) {
+        if (!success) {
+            throw new IllegalStateException("Benchmark input failed at stage '" + stage + "'");
+        }
+    }
+}
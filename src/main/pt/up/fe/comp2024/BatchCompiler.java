@@ -0,0 +1,159 @@
+package pt.up.fe.comp2024;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Compiles several Java-- sources in the same JVM, using a bounded work-stealing pool.
+ * <p>
+ * Results are always returned in the order of the inputs, regardless of the order in which the compilations finish.
+ * A file that cannot be compiled gets a failed result, and does not stop the others.
+ */
+public class BatchCompiler {
+
+    private static final String JMM_EXTENSION = ".jmm";
+
+    private final JmmCompiler compiler;
+    private final int threads;
+
+    public BatchCompiler(int threads) {
+        this(new JmmCompiler(), threads);
+    }
+
+    public BatchCompiler(JmmCompiler compiler, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Batch compilation needs at least one thread, got " + threads);
+        }
+
+        this.compiler = compiler;
+        this.threads = threads;
+    }
+
+    /**
+     * @param batchInput a directory (every .jmm file inside it is compiled) or a comma-separated list of files
+     * @return the input files, sorted by path when they come from a directory
+     */
+    public static List<File> collectInputs(String batchInput) {
+        File inputDir = new File(batchInput);
+
+        if (inputDir.isDirectory()) {
+            try (Stream<Path> paths = Files.walk(inputDir.toPath())) {
+                return paths.filter(path -> path.toString().endsWith(JMM_EXTENSION))
+                        .filter(Files::isRegularFile)
+                        .sorted()
+                        .map(Path::toFile)
+                        .toList();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list input directory '" + inputDir + "'", e);
+            }
+        }
+
+        List<File> inputs = new ArrayList<>();
+        for (String path : batchInput.split(",")) {
+            if (path.isBlank()) continue;
+
+            File inputFile = new File(path.trim());
+            if (!inputFile.isFile()) {
+                throw new RuntimeException("Could not find input file '" + inputFile + "'");
+            }
+
+            inputs.add(inputFile);
+        }
+
+        return inputs;
+    }
+
+    public List<Entry> compile(List<File> inputs, Map<String, String> config) {
+        List<Callable<Entry>> tasks = new ArrayList<>();
+        for (File input : inputs) {
+            tasks.add(() -> compileOrFail(input, config));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (Future<Entry> future : pool.invokeAll(tasks)) {
+                entries.add(future.get());
+            }
+
+            return entries;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch compilation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch compilation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Entry compileOrFail(File input, Map<String, String> config) {
+        try {
+            return compile(input, config);
+        } catch (RuntimeException e) {
+            List<Report> reports = new ArrayList<>();
+            reports.add(Report.newError(Stage.OTHER, -1, -1, "Could not compile '" + input + "'", e));
+            return new Entry(input, CompilationResult.failed(reports), null);
+        }
+    }
+
+    private Entry compile(File input, Map<String, String> config) {
+        // each compilation gets its own config, pointing to its own input file
+        Map<String, String> fileConfig = new HashMap<>(config);
+        fileConfig.put(CompilerConfig.getInputFileKey(), input.getAbsolutePath());
+
+        String code = SpecsIo.read(input);
+
+        if (!CompilerConfig.isProfile(config)) {
+            return new Entry(input, compiler.compile(code, fileConfig), null);
+        }
+
+        var profiler = CompileProfiler.start(input.getPath());
+        try {
+            return new Entry(input, compiler.compile(code, fileConfig), profiler);
+        } finally {
+            profiler.stop();
+        }
+    }
+
+    public static class Entry {
+        private final File input;
+        private final CompilationResult result;
+        private final CompileProfiler profile;
+
+        public Entry(File input, CompilationResult result, CompileProfiler profile) {
+            this.input = input;
+            this.result = result;
+            this.profile = profile;
+        }
+
+        public File getInput() {
+            return input;
+        }
+
+        public CompilationResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return the profile of the compilation, if profiling was enabled with '-t'
+         */
+        public Optional<CompileProfiler> getProfile() {
+            return Optional.ofNullable(profile);
+        }
+    }
+}
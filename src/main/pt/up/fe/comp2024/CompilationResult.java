@@ -0,0 +1,45 @@
+package pt.up.fe.comp2024;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outcome of running the whole pipeline over a single Java-- source.
+ * <p>
+ * Stages that were not reached (because a previous one reported errors) have no code.
+ */
+public class CompilationResult {
+
+    private final List<Report> reports;
+    private final String ollirCode;
+    private final String jasminCode;
+
+    public CompilationResult(List<Report> reports, String ollirCode, String jasminCode) {
+        this.reports = reports;
+        this.ollirCode = ollirCode;
+        this.jasminCode = jasminCode;
+    }
+
+    public static CompilationResult failed(List<Report> reports) {
+        return new CompilationResult(reports, null, null);
+    }
+
+    public List<Report> getReports() {
+        return reports;
+    }
+
+    public Optional<String> getOllirCode() {
+        return Optional.ofNullable(ollirCode);
+    }
+
+    public Optional<String> getJasminCode() {
+        return Optional.ofNullable(jasminCode);
+    }
+
+    public boolean hasErrors() {
+        return ReportUtils.anyError(reports) || jasminCode == null;
+    }
+}
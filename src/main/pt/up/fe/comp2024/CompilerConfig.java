@@ -1,6 +1,7 @@
 package pt.up.fe.comp2024;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -10,6 +11,20 @@ public class CompilerConfig {
     private static final String INPUT_FILE = "inputFile";
     private static final String OPTIMIZE = "optimize";
     private static final String REGISTER = "registerAllocation";
+    private static final String BATCH_INPUT = "batchInput";
+    private static final String THREADS = "threads";
+    private static final String OUTPUT_DIR = "outputDir";
+    private static final String SERVER = "server";
+    private static final String CONNECT = "connect";
+    private static final String CACHE_DIR = "cacheDir";
+    private static final String CACHE_SIZE = "cacheSize";
+    private static final String PROFILE = "profile";
+    private static final String PARSE_MODE = "parseMode";
+    private static final String PARALLEL_ANALYSIS = "parallelAnalysis";
+
+    private static final long DEFAULT_CACHE_SIZE_MB = 256;
+    private static final String SLL_PARSE_MODE = "sll";
+    private static final String LL_PARSE_MODE = "ll";
 
 
     static Map<String, String> shortToLong = new HashMap<>();
@@ -18,6 +33,32 @@ public class CompilerConfig {
         shortToLong.put("i", CompilerConfig.INPUT_FILE);
         shortToLong.put("o", CompilerConfig.OPTIMIZE);
         shortToLong.put("r", CompilerConfig.REGISTER);
+        shortToLong.put("b", CompilerConfig.BATCH_INPUT);
+        shortToLong.put("j", CompilerConfig.THREADS);
+        shortToLong.put("d", CompilerConfig.OUTPUT_DIR);
+        shortToLong.put("s", CompilerConfig.SERVER);
+        shortToLong.put("a", CompilerConfig.CONNECT);
+        shortToLong.put("c", CompilerConfig.CACHE_DIR);
+        shortToLong.put("m", CompilerConfig.CACHE_SIZE);
+        shortToLong.put("t", CompilerConfig.PROFILE);
+        shortToLong.put("p", CompilerConfig.PARSE_MODE);
+        shortToLong.put("e", CompilerConfig.PARALLEL_ANALYSIS);
+    }
+
+    public static String getInputFileKey() {
+        return INPUT_FILE;
+    }
+
+    public static String getOptimizeKey() {
+        return OPTIMIZE;
+    }
+
+    public static String getParseModeKey() {
+        return PARSE_MODE;
+    }
+
+    public static String getParallelAnalysisKey() {
+        return PARALLEL_ANALYSIS;
     }
 
 
@@ -41,6 +82,90 @@ public class CompilerConfig {
     }
 
 
+    /**
+     * @return the value of option '-b', a directory or a comma-separated list of files to compile in batch
+     */
+    public static Optional<String> getBatchInput(Map<String, String> config) {
+        return Optional.ofNullable(config.get(BATCH_INPUT));
+    }
+
+    public static int getThreads(Map<String, String> config) {
+        return Integer.parseInt(config.getOrDefault(THREADS, String.valueOf(Runtime.getRuntime().availableProcessors())));
+    }
+
+    public static Optional<File> getOutputDir(Map<String, String> config) {
+        return Optional.ofNullable(config.get(OUTPUT_DIR)).map(File::new);
+    }
+
+    public static boolean isServer(Map<String, String> config) {
+        return config.containsKey(SERVER);
+    }
+
+    /**
+     * @return the socket given to option '-s', or empty if the server should use stdin/stdout
+     */
+    public static Optional<Path> getServerSocket(Map<String, String> config) {
+        return Optional.ofNullable(config.get(SERVER))
+                .filter(socket -> !socket.equals("true"))
+                .map(Path::of);
+    }
+
+    /**
+     * @return the socket of a running compile server given to option '-a', which should compile the input file
+     */
+    public static Optional<Path> getConnectSocket(Map<String, String> config) {
+        return Optional.ofNullable(config.get(CONNECT)).map(Path::of);
+    }
+
+    /**
+     * @return the directory given to option '-c', where compilation results are cached
+     */
+    public static Optional<Path> getCacheDir(Map<String, String> config) {
+        return Optional.ofNullable(config.get(CACHE_DIR)).map(Path::of);
+    }
+
+    /**
+     * @return the maximum size of the cache, given in megabytes to option '-m'
+     */
+    public static long getCacheSizeBytes(Map<String, String> config) {
+        long megabytes = Long.parseLong(config.getOrDefault(CACHE_SIZE, String.valueOf(DEFAULT_CACHE_SIZE_MB)));
+        return megabytes * 1024 * 1024;
+    }
+
+    public static boolean isProfile(Map<String, String> config) {
+        return config.containsKey(PROFILE);
+    }
+
+    /**
+     * @return the file given to option '-t', where the profile is written, or empty if it should be printed
+     */
+    public static Optional<File> getProfileOutput(Map<String, String> config) {
+        return Optional.ofNullable(config.get(PROFILE))
+                .filter(output -> !output.equals("true"))
+                .map(File::new);
+    }
+
+    /**
+     * @return false if option '-p=ll' asks for full LL prediction only, true if the parser should first try the
+     * faster SLL prediction (the default)
+     */
+    public static boolean isTwoStageParsing(Map<String, String> config) {
+        String mode = config.getOrDefault(PARSE_MODE, SLL_PARSE_MODE);
+
+        if (!mode.equals(SLL_PARSE_MODE) && !mode.equals(LL_PARSE_MODE)) {
+            throw new RuntimeException("Unrecognized parse mode '" + mode + "', expected '" + SLL_PARSE_MODE + "' or '" + LL_PARSE_MODE + "'");
+        }
+
+        return mode.equals(SLL_PARSE_MODE);
+    }
+
+    /**
+     * @return true if option '-e' asks for the methods to be analysed in parallel
+     */
+    public static boolean isParallelAnalysis(Map<String, String> config) {
+        return Boolean.parseBoolean(config.getOrDefault(PARALLEL_ANALYSIS, "false"));
+    }
+
     public static Map<String, String> getDefault() {
 
         var config = new HashMap<String, String>();
@@ -89,9 +214,20 @@ public class CompilerConfig {
             config.put(getLongOpt(shortOption), value);
         }
 
+        // in batch mode the input files are given by '-b', in server mode by each request
+        if (config.containsKey(BATCH_INPUT) || config.containsKey(SERVER)) {
+            getThreads(config);
+            getOptimize(config);
+            getRegisterAllocation(config);
+            getCacheSizeBytes(config);
+            isTwoStageParsing(config);
+
+            return config;
+        }
+
         if (!config.containsKey(INPUT_FILE)) {
 
-            throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>'");
+            throw new RuntimeException("Expected an input file, use '-i=<PATH_TO_FILE>' (or '-b=<DIR_OR_FILES>' for batch mode)");
         }
 
         // make sure we save the absolute path of the input file
@@ -106,6 +242,7 @@ public class CompilerConfig {
         // Verify if values are valid
         getOptimize(config);
         getRegisterAllocation(config);
+        isTwoStageParsing(config);
 
         return config;
     }
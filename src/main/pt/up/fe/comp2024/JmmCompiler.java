@@ -0,0 +1,116 @@
+package pt.up.fe.comp2024;
+
+import org.antlr.v4.runtime.RecognitionException;
+import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.backend.JasminBackendImpl;
+import pt.up.fe.comp2024.cache.CompilationCache;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.parser.JmmParsers;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs every stage of the compiler (parse, semantic analysis, OLLIR generation and optimization, Jasmin generation)
+ * over a single source, stopping at the first stage that reports an error.
+ * <p>
+ * Stages hold no state between compilations, so a single instance can be shared by several threads.
+ */
+public class JmmCompiler {
+
+    private final JmmParser parser;
+    private final JmmAnalysisImpl analysis;
+    private final JmmOptimizationImpl optimization;
+    private final JasminBackendImpl backend;
+    private final CompilationCache cache;
+
+    public JmmCompiler() {
+        this(null);
+    }
+
+    /**
+     * @param cache where results are looked up before compiling, and stored after; can be null
+     */
+    public JmmCompiler(CompilationCache cache) {
+        this.parser = JmmParsers.fromConfigFile();
+        this.analysis = new JmmAnalysisImpl();
+        this.optimization = new JmmOptimizationImpl();
+        this.backend = new JasminBackendImpl();
+        this.cache = cache;
+    }
+
+    public Optional<CompilationCache> getCache() {
+        return Optional.ofNullable(cache);
+    }
+
+    public CompilationResult compile(String code, Map<String, String> config) {
+        if (cache == null) {
+            return compileUncached(code, config);
+        }
+
+        String key = cache.computeKey(code, config, parser.getClass().getName());
+        return cache.get(key).orElseGet(() -> {
+            CompilationResult result = compileUncached(code, config);
+            // a crash of the compiler is not cached, so the next compilation of the same source tries again
+            if (!isCrash(result)) {
+                cache.put(key, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @return true if a stage of the compilation crashed, leaving a report with the exception (the syntax errors also
+     * carry the exception of the parser, but are not crashes)
+     */
+    private static boolean isCrash(CompilationResult result) {
+        return result.getReports().stream()
+                .anyMatch(report -> report.getException().filter(e -> !(e instanceof RecognitionException)).isPresent());
+    }
+
+    private CompilationResult compileUncached(String code, Map<String, String> config) {
+        try {
+            // Parsing stage
+            JmmParserResult parserResult = CompileProfiler.time("parse", () -> parser.parse(code, config));
+            if (ReportUtils.anyError(parserResult.getReports()) || parserResult.getRootNode() == null) {
+                return CompilationResult.failed(parserResult.getReports());
+            }
+
+            // Semantic Analysis stage
+            JmmSemanticsResult semanticsResult = CompileProfiler.time("analysis", () -> analysis.semanticAnalysis(parserResult));
+            if (ReportUtils.anyError(semanticsResult.getReports())) {
+                return CompilationResult.failed(semanticsResult.getReports());
+            }
+
+            // Optimization stage (reports of previous stages are carried by each result)
+            OllirResult unoptimizedResult = CompileProfiler.time("toOllir", () -> optimization.toOllir(semanticsResult));
+            OllirResult ollirResult = CompileProfiler.time("optimize", () -> optimization.optimize(unoptimizedResult));
+            if (ReportUtils.anyError(ollirResult.getReports())) {
+                return CompilationResult.failed(ollirResult.getReports());
+            }
+
+            // Code generation stage
+            JasminResult jasminResult = CompileProfiler.time("jasmin", () -> backend.toJasmin(ollirResult));
+            if (ReportUtils.anyError(jasminResult.getReports())) {
+                return new CompilationResult(jasminResult.getReports(), ollirResult.getOllirCode(), null);
+            }
+
+            return new CompilationResult(jasminResult.getReports(), ollirResult.getOllirCode(), jasminResult.getJasminCode());
+        } catch (RuntimeException e) {
+            List<Report> reports = new ArrayList<>();
+            reports.add(Report.newError(Stage.OTHER, -1, -1, "Exception during compilation", e));
+            return CompilationResult.failed(reports);
+        }
+    }
+}
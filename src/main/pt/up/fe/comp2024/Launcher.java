@@ -4,14 +4,25 @@ import pt.up.fe.comp.TestUtils;
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
 import pt.up.fe.comp.jmm.jasmin.JasminResult;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
 import pt.up.fe.comp2024.backend.JasminBackendImpl;
+import pt.up.fe.comp2024.cache.CompilationCache;
 import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
-import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.JmmParsers;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.comp2024.server.CompileClient;
+import pt.up.fe.comp2024.server.CompileProtocol;
+import pt.up.fe.comp2024.server.CompileServer;
 import pt.up.fe.specs.util.SpecsIo;
 import pt.up.fe.specs.util.SpecsSystem;
+import pt.up.fe.comp2024.utils.Formatter;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
 
 public class Launcher {
@@ -21,15 +32,32 @@ public class Launcher {
 
         Map<String, String> config = CompilerConfig.parseArgs(args);
 
+        if (CompilerConfig.getBatchInput(config).isPresent()) {
+            runBatch(config);
+            return;
+        }
+
+        if (CompilerConfig.isServer(config)) {
+            runServer(config);
+            return;
+        }
+
+        if (CompilerConfig.getConnectSocket(config).isPresent()) {
+            runClient(config);
+            return;
+        }
+
         var inputFile = CompilerConfig.getInputFile(config).orElseThrow();
         if (!inputFile.isFile()) {
             throw new RuntimeException("Option '-i' expects a path to an existing input file, got '" + args[0] + "'.");
         }
         String code = SpecsIo.read(inputFile);
 
+        var profiler = CompilerConfig.isProfile(config) ? CompileProfiler.start(inputFile.getPath()) : null;
+
         // Parsing stage
-        JmmParserImpl parser = new JmmParserImpl();
-        JmmParserResult parserResult = parser.parse(code, config);
+        JmmParser parser = JmmParsers.fromConfigFile();
+        JmmParserResult parserResult = CompileProfiler.time("parse", () -> parser.parse(code, config));
         TestUtils.noErrors(parserResult.getReports());
 
         // Print AST
@@ -37,7 +65,7 @@ public class Launcher {
 
         // Semantic Analysis stage
         JmmAnalysisImpl sema = new JmmAnalysisImpl();
-        JmmSemanticsResult semanticsResult = sema.semanticAnalysis(parserResult);
+        JmmSemanticsResult semanticsResult = CompileProfiler.time("analysis", () -> sema.semanticAnalysis(parserResult));
         TestUtils.noErrors(semanticsResult.getReports());
 
         // Print AST para verificar se alterações na árvore forem bem sucedidas
@@ -45,8 +73,8 @@ public class Launcher {
 
         // Optimization stage
         JmmOptimizationImpl ollirGen = new JmmOptimizationImpl();
-        OllirResult ollirResult = ollirGen.toOllir(semanticsResult);
-        ollirGen.optimize(ollirResult);
+        OllirResult ollirResult = CompileProfiler.time("toOllir", () -> ollirGen.toOllir(semanticsResult));
+        CompileProfiler.time("optimize", () -> ollirGen.optimize(ollirResult));
         TestUtils.noErrors(ollirResult.getReports());
 
         // Print OLLIR code
@@ -54,7 +82,7 @@ public class Launcher {
 
 //        // Code generation stage
         JasminBackendImpl jasminGen = new JasminBackendImpl();
-        JasminResult jasminResult = jasminGen.toJasmin(ollirResult);
+        JasminResult jasminResult = CompileProfiler.time("jasmin", () -> jasminGen.toJasmin(ollirResult));
         TestUtils.noErrors(jasminResult.getReports());
 //
 //        // Print Jasmin code
@@ -63,6 +91,113 @@ public class Launcher {
 
         System.out.println("JASMIN RESULT:\n");
 //        jasminResult.run();
+
+        if (profiler != null) {
+            profiler.stop();
+            writeProfile(profiler, CompilerConfig.getProfileOutput(config).orElse(null));
+        }
     }
 
+    /**
+     * Writes the profile as JSON to the given file, or prints it if there is no file.
+     */
+    private static void writeProfile(CompileProfiler profiler, File output) {
+        if (output == null) {
+            System.out.println("PROFILE:\n");
+            System.out.println(profiler.toJson());
+            return;
+        }
+
+        SpecsIo.write(output, profiler.toJson());
+    }
+
+    private static void runBatch(Map<String, String> config) {
+        List<File> inputs = BatchCompiler.collectInputs(CompilerConfig.getBatchInput(config).orElseThrow());
+        var compiler = buildCompiler(config);
+        var batchCompiler = new BatchCompiler(compiler, CompilerConfig.getThreads(config));
+
+        long start = System.nanoTime();
+        List<BatchCompiler.Entry> entries = batchCompiler.compile(inputs, config);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Outputs are written in input order, so that the batch output does not depend on scheduling
+        int failed = 0;
+        for (var entry : entries) {
+            File input = entry.getInput();
+            CompilationResult result = entry.getResult();
+
+            if (result.hasErrors()) {
+                failed++;
+                System.out.println(Formatter.errorMsg("FAILED " + input));
+                result.getReports().forEach(report -> System.out.println("    " + report));
+                continue;
+            }
+
+            File outputDir = CompilerConfig.getOutputDir(config).orElse(input.getAbsoluteFile().getParentFile());
+            String className = input.getName().replaceFirst("\\.jmm$", "");
+            File outputFile = new File(outputDir, className + ".j");
+
+            SpecsIo.write(outputFile, result.getJasminCode().orElseThrow());
+            entry.getProfile().ifPresent(profile -> writeProfile(profile, new File(outputDir, className + ".profile.json")));
+            System.out.println("OK     " + input + " -> " + outputFile);
+        }
+
+        System.out.println("Compiled " + (entries.size() - failed) + "/" + entries.size() + " files in " + elapsedMillis + " ms");
+        compiler.getCache().ifPresent(cache -> System.out.println(cache.getStats()));
+
+        if (failed > 0) {
+            throw new RuntimeException(failed + " file(s) failed to compile");
+        }
+    }
+
+    private static JmmCompiler buildCompiler(Map<String, String> config) {
+        var cache = CompilerConfig.getCacheDir(config)
+                .map(dir -> new CompilationCache(dir, CompilerConfig.getCacheSizeBytes(config)));
+
+        return new JmmCompiler(cache.orElse(null));
+    }
+
+    private static void runServer(Map<String, String> config) {
+        var server = new CompileServer(buildCompiler(config), CompilerConfig.getThreads(config));
+
+        if (!server.warmUp()) {
+            System.err.println(Formatter.warnMsg("Compile server warm-up failed, first requests may be slower"));
+        }
+
+        try {
+            var socket = CompilerConfig.getServerSocket(config);
+            if (socket.isPresent()) {
+                server.serveSocket(socket.get());
+            } else {
+                server.serveStdio();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Compile server stopped", e);
+        }
+    }
+
+    private static void runClient(Map<String, String> config) {
+        var client = new CompileClient(CompilerConfig.getConnectSocket(config).orElseThrow());
+
+        // the server resolves the input file, so it receives the absolute path saved by parseArgs
+        List<String> args = List.of(
+                "-i=" + CompilerConfig.getInputFile(config).orElseThrow(),
+                "-o=" + CompilerConfig.getOptimize(config),
+                "-r=" + CompilerConfig.getRegisterAllocation(config));
+
+        CompileProtocol.Response response;
+        try {
+            response = client.compile(args);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reach compile server", e);
+        }
+
+        response.getReports().forEach(System.out::println);
+
+        if (!response.isSuccess()) {
+            throw new RuntimeException("Compilation failed");
+        }
+
+        System.out.println(response.getJasminCode());
+    }
 }
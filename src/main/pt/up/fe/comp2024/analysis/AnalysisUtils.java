@@ -6,12 +6,18 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.TypeUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
+import pt.up.fe.comp2024.symboltable.ScopedSymbol;
 
 import java.util.List;
 import java.util.Optional;
 
 public class AnalysisUtils {
     public static Optional<Symbol> validateSymbolFromSymbolTable(String currentMethod, SymbolTable table, String symbolName) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.resolve(currentMethod, symbolName).map(ScopedSymbol::symbol);
+        }
+
         Optional<Symbol> methodSymbol = AnalysisUtils.tryToGetSymbolFromMethod(symbolName, currentMethod, table) ;
         if(methodSymbol.isPresent()) return methodSymbol;
 
@@ -19,6 +25,10 @@ public class AnalysisUtils {
     }
 
     public static Optional<Symbol> validateSymbolFromSymbolTable(SymbolTable table, String symbolName) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.resolveInAnyMethod(symbolName).map(ScopedSymbol::symbol);
+        }
+
         List<String> methods = table.getMethods();
 
         if (methods != null) {
@@ -77,6 +87,10 @@ public class AnalysisUtils {
     }
 
     public static boolean validateIsField(String name, String currentMethod, SymbolTable table) {
+        if (table instanceof JmmSymbolTable jmmTable) {
+            return jmmTable.resolve(currentMethod, name).map(ScopedSymbol::isField).orElse(false);
+        }
+
         Optional<Symbol> methodSymbol = AnalysisUtils.tryToGetSymbolFromMethod(name, currentMethod, table) ;
         if(methodSymbol.isPresent()) return false;
 
@@ -85,6 +99,23 @@ public class AnalysisUtils {
         return classField.isPresent();
     }
 
+    /**
+     * @return true if the method is called on 'this' (or on a variable of the class) and is declared in the class; the
+     * UndeclaredMethod pass stores this in the attribute 'isDeclared' of the call
+     */
+    public static boolean isCallToDeclaredMethod(JmmNode methodCall, String currentMethod, SymbolTable table) {
+        JmmNode caller = methodCall.getChild(0);
+
+        boolean callerIsClass = caller.isInstance(Kind.THIS);
+        if (caller.isInstance(Kind.VAR_REF_EXPR)) {
+            callerIsClass = validateSymbolFromSymbolTable(currentMethod, table, caller.get("name"))
+                    .map(symbol -> symbol.getType().getName().equals(table.getClassName()))
+                    .orElse(false);
+        }
+
+        return callerIsClass && table.getMethods().contains(methodCall.get("name"));
+    }
+
     public static boolean allElementsOfArrayAreOfType(Type type, JmmNode arrayNode, SymbolTable table) {
 
         if(arrayNode.isInstance(Kind.VAR_METHOD)) {
@@ -2,24 +2,43 @@ package pt.up.fe.comp2024.analysis;
 
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.KindVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
 
 /**
  *
  */
-public abstract class AnalysisVisitor extends PreorderJmmVisitor<SymbolTable, Object> implements AnalysisPass {
+public abstract class AnalysisVisitor extends KindVisitor<SymbolTable, Object> implements AnalysisPass {
 
     private List<Report> reports;
+    private BiFunction<JmmNode, SymbolTable, Object> defaultVisit;
 
     public AnalysisVisitor() {
+        super(Traversal.PREORDER);
         reports = new ArrayList<>();
         setDefaultValue(() -> null);
     }
 
+    @Override
+    public void setDefaultVisit(BiFunction<JmmNode, SymbolTable, Object> defaultVisit) {
+        this.defaultVisit = defaultVisit;
+        super.setDefaultVisit(defaultVisit);
+    }
+
+    /**
+     * @return the visit method this pass registered for the kind of the node, or null if the node would only get the
+     * default visit (which does nothing)
+     */
+    BiFunction<JmmNode, SymbolTable, Object> getNodeVisit(Kind kind) {
+        var visit = getVisit(kind);
+        return visit == defaultVisit ? null : visit;
+    }
+
     protected void addReport(Report report) {
         reports.add(report);
     }
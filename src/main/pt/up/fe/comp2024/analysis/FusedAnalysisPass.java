@@ -0,0 +1,218 @@
+package pt.up.fe.comp2024.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Runs several analysis visitors in a single preorder traversal of the AST: each node is given to the visit methods of
+ * every pass, in the order of the passes, before moving on to the next node.
+ * <p>
+ * Reports are the same as running the passes one after the other: the reports of the first pass that reports
+ * anything. A pass that throws stops visiting nodes, and its exception is reported as it would have been on its own.
+ * <p>
+ * When a {@link CompileProfiler} is active, the time of each pass is summed over its visits and added as a step named
+ * after the pass.
+ */
+public class FusedAnalysisPass implements AnalysisPass {
+
+    private record NodeVisit(int pass, BiFunction<JmmNode, SymbolTable, Object> visit) {
+    }
+
+    /**
+     * Reports of each pass over a part of the tree, the exception of the passes that threw, and the time spent in each
+     * pass (empty if it was not measured).
+     */
+    public record Results(List<Class<?>> passes, List<List<Report>> reports, List<Exception> exceptions,
+                          List<Long> passNanos) {
+
+        /**
+         * @return the same results, with the line of every report moved by the given offset (e.g. when the part of the
+         * tree they come from moved inside the file)
+         */
+        public Results withLineOffset(int offset) {
+            List<List<Report>> movedReports = new ArrayList<>();
+
+            for (var passReports : reports) {
+                List<Report> moved = new ArrayList<>();
+                for (var report : passReports) {
+                    // reports without a position stay that way
+                    int line = report.getLine() < 0 ? report.getLine() : report.getLine() + offset;
+
+                    var movedReport = new Report(report.getType(), report.getStage(), line, report.getColumn(),
+                            report.getMessage());
+                    report.getException().ifPresent(movedReport::setException);
+                    moved.add(movedReport);
+                }
+                movedReports.add(moved);
+            }
+
+            return new Results(passes, movedReports, exceptions, passNanos);
+        }
+    }
+
+    private final List<AnalysisVisitor> passes;
+    private final Exception[] exceptions;
+    // time spent in each pass, or null if the passes are not timed
+    private final long[] passNanos;
+
+    // visit methods of each node kind (by ordinal), so that passes which do not handle a kind are not called for it
+    private final List<NodeVisit>[] visitsByKind;
+
+    public FusedAnalysisPass(List<AnalysisVisitor> passes) {
+        this(passes, CompileProfiler.isActive());
+    }
+
+    /**
+     * @param timed whether to measure the time spent in each pass (e.g. when the profiler is active in the thread that
+     *              merges the results, but not in the one that runs this analysis)
+     */
+    @SuppressWarnings("unchecked")
+    public FusedAnalysisPass(List<AnalysisVisitor> passes, boolean timed) {
+        this.passes = passes;
+        this.exceptions = new Exception[passes.size()];
+        this.passNanos = timed ? new long[passes.size()] : null;
+        this.visitsByKind = new List[Kind.values().length];
+    }
+
+    @Override
+    public List<Report> analyze(JmmNode root, SymbolTable table) {
+        visit(root, table, node -> false);
+
+        var results = List.of(getResults());
+        addPassTimes(results);
+        return collectReports(results);
+    }
+
+    public Results getResults() {
+        List<Class<?>> passClasses = new ArrayList<>();
+        List<List<Report>> reports = new ArrayList<>();
+        List<Long> nanos = new ArrayList<>();
+
+        for (int i = 0; i < passes.size(); i++) {
+            passClasses.add(passes.get(i).getClass());
+            reports.add(passes.get(i).getReports());
+            if (passNanos != null) {
+                nanos.add(passNanos[i]);
+            }
+        }
+
+        return new Results(passClasses, reports, Arrays.asList(exceptions), nanos);
+    }
+
+    /**
+     * Visits the tree, except for the subtrees whose root is skipped.
+     */
+    void visit(JmmNode root, SymbolTable table, Predicate<JmmNode> skip) {
+        Deque<JmmNode> nodes = new ArrayDeque<>();
+        nodes.push(root);
+
+        while (!nodes.isEmpty()) {
+            var node = nodes.pop();
+            if (skip.test(node)) continue;
+
+            for (var nodeVisit : getVisits(node)) {
+                if (exceptions[nodeVisit.pass()] != null) continue;
+
+                long start = passNanos == null ? 0 : System.nanoTime();
+                try {
+                    nodeVisit.visit().apply(node, table);
+                } catch (Exception e) {
+                    exceptions[nodeVisit.pass()] = e;
+                }
+
+                if (passNanos != null) {
+                    passNanos[nodeVisit.pass()] += System.nanoTime() - start;
+                }
+            }
+
+            // children are only read now, since passes can change them (e.g. MethodParamPass)
+            var children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodes.push(children.get(i));
+            }
+        }
+    }
+
+    private List<NodeVisit> getVisits(JmmNode node) {
+        var kind = Kind.of(node);
+        var visits = visitsByKind[kind.ordinal()];
+
+        if (visits == null) {
+            visits = new ArrayList<>();
+            for (int i = 0; i < passes.size(); i++) {
+                var visit = passes.get(i).getNodeVisit(kind);
+                if (visit != null) {
+                    visits.add(new NodeVisit(i, visit));
+                }
+            }
+
+            visitsByKind[kind.ordinal()] = visits;
+        }
+
+        return visits;
+    }
+
+    /**
+     * Adds the time of each pass, summed over the given parts of the tree, as a step of the active profiler. Does
+     * nothing if the passes were not timed.
+     */
+    public static void addPassTimes(List<Results> parts) {
+        var passes = parts.get(0).passes();
+
+        for (int i = 0; i < passes.size(); i++) {
+            long nanos = 0;
+            for (var part : parts) {
+                if (part.passNanos().isEmpty()) return;
+                nanos += part.passNanos().get(i);
+            }
+
+            CompileProfiler.add(passes.get(i).getSimpleName(), nanos);
+        }
+    }
+
+    /**
+     * Merges the results of the same passes over different parts of the tree, given in the order of the parts in the
+     * code. For each pass, in order, the reports of all parts are gathered as if a single traversal had produced them.
+     */
+    public static List<Report> collectReports(List<Results> parts) {
+        List<Report> reports = new ArrayList<>();
+        var passes = parts.get(0).passes();
+
+        for (int i = 0; i < passes.size(); i++) {
+            final int pass = i;
+            var exception = parts.stream()
+                    .map(part -> part.exceptions().get(pass))
+                    .filter(Objects::nonNull)
+                    .findFirst();
+
+            // a pass that threw does not stop the analysis, the next one decides
+            if (exception.isPresent()) {
+                reports.add(Report.newError(Stage.SEMANTIC,
+                        -1,
+                        -1,
+                        "Problem while executing analysis pass '" + passes.get(pass) + "'",
+                        exception.get())
+                );
+                continue;
+            }
+
+            for (var part : parts) {
+                reports.addAll(part.reports().get(pass));
+            }
+
+            if (!reports.isEmpty()) {
+                break;
+            }
+        }
+
+        return reports;
+    }
+}
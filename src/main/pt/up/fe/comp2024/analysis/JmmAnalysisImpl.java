@@ -6,20 +6,22 @@ import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
-import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
 import pt.up.fe.comp2024.analysis.passes.*;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
 import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class JmmAnalysisImpl implements JmmAnalysis {
 
-
-    private final List<AnalysisPass> analysisPasses;
-
-    public JmmAnalysisImpl() {
-        this.analysisPasses = List.of(
+    /**
+     * Passes keep state while visiting the AST (reports, current method, label counters), so a fresh list is
+     * created for every compilation. This way the same instance can be used to compile several files, even
+     * concurrently.
+     */
+    List<AnalysisVisitor> buildAnalysisPasses() {
+        return List.of(
                 new CheckDuplicated(),
                 new VarDeclName(),
                 new UndeclaredVariable(),
@@ -43,31 +45,30 @@ public class JmmAnalysisImpl implements JmmAnalysis {
         );
     }
 
+    /**
+     * Analyses everything except the methods, which can then be analysed on their own with
+     * {@link #analyzeMethod(JmmNode, SymbolTable)}.
+     */
+    public FusedAnalysisPass.Results analyzeClass(JmmNode rootNode, SymbolTable table) {
+        return ParallelAnalysisPass.analyzeClass(rootNode, table, buildAnalysisPasses(), false);
+    }
+
+    public FusedAnalysisPass.Results analyzeMethod(JmmNode method, SymbolTable table) {
+        return ParallelAnalysisPass.analyzeMethod(method, table, buildAnalysisPasses(), false);
+    }
+
     @Override
     public JmmSemanticsResult semanticAnalysis(JmmParserResult parserResult) {
 
         JmmNode rootNode = parserResult.getRootNode();
 
-        SymbolTable table = JmmSymbolTableBuilder.build(rootNode);
-
-        List<Report> reports = new ArrayList<>();
+        SymbolTable table = CompileProfiler.time("symbolTable", () -> JmmSymbolTableBuilder.build(rootNode));
 
-        // Visit all nodes in the AST
-        for (var analysisPass : analysisPasses) {
-            try {
-                var passReports = analysisPass.analyze(rootNode, table);
-                reports.addAll(passReports);
-                if (reports.size() > 0)
-                    break;
-            } catch (Exception e) {
-                reports.add(Report.newError(Stage.SEMANTIC,
-                        -1,
-                        -1,
-                        "Problem while executing analysis pass '" + analysisPass.getClass() + "'",
-                        e)
-                );
-            }
-        }
+        // Visit all nodes in the AST, once for all passes (or once for each method, in parallel)
+        AnalysisPass analysis = CompilerConfig.isParallelAnalysis(parserResult.getConfig())
+                ? new ParallelAnalysisPass(this::buildAnalysisPasses)
+                : new FusedAnalysisPass(buildAnalysisPasses());
+        List<Report> reports = CompileProfiler.time("passes", () -> analysis.analyze(rootNode, table));
 
         return new JmmSemanticsResult(parserResult, table, reports);
     }
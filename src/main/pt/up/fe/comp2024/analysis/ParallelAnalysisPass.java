@@ -0,0 +1,85 @@
+package pt.up.fe.comp2024.analysis;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Analyses each method on its own, in parallel, once the symbol table is built.
+ * <p>
+ * The imports, the class declaration and the fields are analysed first, and then every method is analysed with its own
+ * instances of the passes, as a task of the current fork/join pool (or of the common pool). Reports are merged in the
+ * order of the code, so they are the same as the ones of {@link FusedAnalysisPass}. The passes are timed when a
+ * {@link CompileProfiler} is active in the thread that starts the analysis, and their times summed over all methods.
+ */
+public class ParallelAnalysisPass implements AnalysisPass {
+
+    private final Supplier<List<AnalysisVisitor>> passesSupplier;
+
+    public ParallelAnalysisPass(Supplier<List<AnalysisVisitor>> passesSupplier) {
+        this.passesSupplier = passesSupplier;
+    }
+
+    @Override
+    public List<Report> analyze(JmmNode root, SymbolTable table) {
+        // the methods are only analysed after the rest of the tree, so that no node is changed while others read it
+        // the tasks run in other threads, where the profiler is not active
+        boolean timed = CompileProfiler.isActive();
+
+        List<FusedAnalysisPass.Results> parts = new ArrayList<>();
+        parts.add(analyzeClass(root, table, passesSupplier.get(), timed));
+
+        List<ForkJoinTask<FusedAnalysisPass.Results>> tasks = new ArrayList<>();
+        for (var method : getMethods(root)) {
+            tasks.add(ForkJoinTask.adapt(() -> analyzeMethod(method, table, passesSupplier.get(), timed)));
+        }
+
+        for (var task : ForkJoinTask.invokeAll(tasks)) {
+            parts.add(task.join());
+        }
+
+        FusedAnalysisPass.addPassTimes(parts);
+        return FusedAnalysisPass.collectReports(parts);
+    }
+
+    /**
+     * @return the methods of the class, in the order they are declared
+     */
+    public static List<JmmNode> getMethods(JmmNode root) {
+        var classDecl = root.getChild(root.getNumChildren() - 1);
+
+        return classDecl.getChildren().stream()
+                .filter(ParallelAnalysisPass::isMethod)
+                .toList();
+    }
+
+    /**
+     * Analyses everything except the methods: the imports, the class declaration and the fields.
+     */
+    static FusedAnalysisPass.Results analyzeClass(JmmNode root, SymbolTable table, List<AnalysisVisitor> passes,
+                                                  boolean timed) {
+        var classAnalysis = new FusedAnalysisPass(passes, timed);
+        classAnalysis.visit(root, table, ParallelAnalysisPass::isMethod);
+
+        return classAnalysis.getResults();
+    }
+
+    static FusedAnalysisPass.Results analyzeMethod(JmmNode method, SymbolTable table, List<AnalysisVisitor> passes,
+                                                   boolean timed) {
+        var methodAnalysis = new FusedAnalysisPass(passes, timed);
+        methodAnalysis.visit(method, table, node -> false);
+
+        return methodAnalysis.getResults();
+    }
+
+    private static boolean isMethod(JmmNode node) {
+        return node.isInstance(Kind.METHOD_DECL) || node.isInstance(Kind.MAIN_METHOD);
+    }
+}
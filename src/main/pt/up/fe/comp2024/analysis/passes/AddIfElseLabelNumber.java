@@ -12,6 +12,8 @@ public class AddIfElseLabelNumber extends AnalysisVisitor  {
     private String labelName = "ifLabel";
     @Override
     protected void buildVisitor() {
+        addVisit(Kind.METHOD_DECL, this::visitMethod);
+        addVisit(Kind.INNER_MAIN_METHOD, this::visitMethod);
         addVisit(Kind.IF_ELSE_STMT, this::visitIfElseStmt);
         addVisit(Kind.BINARY_EXPR, this::visitBinaryExpr);
     }
@@ -20,6 +22,12 @@ public class AddIfElseLabelNumber extends AnalysisVisitor  {
         return binaryExpr.get("op").equals("&&");
     }
 
+    // labels only have to be unique inside a method, so each method can be numbered on its own
+    private Void visitMethod(JmmNode method, SymbolTable table) {
+        this.labelNumber = 0;
+        return null;
+    }
+
     private Void visitBinaryExpr(JmmNode node, SymbolTable table) {
         if(!this.isOllirIfInducingBinaryExpr(node)) return null;
 
@@ -9,9 +9,17 @@ public class AddWhileLabelNumber extends AnalysisVisitor  {
     private int labelNumber = 0;
     @Override
     protected void buildVisitor() {
+        addVisit(Kind.METHOD_DECL, this::visitMethod);
+        addVisit(Kind.INNER_MAIN_METHOD, this::visitMethod);
         addVisit(Kind.WHILE_STMT, this::visitWhileStmt);
     }
 
+    // labels only have to be unique inside a method, so each method can be numbered on its own
+    private Void visitMethod(JmmNode method, SymbolTable table) {
+        this.labelNumber = 0;
+        return null;
+    }
+
     private Void visitWhileStmt(JmmNode node, SymbolTable table) {
         node.put("whileLabel", String.valueOf(this.labelNumber));
         this.labelNumber += 1;
@@ -40,11 +40,6 @@ public class IncompatibleTypesOperation extends AnalysisVisitor {
   public Void visitUnary(JmmNode node, SymbolTable table) {
     JmmNode child = node.getJmmChild(0);
 
-    if (child.isInstance(PARENTHESIS)) {
-      visit(child.getChild(0), table);
-    }
-
-
     Type childType = TypeUtils.getExprType(child, table);
     if (!childType.getName().equals(TypeUtils.getBoolTypeName())) {
       addReport(Report.newError(Stage.SEMANTIC,
@@ -62,12 +57,7 @@ public class IncompatibleTypesOperation extends AnalysisVisitor {
     String leftExprNodeKind = leftExprNode.getKind();
     boolean exprNodeHasValidKind = leftExprNodeKind.equals(Kind.VAR_METHOD.toString())
             || leftExprNodeKind.equals(Kind.VAR_REF_EXPR.toString()) || leftExprNodeKind.equals(Kind.THIS.toString())
-            || leftExprNodeKind.equals(Kind.INIT_ARRAY.toString());
-
-    if (leftExprNode.isInstance(PARENTHESIS)) {
-      visit(leftExprNode.getJmmChild(0), table);
-      return null;
-    }
+            || leftExprNodeKind.equals(Kind.INIT_ARRAY.toString()) || leftExprNodeKind.equals(Kind.NEW_INT.toString());
 
     if(!exprNodeHasValidKind) {
       throw new RuntimeException(String.format("GraphNode where .length was called is of invalid kind: %s", leftExprNodeKind));
@@ -99,24 +89,6 @@ public class IncompatibleTypesOperation extends AnalysisVisitor {
     Type leftType = TypeUtils.getExprType(leftExpr, table);
     Type rightType = TypeUtils.getExprType(rightExpr, table);
 
-    if (Kind.fromString(leftExpr.getKind()).equals(PARENTHESIS)) {
-      for (JmmNode descendent : leftExpr.getDescendants()) {
-        if (!descendent.isInstance(PARENTHESIS)) {
-          leftType = TypeUtils.getExprType(descendent ,table);
-          break;
-        }
-      }
-    }
-
-    if (Kind.fromString(rightExpr.getKind()).equals(PARENTHESIS)) {
-      for (JmmNode descendent : rightExpr.getDescendants()) {
-        if (!descendent.isInstance(PARENTHESIS)) {
-          rightType = TypeUtils.getExprType(descendent ,table);
-          break;
-        }
-      }
-    }
-
     boolean neitherTypeIsImport = !(TypeUtils.isImportType(leftType) || TypeUtils.isImportType(rightType));
     if(neitherTypeIsImport) {
       boolean leftTypeIncompatibleWithOpType = !leftType.equals(operationType);
@@ -36,31 +36,10 @@ public class UndeclaredMethod extends AnalysisVisitor {
     private Void visitMethodCall(JmmNode methodCall, SymbolTable symbolTable) {
         String methodName = methodCall.get("name");
 
-        methodCall.put("isDeclared", "False");
+        boolean isDeclaredMethod = AnalysisUtils.isCallToDeclaredMethod(methodCall, currentMethod, symbolTable);
+        methodCall.put("isDeclared", isDeclaredMethod ? "True" : "False");
         JmmNode methodClass = methodCall.getChild(0);
 
-        if(methodClass.getKind().equals(Kind.PARENTHESIS.toString())) {
-            List<JmmNode> parenthesisChildren = methodClass.getChildren();
-
-            for(JmmNode child: parenthesisChildren) {
-                if(!child.getKind().equals(Kind.PARENTHESIS.toString())) {
-                    methodClass = child;
-                    break;
-                } else {
-                    JmmNode currChild = child;
-                    while(currChild.getKind().equals(Kind.PARENTHESIS.toString())) {
-                        if(currChild.getChildren().isEmpty()) break;
-                        currChild = currChild.getChild(0);
-                    }
-
-                    if(!currChild.getKind().equals(Kind.PARENTHESIS.toString())) {
-                        methodClass = currChild;
-                        break;
-                    }
-                }
-            }
-        }
-
         // Isto está um esparguete enorme, mas não fui eu que fiz e não há tempo para resolver
         if(methodClass.getKind().equals("VarRefExpr")) {
             String varName = methodClass.get("name");
@@ -74,7 +53,6 @@ public class UndeclaredMethod extends AnalysisVisitor {
 
             if(type.equals(symbolTable.getClassName())) {
                 boolean isDeclared = symbolTable.getMethods().contains(methodName);
-                if(isDeclared) methodCall.put("isDeclared", "True");
                 if(isDeclared || !symbolTable.getSuper().isEmpty()) {
                     return null; // its either a function of this class or assumed is a function of super
                 }
@@ -83,7 +61,6 @@ public class UndeclaredMethod extends AnalysisVisitor {
             }
         } else if(methodClass.getKind().equals("This")) {
             boolean isDeclared = symbolTable.getMethods().contains(methodName);
-            if(isDeclared) methodCall.put("isDeclared", "True");
             if(isDeclared || !symbolTable.getSuper().isEmpty()) {
                 return null; // its either a function of this class or assumed is a function of super
             }
@@ -148,7 +125,6 @@ public class UndeclaredMethod extends AnalysisVisitor {
                     if (!table.getSuper().trim().equals("")) {
                         return new Type(table.getClassName(), false);
                     }
-                    System.out.println("entra");
                     return  null;
                 }
 
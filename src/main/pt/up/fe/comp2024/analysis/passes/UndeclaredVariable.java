@@ -77,7 +77,10 @@ public class UndeclaredVariable extends AnalysisVisitor {
       varRefExpr.put("isField", "False");
     }
 
-    varRefExpr.put("assignLeft", "False");
+    // CompatibleAssignTypes marks the left side of assignments, which may have been visited already
+    if (!varRefExpr.hasAttribute("assignLeft")) {
+      varRefExpr.put("assignLeft", "False");
+    }
 
     return null;
   }
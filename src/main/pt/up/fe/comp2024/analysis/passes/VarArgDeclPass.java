@@ -11,28 +11,20 @@ import pt.up.fe.comp2024.analysis.AnalysisVisitor;
 import pt.up.fe.comp2024.ast.Kind;
 import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
-import pt.up.fe.specs.util.SpecsCheck;
 
 import java.util.Optional;
 
 public class VarArgDeclPass extends AnalysisVisitor {
-    private String currentClass;
     private String currentMethod;
     @Override
     protected void buildVisitor() {
         // things that must not be vararg -> var decl, field decl ,method returns
         // add visit to field decl and verify type
         // add visit to var decl
-        addVisit(Kind.CLASS_DECL, this::visitClassDecl);
         addVisit(Kind.METHOD_DECL, this::visitMethodDecl);
         addVisit(Kind.VAR_DECL, this::visitVarDecl);
     }
 
-    private Void visitClassDecl(JmmNode classDecl, SymbolTable symbolTable) {
-        this.currentClass = classDecl.get("name");
-        return null;
-    }
-
     private Void visitMethodDecl(JmmNode method, SymbolTable table) {
         this.currentMethod = method.get("name");
 
@@ -47,13 +39,13 @@ public class VarArgDeclPass extends AnalysisVisitor {
         return null;
     }
     private Void visitVarDecl(JmmNode varDecl, SymbolTable table) {
-        SpecsCheck.checkNotNull(currentClass,
-                () -> "Expected current class to be set");
-
         var varDeclName = varDecl.get("name");
 
-        // currentMethod may be null if varDecl is a class field
-        var currentScope = currentMethod == null ? currentClass : currentMethod;
+        // fields are looked up in the class, locals in the method that declares them
+        JmmNode parent = varDecl.getParent();
+        var currentScope = parent.isInstance(Kind.METHOD_DECL) ? parent.get("name")
+                : parent.isInstance(Kind.INNER_MAIN_METHOD) ? "main"
+                : table.getClassName();
 
         Optional<Symbol> symbol = AnalysisUtils.validateSymbolFromSymbolTable(currentScope, table, varDeclName);
 
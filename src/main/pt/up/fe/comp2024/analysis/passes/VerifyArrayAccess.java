@@ -116,12 +116,6 @@ public class VerifyArrayAccess extends AnalysisVisitor {
             return;
         }
 
-        // se tiver ()
-        if (index.isInstance(PARENTHESIS)) {
-            checkArrayAccessHasIntegerIndex(index.getJmmChild(0), table);
-            return;
-        }
-
         // se for uma variável verifica se é um inteiro
         if (index.isInstance(VAR_REF_EXPR)) {
             String varName = index.get("name");
@@ -144,20 +138,6 @@ public class VerifyArrayAccess extends AnalysisVisitor {
             return;
         }
 
-        if (index.isInstance(PARENTHESIS)) {
-            List<JmmNode> parenthesisChildren = index.getChildren();
-            for(JmmNode expr: parenthesisChildren) {
-                Type exprType = TypeUtils.getExprType(expr, table);
-                if(!exprType.getName().equals(TypeUtils.getIntTypeName())) {
-                    var message = "Array indexes need to be integers";
-                    addReport(Report.newError(Stage.SEMANTIC, NodeUtils.getLine(index),
-                            NodeUtils.getColumn(index), message, null));
-                }
-            }
-
-            return;
-        }
-
         // chamadas de métodos
         if (index.isInstance(VAR_METHOD)) {
             var caller = index.getJmmChild(0);
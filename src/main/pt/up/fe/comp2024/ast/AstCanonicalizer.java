@@ -0,0 +1,57 @@
+package pt.up.fe.comp2024.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+
+import static pt.up.fe.comp2024.ast.Kind.*;
+
+/**
+ * Runs right after parsing, so that the later stages never see the wrappers that only matter to the grammar:
+ * <ul>
+ *     <li>a Parenthesis is replaced by the expression inside it, as the shape of the tree already gives the precedence;</li>
+ *     <li>a ScopeStmt directly inside a method body or another ScopeStmt is replaced by its statements, as blocks
+ *     declare no variables.</li>
+ * </ul>
+ * The bodies of if and while statements are kept as they are. The nodes that are kept keep their positions.
+ */
+public class AstCanonicalizer {
+
+    /**
+     * Changes the tree in place.
+     *
+     * @return the root of the tree, which is only another node if the given root is a Parenthesis
+     */
+    public static JmmNode canonicalize(JmmNode root) {
+        canonicalizeChildren(root);
+
+        while (root.isInstance(PARENTHESIS)) {
+            root = root.removeJmmChild(0);
+        }
+
+        return root;
+    }
+
+    private static void canonicalizeChildren(JmmNode node) {
+        boolean holdsStatements = node.isInstance(METHOD_DECL) || node.isInstance(INNER_MAIN_METHOD)
+                || node.isInstance(SCOPE_STMT);
+
+        // getChildren is a copy, so the changes below do not move this loop
+        int index = 0;
+        for (var child : node.getChildren()) {
+            canonicalizeChildren(child);
+
+            if (child.isInstance(PARENTHESIS)) {
+                // its expression is already canonical, so it is not a Parenthesis
+                NodeUtils.replace(child, child.removeJmmChild(0));
+            } else if (holdsStatements && child.isInstance(SCOPE_STMT)) {
+                node.removeJmmChild(index);
+                for (var statement : child.getChildren()) {
+                    node.add(statement, index);
+                    index++;
+                }
+                continue;
+            }
+
+            index++;
+        }
+    }
+}
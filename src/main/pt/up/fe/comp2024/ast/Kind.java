@@ -1,6 +1,8 @@
 package pt.up.fe.comp2024.ast;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.specs.util.SpecsStrings;
@@ -47,6 +49,14 @@ public enum Kind {
 
   private static final Set<Kind> TYPES = Set.of(TYPE, INTEGER_TYPE, BOOL_TYPE, VAR_ARG_TYPE, ABSTRACT_DATA_TYPE, ARRAY_TYPE);
 
+  private static final Map<String, Kind> BY_NODE_NAME = new HashMap<>();
+
+  static {
+    for (Kind k : Kind.values()) {
+      BY_NODE_NAME.put(k.getNodeName(), k);
+    }
+  }
+
   private final String name;
 
   private Kind(String name) { this.name = name; }
@@ -54,15 +64,19 @@ public enum Kind {
   private Kind() { this.name = SpecsStrings.toCamelCase(name(), "_", true); }
 
   public static Kind fromString(String kind) {
-    for (Kind k : Kind.values()) {
-      if (k.getNodeName().equals(kind)) {
-        return k;
-      }
+    Kind k = BY_NODE_NAME.get(kind);
+    if (k == null) {
+      throw new RuntimeException("Could not convert string '" + kind +
+                                 "' to a Kind");
     }
-    throw new RuntimeException("Could not convert string '" + kind +
-                               "' to a Kind");
+    return k;
   }
 
+  /**
+   * @return the kind of the given node
+   */
+  public static Kind of(JmmNode node) { return fromString(node.getKind()); }
+
   public String getNodeName() { return name; }
 
   @Override
@@ -0,0 +1,112 @@
+package pt.up.fe.comp2024.ast;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmVisitor;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Visitor that dispatches on the {@link Kind} of each node, through an array indexed by the ordinal of the kind instead
+ * of the map of kind names (tried for every name in the hierarchy of the node) of the library visitors. The kind of a
+ * node is resolved once per visit.
+ */
+public abstract class KindVisitor<D, R> implements JmmVisitor<D, R> {
+
+    public enum Traversal {
+        /**
+         * The node, then its children (which are only read after the node is visited, so the visit can change them).
+         */
+        PREORDER,
+        /**
+         * The children, then the node.
+         */
+        POSTORDER,
+        /**
+         * Only the node, whose visit method visits the children it needs.
+         */
+        EXPLICIT
+    }
+
+    private final Traversal traversal;
+    private final BiFunction<JmmNode, D, R>[] visits;
+    private BiFunction<JmmNode, D, R> defaultVisit;
+
+    @SuppressWarnings("unchecked")
+    protected KindVisitor(Traversal traversal) {
+        this.traversal = traversal;
+        this.visits = new BiFunction[Kind.values().length];
+
+        buildVisitor();
+    }
+
+    protected abstract void buildVisitor();
+
+    public void addVisit(Kind kind, BiFunction<JmmNode, D, R> method) {
+        visits[kind.ordinal()] = method;
+    }
+
+    @Override
+    public void addVisit(String kind, BiFunction<JmmNode, D, R> method) {
+        addVisit(Kind.fromString(kind), method);
+    }
+
+    @Override
+    public void setDefaultVisit(BiFunction<JmmNode, D, R> defaultVisit) {
+        this.defaultVisit = defaultVisit;
+    }
+
+    /**
+     * Sets the value returned by the visit of the nodes that have no visit method.
+     */
+    public void setDefaultValue(Supplier<R> defaultValue) {
+        setDefaultVisit((node, data) -> defaultValue.get());
+    }
+
+    /**
+     * @return the visit method of the kind, or the default one if there is none
+     */
+    protected BiFunction<JmmNode, D, R> getVisit(Kind kind) {
+        var visit = visits[kind.ordinal()];
+        if (visit != null) {
+            return visit;
+        }
+
+        if (defaultVisit == null) {
+            throw new RuntimeException("Could not find a suitable visit method for node of kind " + kind
+                    + ", and no default visitor is set");
+        }
+
+        return defaultVisit;
+    }
+
+    protected BiFunction<JmmNode, D, R> getVisit(JmmNode node) {
+        return getVisit(Kind.of(node));
+    }
+
+    @Override
+    public R visit(JmmNode node, D data) {
+        var visit = getVisit(node);
+
+        return switch (traversal) {
+            case PREORDER -> {
+                var result = visit.apply(node, data);
+                visitAllChildren(node, data);
+                yield result;
+            }
+            case POSTORDER -> {
+                visitAllChildren(node, data);
+                yield visit.apply(node, data);
+            }
+            case EXPLICIT -> visit.apply(node, data);
+        };
+    }
+
+    protected R visitAllChildren(JmmNode node, D data) {
+        for (var child : node.getChildren()) {
+            visit(child, data);
+        }
+
+        return null;
+    }
+}
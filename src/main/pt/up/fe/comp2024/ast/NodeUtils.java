@@ -1,6 +1,10 @@
 package pt.up.fe.comp2024.ast;
 
 import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+
+import java.util.List;
 
 public class NodeUtils {
 
@@ -24,5 +28,73 @@ public class NodeUtils {
         return Boolean.parseBoolean(line);
     }
 
+    /**
+     * Puts the new node, which must not have a parent, in the place of the node. The attributes of the parent that
+     * point to the node (the labels of the grammar, e.g. 'left' in a BinaryExpr) point to the new node too.
+     */
+    public static void replace(JmmNode node, JmmNode newNode) {
+        var parent = node.getParent();
+        parent.setChild(newNode, node.getIndexOfSelf());
+
+        for (var attribute : parent.getAttributes()) {
+            if (parent.getObject(attribute) == node) {
+                parent.putObject(attribute, newNode);
+            }
+        }
+    }
+
+    /**
+     * Gives the node the position in the code of another node (e.g. the one it replaces).
+     */
+    public static void copyPosition(JmmNode from, JmmNode to) {
+        for (var position : NodePosition.values()) {
+            from.getOptional(position.getString()).ifPresent(value -> to.put(position.getString(), value));
+        }
+    }
+
+    /**
+     * @return a new expression, without children, at the position of the given node
+     */
+    public static JmmNode newExpr(Kind kind, JmmNode position) {
+        return newNode(kind, "Expr", position);
+    }
+
+    /**
+     * @return a new statement, without children, at the position of the given node
+     */
+    public static JmmNode newStmt(Kind kind, JmmNode position) {
+        return newNode(kind, "Stmt", position);
+    }
+
+    private static JmmNode newNode(Kind kind, String superKind, JmmNode position) {
+        var node = new JmmNodeImpl(kind.toString());
+        node.setHierarchy(List.of(kind.toString(), superKind));
+        copyPosition(position, node);
+
+        return node;
+    }
 
+    /**
+     * @param value an Integer or a Boolean
+     * @return a new IntegerLiteral or Bool with the value, at the position of the given node
+     */
+    public static JmmNode newLiteral(Object value, JmmNode position) {
+        var literal = newExpr(value instanceof Boolean ? Kind.BOOL : Kind.INTEGER_LITERAL, position);
+        literal.put("value", value.toString());
+
+        return literal;
+    }
+
+    /**
+     * @return true if evaluating the expression has no effects besides giving its value: it has no calls, no array
+     * accesses or allocations and no divisions, all of which may throw
+     */
+    public static boolean isPure(JmmNode expr) {
+        return switch (Kind.of(expr)) {
+            case INTEGER_LITERAL, BOOL, VAR_REF_EXPR, THIS -> true;
+            case UNARY -> isPure(expr.getChild(0));
+            case BINARY_EXPR -> !expr.get("op").equals("/") && isPure(expr.getChild(0)) && isPure(expr.getChild(1));
+            default -> false;
+        };
+    }
 }
@@ -6,6 +6,7 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp2024.analysis.AnalysisUtils;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTable;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,48 +22,94 @@ public class TypeUtils {
 
   private static final String VARARG_TYPE_NAME = "vararg";
 
+  // the common types are shared by every expression, so they must never be mutated (e.g. with putObject); copy them
+  // before adding anything to them
+  private static final Type INT_TYPE = new Type(INT_TYPE_NAME, false);
+  private static final Type INT_ARRAY_TYPE = new Type(INT_TYPE_NAME, true);
+  private static final Type BOOL_TYPE = new Type(BOOL_TYPE_NAME, false);
+  private static final Type STRING_TYPE = new Type(STRING_TYPE_NAME, false);
+  private static final Type STRING_ARRAY_TYPE = new Type(STRING_TYPE_NAME, true);
+  private static final Type IMPORT_TYPE = new Type(IMPORT_TYPE_NAME, false);
+
+  // attribute where the type of an expression is kept, once computed
+  private static final String EXPR_TYPE_ATTRIBUTE = "exprType";
+
   public static String getIntTypeName() { return INT_TYPE_NAME; }
   public static String getBoolTypeName() { return BOOL_TYPE_NAME; }
   public static String getStringTypeName() { return STRING_TYPE_NAME; }
   public static String getVarargTypeName() {return VARARG_TYPE_NAME; }
   public static String getImportTypeName() { return IMPORT_TYPE_NAME; }
 
+  public static Type getIntType() { return INT_TYPE; }
+  public static Type getIntArrayType() { return INT_ARRAY_TYPE; }
+  public static Type getBoolType() { return BOOL_TYPE; }
+  public static Type getStringType() { return STRING_TYPE; }
+  public static Type getStringArrayType() { return STRING_ARRAY_TYPE; }
+  public static Type getImportType() { return IMPORT_TYPE; }
+
+  /**
+   * @return the type of a class (the current one or an imported one), shared by every expression of that class, so
+   * it must never be mutated
+   */
+  public static Type getClassType(String className, SymbolTable table) {
+      if (table instanceof JmmSymbolTable jmmTable) {
+          return jmmTable.getClassType(className);
+      }
+
+      return new Type(className, false);
+  }
+
     public static boolean isImportType(Type type) {
       return type.getName().equals(TypeUtils.getImportTypeName());
     }
 
   /**
    * Gets the {@link Type} of an arbitrary expression.
+   * <p>
+   * The type is computed the first time it is asked for and kept in the node, so that later queries (from other
+   * analysis passes and from the OLLIR generation) do not compute it again.
    *
    * @param expr
    * @param table
    * @return
    */
   public static Type getExprType(JmmNode expr, SymbolTable table) {
-    var kind = Kind.fromString(expr.getKind());
+    if (expr.hasAttribute(EXPR_TYPE_ATTRIBUTE)) {
+        return (Type) expr.getObject(EXPR_TYPE_ATTRIBUTE);
+    }
+
+    Type type = inferExprType(expr, table);
+
+    // undeclared variables have no type, they are reported by the analysis
+    if (type != null) {
+        expr.putObject(EXPR_TYPE_ATTRIBUTE, type);
+    }
+
+    return type;
+  }
+
+  private static Type inferExprType(JmmNode expr, SymbolTable table) {
+    var kind = Kind.of(expr);
 
     Type type = switch (kind) {
             case BINARY_EXPR -> getBinExprType(expr);
             case VAR_REF_EXPR -> getVarExprType(expr, table);
-            case INTEGER_LITERAL, LENGTH, ACCESS_ARRAY -> new Type(INT_TYPE_NAME, false);
-            case PARENTHESIS -> getExprType(expr.getChildren().get(0), table);
+            case INTEGER_LITERAL, LENGTH, ACCESS_ARRAY -> INT_TYPE;
             case VAR_METHOD -> {
-                if (expr.hasAttribute("isDeclared")) {
-                    if (expr.get("isDeclared").equals("False"))
-                        yield new Type(IMPORT_TYPE_NAME, false);
-                }
-                else if (!table.getMethods().contains(expr.get("name"))) {
-                    yield new Type(IMPORT_TYPE_NAME, false);
-                }
-//                if (expr.get("isDeclared").equals("False"))
-//                    yield new Type(IMPORT_TYPE_NAME, false);
+                // set by the UndeclaredMethod pass, unless it did not visit the call yet
+                boolean isDeclared = expr.hasAttribute("isDeclared")
+                        ? expr.get("isDeclared").equals("True")
+                        : AnalysisUtils.isCallToDeclaredMethod(expr, getEnclosingMethodName(expr), table);
+
+                if (!isDeclared)
+                    yield IMPORT_TYPE;
 
                 yield table.getReturnType(expr.get("name"));
             }
             case NEW_CLASS -> getNewClassType(expr, table);
-            case NEW_INT, INIT_ARRAY -> new Type(INT_TYPE_NAME, true);
-            case BOOL, UNARY -> new Type(BOOL_TYPE_NAME, false);
-            case THIS -> new Type(table.getClassName(), false);
+            case NEW_INT, INIT_ARRAY -> INT_ARRAY_TYPE;
+            case BOOL, UNARY -> BOOL_TYPE;
+            case THIS -> getClassType(table.getClassName(), table);
             default -> throw new UnsupportedOperationException("Can't compute type for expression kind '" + kind + "'");
         };
 
@@ -78,8 +125,8 @@ public class TypeUtils {
         String operator = binaryExpr.get("op");
 
         return switch (operator) {
-            case "+", "-", "/", "*"-> new Type(INT_TYPE_NAME, false);
-            case "&&", "<" -> new Type(BOOL_TYPE_NAME, false);
+            case "+", "-", "/", "*"-> INT_TYPE;
+            case "&&", "<" -> BOOL_TYPE;
             default ->
                     throw new RuntimeException("Unknown operator '" + operator + "' of expression '" + binaryExpr + "'");
         };
@@ -90,25 +137,29 @@ public class TypeUtils {
         String operator = binaryExpr.get("op");
 
         return switch (operator) {
-            case "+", "-", "/", "*", "<" -> new Type(INT_TYPE_NAME, false);
-            case "&&" -> new Type(BOOL_TYPE_NAME, false);
+            case "+", "-", "/", "*", "<" -> INT_TYPE;
+            case "&&" -> BOOL_TYPE;
             default ->
                     throw new RuntimeException("Unknown operator '" + operator + "' of expression '" + binaryExpr + "'");
         };
     }
 
+    private static String getEnclosingMethodName(JmmNode node) {
+        Optional<JmmNode> methodNode = node.getAncestor(METHOD_DECL);
+        return methodNode.isPresent() ? methodNode.get().get("name") : "main";
+    }
+
     private static Type getVarExprType(JmmNode varRefExpr, SymbolTable table) {
         String name = varRefExpr.get("name");
 
-         Optional<JmmNode> methodNode = varRefExpr.getAncestor(METHOD_DECL);
-         String methodName = methodNode.isPresent() ? methodNode.get().get("name") : "main";
+         String methodName = getEnclosingMethodName(varRefExpr);
          Optional<Symbol> varRefSymbol = AnalysisUtils.validateSymbolFromSymbolTable(methodName, table, name);
 
          if (varRefSymbol.isEmpty()) {
              boolean isImport = AnalysisUtils.validateIsImported(name, table);
 
              if (isImport) {
-                 return new Type(TypeUtils.getImportTypeName(), false);
+                 return IMPORT_TYPE;
              }
 
              return null;
@@ -118,15 +169,7 @@ public class TypeUtils {
     }
 
     private static Type getNewClassType(JmmNode newClass, SymbolTable table) {
-        String newClassName = newClass.get("name");
-        List<String> imports = table.getImports();
-        String currentClassName = table.getClassName();
-
-        if (currentClassName.equals(newClassName)) {
-            return new Type(newClassName, false);
-        }
-
-        return new Type(newClassName, false);
+        return getClassType(newClass.get("name"), table);
     }
 
 
@@ -6,7 +6,6 @@ import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.specs.util.classmap.FunctionClassMap;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
-import pt.up.fe.specs.util.utilities.StringLines;
 
 import java.util.*;
 import java.util.regex.Matcher;
@@ -21,6 +20,8 @@ public class JasminGenerator {
 
     private static final String NL = "\n";
     private static final String TAB = "   ";
+    private static final Pattern CMP_LABEL = Pattern.compile("cmp_\\d+_((true)|(end))_label:");
+    private static final Pattern METHOD_NAME = Pattern.compile("\"(.*)\"");
 
     private final OllirResult ollirResult;
     private int maxConstantPoolValue = 5;
@@ -169,7 +170,29 @@ public class JasminGenerator {
     }
 
 
+    /**
+     * @return the code of the class without its methods: the class, its super class, its fields and the default
+     * constructor
+     */
+    public String buildHeader() {
+        return generateClassHeader(ollirResult.getOllirClass());
+    }
+
+    /**
+     * @return the code of each method of the class (except the constructor), in the order they are declared
+     */
+    public List<String> buildMethods() {
+        var classUnit = ollirResult.getOllirClass();
+        this.classUnitImports = classUnit.getImports();
+
+        return generateMethods(classUnit);
+    }
+
     private String generateClassUnit(ClassUnit classUnit) {
+        return generateClassHeader(classUnit) + String.join("", generateMethods(classUnit));
+    }
+
+    private String generateClassHeader(ClassUnit classUnit) {
 
         this.classUnitImports = classUnit.getImports();
         var code = new StringBuilder();
@@ -209,8 +232,14 @@ public class JasminGenerator {
                 """, superConstructorInvokerString);
         code.append(defaultConstructor);
 
+        return code.toString();
+    }
+
+    private List<String> generateMethods(ClassUnit classUnit) {
+        List<String> methods = new ArrayList<>();
+
         // generate code for all other methods
-        for (var method : ollirResult.getOllirClass().getMethods()) {
+        for (var method : classUnit.getMethods()) {
 
             // Ignore constructor, since there is always one constructor
             // that receives no arguments, and has been already added
@@ -219,10 +248,10 @@ public class JasminGenerator {
                 continue;
             }
 
-            code.append(generators.apply(method));
+            methods.add(generators.apply(method));
         }
 
-        return code.toString();
+        return methods;
     }
 
     private String generateMethod(Method method) {
@@ -230,6 +259,9 @@ public class JasminGenerator {
         this.currentMethod = method;
         this.currentMethodVirtualReg = 1;
         this.stack = 1;
+        this.currentStackValue = 0;
+        // labels and the stack are counted per method, so that the code of a method does not depend on the others
+        this.currentLthLabel = 0;
 
         var code = new StringBuilder();
 
@@ -269,8 +301,8 @@ public class JasminGenerator {
                 }
             }
 
-            for(String instruction: StringLines.getLines(generators.apply(inst))) {
-                if(!instruction.matches("cmp_\\d+_((true)|(end))_label:")) {
+            for(String instruction: generators.apply(inst).lines().toList()) {
+                if(!CMP_LABEL.matcher(instruction).matches()) {
                     instructions.append(TAB);
                 }
 
@@ -315,6 +347,11 @@ public class JasminGenerator {
     private String generateAssign(AssignInstruction assign) {
         var code = new StringBuilder();
 
+        // after register allocation, a copy can be from a register to itself
+        if(this.isSelfCopy(assign)) {
+            return code.toString();
+        }
+
         if(assign.getRhs().getInstType().name().equals(InstructionType.CALL.name())) {
             this.currentCallInstructionIsOnAssign = true;
         }
@@ -343,6 +380,15 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    private boolean isSelfCopy(AssignInstruction assign) {
+        if(!(assign.getDest() instanceof Operand dest) || dest instanceof ArrayOperand) return false;
+        if(!(assign.getRhs() instanceof SingleOpInstruction singleOp)) return false;
+        if(!(singleOp.getSingleOperand() instanceof Operand source) || source instanceof ArrayOperand) return false;
+
+        var varTable = this.currentMethod.getVarTable();
+        return this.varHasReg(source, varTable, varTable.get(dest.getName()).getVirtualReg());
+    }
+
     private boolean canUseIinc(AssignInstruction assign) {
         if(assign.getRhs().getChildren().size() != 2) return false;
 
@@ -356,17 +402,17 @@ public class JasminGenerator {
         TreeNode rightOperand = rightHandSide.getChildren().get(1);
 
         var varTable = this.currentMethod.getVarTable();
-        if((leftOperand.getClass() == LiteralElement.class) && (rightOperand.getClass() == Operand.class)) {
+        // c - x is not an increment of x
+        if((leftOperand.getClass() == LiteralElement.class) && (rightOperand.getClass() == Operand.class) && opType.name().equals("ADD")) {
             int literal = Integer.parseInt(((LiteralElement) leftOperand).getLiteral());
-            boolean negativeMax = (opType.name().equals("SUB") && (literal <= 128));
-            boolean positiveMax = (opType.name().equals("ADD") && (literal <= 127));
-            return (negativeMax || positiveMax) && this.varHasReg((Operand) rightOperand, varTable, varTable.get(dest.getName()).getVirtualReg());
+            return this.isByte(literal) && this.varHasReg((Operand) rightOperand, varTable, varTable.get(dest.getName()).getVirtualReg());
         }
 
+        // the increment of iinc is a signed byte
         if((rightOperand.getClass() == LiteralElement.class) && (leftOperand.getClass() == Operand.class)) {
             int literal = Integer.parseInt(((LiteralElement) rightOperand).getLiteral());
-            boolean negativeMax = (opType.name().equals("SUB") && (literal <= 128));
-            boolean positiveMax = (opType.name().equals("ADD") && (literal <= 127));
+            boolean negativeMax = (opType.name().equals("SUB") && this.isByte(-literal));
+            boolean positiveMax = (opType.name().equals("ADD") && this.isByte(literal));
             return (negativeMax || positiveMax) && this.varHasReg((Operand) leftOperand, varTable, varTable.get(dest.getName()).getVirtualReg());
         }
 
@@ -438,9 +484,12 @@ public class JasminGenerator {
     }
 
     private String generateLiteral(LiteralElement literal) {
+        return this.generateIntConstant(Integer.valueOf(literal.getLiteral()));
+    }
+
+    private String generateIntConstant(int literalValue) {
         StringBuilder generatedResult = new StringBuilder();
 
-        int literalValue = Integer.valueOf(literal.getLiteral());
         if(this.constantValueExistsInConstantPool(literalValue)) {
             generatedResult.append("iconst_" + literalValue);
         } else if(this.isByte(literalValue)){
@@ -487,6 +536,12 @@ public class JasminGenerator {
     }
 
     private String generateBinaryOp(BinaryOpInstruction binaryOp) {
+        if (binaryOp.getOperation().getOpType() == OperationType.MUL) {
+            var shift = this.generateMulAsShift(binaryOp.getLeftOperand(), binaryOp.getRightOperand());
+            if (shift == null) shift = this.generateMulAsShift(binaryOp.getRightOperand(), binaryOp.getLeftOperand());
+            if (shift != null) return shift;
+        }
+
         var code = new StringBuilder();
 
         // load values on the left and on the right
@@ -512,6 +567,28 @@ public class JasminGenerator {
         return code.toString();
     }
 
+    /**
+     * Multiplies by a positive power of two (other than 1) with a left shift, which gives the same result (overflow
+     * included) for every int.
+     *
+     * @return the code, or null if the factor is not such a power of two
+     */
+    private String generateMulAsShift(Element operand, Element factor) {
+        if (!(factor instanceof LiteralElement literal)) return null;
+
+        int value = Integer.parseInt(literal.getLiteral());
+        if (value <= 1 || Integer.bitCount(value) != 1) return null;
+
+        var code = new StringBuilder();
+        code.append(generators.apply(operand));
+        code.append(this.generateIntConstant(Integer.numberOfTrailingZeros(value)));
+        code.append("ishl").append(NL);
+
+        this.decreaseLimitStack();
+
+        return code.toString();
+    }
+
     private String gteCode(BinaryOpInstruction binaryOp) {
         StringBuilder code = new StringBuilder();
 
@@ -664,8 +741,7 @@ public class JasminGenerator {
         code.append(JasminMethodUtils.importFullPath(callInst.getOperands().get(0).toString().split(": ")[1].split("\\.")[0], this.classUnitImports));
         code.append("/");
 
-        Pattern pattern = Pattern.compile("\"(.*)\"");
-        Matcher matcher = pattern.matcher(callInst.getMethodName().toString());
+        Matcher matcher = METHOD_NAME.matcher(callInst.getMethodName().toString());
 
         if (matcher.find())
             code.append(matcher.group(1));
@@ -691,8 +767,7 @@ public class JasminGenerator {
         code.append(JasminMethodUtils.getTypeInJasminFormatMethodParam(callInst.getCaller().getType(), this.classUnitImports));
         code.append("/");
 
-        Pattern pattern = Pattern.compile("\"(.*)\"");
-        Matcher matcher = pattern.matcher(callInst.getMethodName().toString());
+        Matcher matcher = METHOD_NAME.matcher(callInst.getMethodName().toString());
 
         if (matcher.find())
             code.append(matcher.group(1));
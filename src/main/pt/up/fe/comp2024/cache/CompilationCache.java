@@ -0,0 +1,297 @@
+package pt.up.fe.comp2024.cache;
+
+import com.google.gson.JsonParseException;
+import org.specs.comp.ollir.ClassUnit;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.utils.JsonUtils;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of compilation results, addressed by a hash of everything that determines the output: the source code,
+ * the options that change the generated code and the version of the compiler.
+ * <p>
+ * Entries are written to a temporary file and then atomically moved into place, so several compilations (threads or
+ * processes) can share the same cache directory. Hits refresh the modification time of the entry, which is used to
+ * evict the least recently used entries once the cache grows over its maximum size.
+ */
+public class CompilationCache {
+
+    // bump when the format of the entries changes
+    private static final String CACHE_VERSION = "1";
+    private static final String ENTRY_EXTENSION = ".json";
+
+    // fingerprint of the classes this JVM runs, see getCompilerFingerprint
+    private static String compilerFingerprintCache;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final String compilerFingerprint;
+
+    private final AtomicLong sizeBytes;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    public CompilationCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, getCompilerFingerprint());
+    }
+
+    /**
+     * @param compilerFingerprint identifies the compiler build, entries of other fingerprints are never reused
+     */
+    CompilationCache(Path directory, long maxBytes, String compilerFingerprint) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.compilerFingerprint = compilerFingerprint;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create cache directory '" + directory + "'", e);
+        }
+
+        this.sizeBytes = new AtomicLong(listEntries().stream().mapToLong(CompilationCache::sizeOf).sum());
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * @param parserClass name of the class of the parser, as the parsers give different syntax errors (see the
+     *                    'ParserClass' property of config.properties)
+     * @return the key of the entry for the given source parsed by the given parser and compiled with the given options
+     */
+    public String computeKey(String code, Map<String, String> config, String parserClass) {
+        MessageDigest digest = newDigest();
+
+        // only the options that change the generated code are part of the key (e.g. not the input path)
+        String header = CACHE_VERSION + "\n" + compilerFingerprint + "\n"
+                + parserClass + "\n"
+                + CompilerConfig.getOptimize(config) + "\n"
+                + CompilerConfig.getRegisterAllocation(config) + "\n";
+
+        digest.update(header.getBytes(StandardCharsets.UTF_8));
+        digest.update(code.getBytes(StandardCharsets.UTF_8));
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<CompilationResult> get(String key) {
+        Path entry = entryPath(key);
+
+        String json;
+        try {
+            json = Files.readString(entry);
+            // used as the "last used" time by the eviction
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        CompilationResult result;
+        try {
+            result = JsonUtils.fromJson(json, CompilationResult.class);
+        } catch (JsonParseException e) {
+            // corrupted entry, it will be replaced by the next put
+            result = null;
+        }
+
+        (result == null ? misses : hits).incrementAndGet();
+        return Optional.ofNullable(result);
+    }
+
+    public void put(String key, CompilationResult result) {
+        var serializable = new CompilationResult(ReportUtils.detachExceptions(result.getReports()),
+                result.getOllirCode().orElse(null), result.getJasminCode().orElse(null));
+        byte[] json = JsonUtils.toJson(serializable).getBytes(StandardCharsets.UTF_8);
+
+        Path entry = entryPath(key);
+        try {
+            Path tempFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tempFile, json);
+
+            long previousSize = sizeOf(entry);
+            Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            sizeBytes.addAndGet(json.length - previousSize);
+        } catch (IOException e) {
+            // the cache is only an optimization, failing to store an entry is not an error
+            return;
+        }
+
+        if (sizeBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is at most at 90% of its maximum size.
+     */
+    private synchronized void evict() {
+        long target = maxBytes - maxBytes / 10;
+        if (sizeBytes.get() <= target) {
+            return;
+        }
+
+        List<Path> entries = new ArrayList<>(listEntries());
+        entries.sort(Comparator.comparingLong(CompilationCache::lastModified));
+
+        for (Path entry : entries) {
+            if (sizeBytes.get() <= target) {
+                break;
+            }
+
+            long size = sizeOf(entry);
+            try {
+                // another process may have evicted it already
+                if (Files.deleteIfExists(entry)) {
+                    sizeBytes.addAndGet(-size);
+                    evictions.incrementAndGet();
+                }
+            } catch (IOException e) {
+                // skip entries that cannot be deleted
+            }
+        }
+    }
+
+    private List<Path> listEntries() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(ENTRY_EXTENSION)).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list cache directory '" + directory + "'", e);
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_EXTENSION);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Identifies the compiler build, so that entries produced by a different build are never reused: a hash of the
+     * classes of the compiler and of the OLLIR library, read from the jar or the directory each was loaded from.
+     * <p>
+     * Computed once per JVM. If the classes cannot be read, the cache cannot tell builds apart and is not used.
+     */
+    private static synchronized String getCompilerFingerprint() {
+        if (compilerFingerprintCache != null) {
+            return compilerFingerprintCache;
+        }
+
+        MessageDigest digest = newDigest();
+        for (Class<?> aClass : List.of(JmmCompiler.class, ClassUnit.class)) {
+            Path codeSource;
+            try {
+                codeSource = Path.of(aClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+            } catch (Exception e) {
+                throw new RuntimeException("Could not find the classes of '" + aClass.getName() + "' to fingerprint the compiler", e);
+            }
+
+            try {
+                hashCodeSource(codeSource, digest);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read '" + codeSource + "' to fingerprint the compiler", e);
+            }
+        }
+
+        compilerFingerprintCache = HexFormat.of().formatHex(digest.digest());
+        return compilerFingerprintCache;
+    }
+
+    private static void hashCodeSource(Path codeSource, MessageDigest digest) throws IOException {
+        if (Files.isRegularFile(codeSource)) {
+            digest.update(Files.readAllBytes(codeSource));
+            return;
+        }
+
+        if (!Files.isDirectory(codeSource)) {
+            throw new IOException("'" + codeSource + "' is neither a jar nor a directory");
+        }
+
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(codeSource)) {
+            classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().toList();
+        }
+
+        for (Path classFile : classFiles) {
+            digest.update(codeSource.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(classFile));
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), sizeBytes.get());
+    }
+
+    public static class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long sizeBytes;
+
+        public Stats(long hits, long misses, long evictions, long sizeBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.sizeBytes = sizeBytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Cache: " + hits + " hits, " + misses + " misses, " + evictions + " evictions, "
+                    + (sizeBytes / 1024) + " KiB";
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package pt.up.fe.comp2024.incremental;
+
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp.jmm.parser.JmmParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.analysis.FusedAnalysisPass;
+import pt.up.fe.comp2024.analysis.JmmAnalysisImpl;
+import pt.up.fe.comp2024.analysis.ParallelAnalysisPass;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.NodeUtils;
+import pt.up.fe.comp2024.backend.JasminGenerator;
+import pt.up.fe.comp2024.optimization.JmmOptimizationImpl;
+import pt.up.fe.comp2024.optimization.OllirGeneratorVisitor;
+import pt.up.fe.comp2024.parser.JmmParsers;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles successive versions of the same source, as an editor does while the code is typed, redoing only the work
+ * of the methods that changed.
+ * <p>
+ * The reports, OLLIR and Jasmin of each method are kept, and are only computed again when the code of the method
+ * changed, when the signature of a method it calls changed, or when anything outside the methods (imports, class
+ * declaration, fields) changed. The symbol table and the part of the class outside the methods are analysed for every
+ * version. With {@link PrattParserImpl}, a version that only changed inside a method is parsed by parsing that method
+ * alone, otherwise the whole code is parsed again. The result is the same as compiling the whole version with
+ * {@link pt.up.fe.comp2024.JmmCompiler}.
+ * <p>
+ * A session is not thread-safe.
+ */
+public class CompileSession {
+
+    private static final Set<String> POSITION_ATTRIBUTES = Arrays.stream(NodePosition.values())
+            .map(NodePosition::getKey)
+            .collect(Collectors.toSet());
+
+    /**
+     * What is kept of a method between versions. Reports of the analysis have the lines of the version where the
+     * method was analysed.
+     */
+    private static class MethodUnit {
+        private final String name;
+        private final String signature;
+        private final Set<String> calls;
+        private final int analysisLine;
+        private final FusedAnalysisPass.Results analysis;
+
+        private String ollirCode;
+        private String jasminCode;
+        private List<Report> optimizationReports;
+        private List<Report> generatorReports;
+
+        private MethodUnit(String name, String signature, Set<String> calls, int analysisLine,
+                           FusedAnalysisPass.Results analysis) {
+            this.name = name;
+            this.signature = signature;
+            this.calls = calls;
+            this.analysisLine = analysisLine;
+            this.analysis = analysis;
+        }
+
+        private boolean dependsOn(Set<String> methodNames) {
+            return methodNames.contains(name) || calls.stream().anyMatch(methodNames::contains);
+        }
+    }
+
+    private final Map<String, String> config;
+    private final JmmParser parser;
+    private final JmmAnalysisImpl analysis;
+    private final JmmOptimizationImpl optimization;
+
+    private String code;
+    private int[] lineOffsets;
+    private JmmParserResult parserResult;
+    private SymbolTable table;
+    private List<String> recompiledMethods;
+
+    // methods of the last analysed version, by their code
+    private Map<String, MethodUnit> units;
+    private Map<String, String> signatures;
+    private String classContext;
+    private String jasminHeader;
+
+    public CompileSession(Map<String, String> config) {
+        this(JmmParsers.fromConfigFile(), config);
+    }
+
+    public CompileSession(JmmParser parser, Map<String, String> config) {
+        this.config = config;
+        this.parser = parser;
+        this.analysis = new JmmAnalysisImpl();
+        this.optimization = new JmmOptimizationImpl();
+
+        reset();
+    }
+
+    private void reset() {
+        this.code = null;
+        this.lineOffsets = null;
+        this.parserResult = null;
+        this.table = null;
+        this.recompiledMethods = List.of();
+        this.units = new HashMap<>();
+        this.signatures = new HashMap<>();
+        this.classContext = null;
+        this.jasminHeader = null;
+    }
+
+    public Map<String, String> getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the result of parsing the last version without syntax errors, if any
+     */
+    public Optional<JmmParserResult> getParserResult() {
+        return Optional.ofNullable(parserResult);
+    }
+
+    public Optional<SymbolTable> getSymbolTable() {
+        return Optional.ofNullable(table);
+    }
+
+    /**
+     * @return the names of the methods analysed by the last update, in the order they are declared
+     */
+    public List<String> getRecompiledMethods() {
+        return recompiledMethods;
+    }
+
+    public CompilationResult update(String code) {
+        try {
+            return compile(code);
+        } catch (RuntimeException e) {
+            // what is kept may be half updated
+            reset();
+
+            List<Report> reports = new ArrayList<>();
+            reports.add(Report.newError(Stage.OTHER, -1, -1, "Exception during compilation", e));
+            return CompilationResult.failed(reports);
+        }
+    }
+
+    private CompilationResult compile(String newCode) {
+        recompiledMethods = new ArrayList<>();
+
+        // Parsing stage, the methods not parsed again are the ones of the last version (already analysed)
+        Set<JmmNode> parsedMethods = Collections.newSetFromMap(new IdentityHashMap<>());
+        JmmParserResult newParserResult = CompileProfiler.time("parse", () -> parse(newCode, parsedMethods));
+        if (ReportUtils.anyError(newParserResult.getReports()) || newParserResult.getRootNode() == null) {
+            return CompilationResult.failed(newParserResult.getReports());
+        }
+
+        JmmNode root = newParserResult.getRootNode();
+        int[] newLineOffsets = getLineOffsets(newCode);
+        SymbolTable newTable = CompileProfiler.time("symbolTable", () -> JmmSymbolTableBuilder.build(root));
+        List<JmmNode> methods = new ArrayList<>(ParallelAnalysisPass.getMethods(root));
+
+        // Semantic analysis stage, the methods that can be reused are found by comparing with the last version
+        List<String> keys = new ArrayList<>();
+        Map<String, String> newSignatures = new HashMap<>();
+        for (var method : methods) {
+            var key = getKey(method, newCode, newLineOffsets);
+            keys.add(key);
+
+            // the analysis adds attributes to the nodes, so they are only described before it
+            var signature = parsedMethods.contains(method) ? describeSignature(method) : units.get(key).signature;
+            newSignatures.merge(getName(method), signature, String::concat);
+        }
+
+        String newClassContext = describeClassContext(root);
+        FusedAnalysisPass.Results classAnalysis = CompileProfiler.time("classAnalysis",
+                () -> analysis.analyzeClass(root, newTable));
+
+        Set<String> changedNames = getChangedNames(signatures, newSignatures);
+        Set<String> duplicatedNames = getDuplicatedNames(methods);
+
+        // "_" is not a valid method name, and its presence is reported in every method
+        boolean everythingChanged = !newClassContext.equals(classContext) || changedNames.contains("_");
+
+        Map<String, MethodUnit> newUnits = new HashMap<>();
+        List<MethodUnit> methodUnits = new ArrayList<>();
+        Set<MethodUnit> analysedUnits = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<FusedAnalysisPass.Results> parts = new ArrayList<>();
+        parts.add(classAnalysis);
+
+        for (int i = 0; i < methods.size(); i++) {
+            String key = keys.get(i);
+            String name = getName(methods.get(i));
+            int line = NodeUtils.getLine(methods.get(i));
+
+            MethodUnit unit = everythingChanged ? null : units.get(key);
+
+            // methods with the same name see each other in the symbol table, and two equal methods are two units
+            boolean reusable = unit != null
+                    && !unit.dependsOn(changedNames)
+                    && !duplicatedNames.contains(name)
+                    && !newUnits.containsKey(key);
+
+            if (!reusable) {
+                var method = getParsedMethod(methods, i, newCode, newLineOffsets, parsedMethods);
+                var signature = describeSignature(method);
+                var methodAnalysis = CompileProfiler.time("methodAnalysis", () -> analysis.analyzeMethod(method, newTable));
+
+                unit = new MethodUnit(name, signature, getCalls(method), line, methodAnalysis);
+                analysedUnits.add(unit);
+                recompiledMethods.add(name);
+            }
+
+            newUnits.putIfAbsent(key, unit);
+            methodUnits.add(unit);
+            parts.add(line == unit.analysisLine ? unit.analysis : unit.analysis.withLineOffset(line - unit.analysisLine));
+        }
+
+        // the analysis of this version is kept even if it has errors
+        this.code = newCode;
+        this.lineOffsets = newLineOffsets;
+        this.parserResult = newParserResult;
+        this.table = newTable;
+        this.units = newUnits;
+        this.signatures = newSignatures;
+        if (!newClassContext.equals(classContext)) {
+            this.classContext = newClassContext;
+            this.jasminHeader = null;
+        }
+
+        List<Report> semanticReports = new ArrayList<>(newParserResult.getReports());
+        semanticReports.addAll(FusedAnalysisPass.collectReports(parts));
+        if (ReportUtils.anyError(semanticReports)) {
+            return CompilationResult.failed(semanticReports);
+        }
+
+        // OLLIR generation and optimization stage, for the methods without code
+        for (int i = 0; i < methods.size(); i++) {
+            var unit = methodUnits.get(i);
+            if (unit.ollirCode != null) continue;
+
+            // the code is generated from the attributes the analysis adds to the nodes
+            var method = getParsedMethod(methods, i, newCode, newLineOffsets, parsedMethods);
+            if (!analysedUnits.contains(unit)) {
+                analysis.analyzeMethod(method, newTable);
+            }
+
+            if (CompilerConfig.getOptimize(config)) {
+                optimization.optimizeAst(method, newTable);
+            }
+
+            unit.ollirCode = CompileProfiler.time("ollirGeneration",
+                    () -> new OllirGeneratorVisitor(newTable).visit(method));
+        }
+
+        Map<JmmNode, String> methodCodes = new IdentityHashMap<>();
+        for (int i = 0; i < methods.size(); i++) {
+            methodCodes.put(methods.get(i), methodUnits.get(i).ollirCode);
+        }
+
+        String ollirCode = new OllirGeneratorVisitor(newTable, methodCodes).visit(root);
+
+        // each method is compiled to Jasmin alone, in a class with the same fields and no other methods
+        for (int i = 0; i < methods.size(); i++) {
+            var unit = methodUnits.get(i);
+            if (unit.jasminCode != null) continue;
+
+            Map<JmmNode, String> onlyMethod = new IdentityHashMap<>();
+            for (var method : methods) {
+                onlyMethod.put(method, method == methods.get(i) ? unit.ollirCode : "");
+            }
+
+            OllirResult methodResult = CompileProfiler.time("optimize", () -> compileOllir(root, newTable, onlyMethod));
+            var generator = new JasminGenerator(methodResult);
+
+            unit.jasminCode = CompileProfiler.time("jasmin", () -> generator.buildMethods().get(0));
+            unit.optimizationReports = methodResult.getReports();
+            unit.generatorReports = generator.getReports();
+        }
+
+        if (jasminHeader == null) {
+            Map<JmmNode, String> noMethods = new IdentityHashMap<>();
+            for (var method : methods) {
+                noMethods.put(method, "");
+            }
+
+            jasminHeader = new JasminGenerator(compileOllir(root, newTable, noMethods)).buildHeader();
+        }
+
+        // reports are in the same order as the ones of the whole class
+        List<Report> reports = new ArrayList<>(semanticReports);
+        methodUnits.forEach(unit -> reports.addAll(unit.optimizationReports));
+        if (ReportUtils.anyError(reports)) {
+            return CompilationResult.failed(reports);
+        }
+
+        methodUnits.forEach(unit -> reports.addAll(unit.generatorReports));
+        if (ReportUtils.anyError(reports)) {
+            return new CompilationResult(reports, ollirCode, null);
+        }
+
+        var jasminCode = new StringBuilder(jasminHeader);
+        methodUnits.forEach(unit -> jasminCode.append(unit.jasminCode));
+
+        return new CompilationResult(reports, ollirCode, jasminCode.toString());
+    }
+
+    /**
+     * Parses the new version. The tree of the last version is reused, with the changed method parsed again, when the
+     * parser can parse a method alone and the code only changed inside that method.
+     *
+     * @param parsedMethods where the methods parsed for this version are added
+     */
+    private JmmParserResult parse(String newCode, Set<JmmNode> parsedMethods) {
+        if (parserResult != null && parser instanceof PrattParserImpl methodParser) {
+            var root = parserResult.getRootNode();
+
+            if (newCode.equals(code) || reparseChangedMethod(methodParser, root, newCode, parsedMethods)) {
+                return new JmmParserResult(root, new ArrayList<>(), config);
+            }
+        }
+
+        var newParserResult = parser.parse(newCode, config);
+        if (newParserResult.getRootNode() != null) {
+            parsedMethods.addAll(ParallelAnalysisPass.getMethods(newParserResult.getRootNode()));
+        }
+
+        return newParserResult;
+    }
+
+    /**
+     * @return false if the code did not only change inside one of the methods of the last version, or if the method
+     * is not a single method anymore (the whole code must be parsed)
+     */
+    private boolean reparseChangedMethod(PrattParserImpl methodParser, JmmNode root, String newCode,
+                                         Set<JmmNode> parsedMethods) {
+        int length = Math.min(code.length(), newCode.length());
+
+        int prefix = 0;
+        while (prefix < length && code.charAt(prefix) == newCode.charAt(prefix)) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        while (suffix < length - prefix
+                && code.charAt(code.length() - 1 - suffix) == newCode.charAt(newCode.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        // the code that changed is between the prefix and the suffix
+        int changeEnd = code.length() - suffix;
+
+        for (var method : ParallelAnalysisPass.getMethods(root)) {
+            int start = getStart(method, lineOffsets);
+            int end = getEnd(method, lineOffsets);
+            if (start > prefix || changeEnd > end) continue;
+
+            // the columns of anything after the method in the same line would change
+            int lineEnd = code.indexOf('\n', end);
+            if (!code.substring(end, lineEnd == -1 ? code.length() : lineEnd).isBlank()) {
+                return false;
+            }
+
+            // a method that does not end with its closing bracket could end in a comment that continues after it
+            int newEnd = end + newCode.length() - code.length();
+            if (newCode.charAt(newEnd - 1) != '}') {
+                return false;
+            }
+
+            var newMethod = methodParser.parseMethod(newCode.substring(start, newEnd), NodeUtils.getLine(method),
+                    NodeUtils.getColumn(method));
+            if (newMethod.isEmpty()) {
+                return false;
+            }
+
+            int previousLineEnd = Integer.parseInt(method.get(NodePosition.LINE_END.getKey()));
+            int lineOffset = Integer.parseInt(newMethod.get().get(NodePosition.LINE_END.getKey())) - previousLineEnd;
+
+            method.replace(newMethod.get());
+            parsedMethods.add(newMethod.get());
+            if (lineOffset != 0) {
+                moveLinesAfter(newMethod.get(), lineOffset);
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the nodes after the given one (and the end of the nodes that contain it) by the given number of lines.
+     */
+    private static void moveLinesAfter(JmmNode node, int lineOffset) {
+        for (var child = node; child.getParent() != null; child = child.getParent()) {
+            var parent = child.getParent();
+            moveLine(parent, NodePosition.LINE_END.getKey(), lineOffset);
+
+            var siblings = parent.getChildren();
+            for (int i = child.getIndexOfSelf() + 1; i < siblings.size(); i++) {
+                siblings.get(i).getDescendantsAndSelfStream().forEach(after -> {
+                    moveLine(after, NodePosition.LINE_START.getKey(), lineOffset);
+                    moveLine(after, NodePosition.LINE_END.getKey(), lineOffset);
+                });
+            }
+        }
+    }
+
+    private static void moveLine(JmmNode node, String attribute, int lineOffset) {
+        // nodes created by the optimizations have no position
+        if (node.hasAttribute(attribute)) {
+            node.put(attribute, Integer.toString(Integer.parseInt(node.get(attribute)) + lineOffset));
+        }
+    }
+
+    /**
+     * @return the method at the given index, parsed again if it is the one of the last version, whose nodes already
+     * have the attributes of the analysis and of the optimizations
+     */
+    private JmmNode getParsedMethod(List<JmmNode> methods, int index, String newCode, int[] newLineOffsets,
+                                    Set<JmmNode> parsedMethods) {
+        var method = methods.get(index);
+        if (parsedMethods.contains(method)) {
+            return method;
+        }
+
+        // only happens when the tree of the last version was reused, which needs a parser for methods
+        var methodCode = newCode.substring(getStart(method, newLineOffsets), getEnd(method, newLineOffsets));
+        var newMethod = ((PrattParserImpl) parser)
+                .parseMethod(methodCode, NodeUtils.getLine(method), NodeUtils.getColumn(method))
+                .orElseThrow(() -> new RuntimeException("Could not parse again method '" + getName(method) + "'"));
+
+        method.replace(newMethod);
+        methods.set(index, newMethod);
+        parsedMethods.add(newMethod);
+
+        return newMethod;
+    }
+
+    private OllirResult compileOllir(JmmNode root, SymbolTable table, Map<JmmNode, String> methodCodes) {
+        var ollirResult = new OllirResult(new OllirGeneratorVisitor(table, methodCodes).visit(root), config);
+
+        return optimization.optimize(ollirResult);
+    }
+
+    private static String getName(JmmNode method) {
+        return method.isInstance(Kind.MAIN_METHOD) ? "main" : method.get("name");
+    }
+
+    private static Set<String> getCalls(JmmNode method) {
+        Set<String> calls = new HashSet<>();
+        for (var call : method.getDescendants(Kind.VAR_METHOD)) {
+            calls.add(call.get("name"));
+        }
+
+        return calls;
+    }
+
+    /**
+     * @return the code of the method and the column where it starts, which is all its reports, OLLIR and Jasmin depend
+     * on besides the rest of the class
+     */
+    private static String getKey(JmmNode method, String code, int[] lineOffsets) {
+        return NodeUtils.getColumn(method) + ":" + code.substring(getStart(method, lineOffsets), getEnd(method, lineOffsets));
+    }
+
+    private static int getStart(JmmNode node, int[] lineOffsets) {
+        return lineOffsets[NodeUtils.getLine(node) - 1] + NodeUtils.getColumn(node);
+    }
+
+    /**
+     * @return the offset after the last character of the method, its closing bracket
+     */
+    private static int getEnd(JmmNode method, int[] lineOffsets) {
+        int lineEnd = Integer.parseInt(method.get(NodePosition.LINE_END.getKey()));
+        int colEnd = Integer.parseInt(method.get(NodePosition.COL_END.getKey()));
+
+        return lineOffsets[lineEnd - 1] + colEnd + 1;
+    }
+
+    private static int[] getLineOffsets(String code) {
+        List<Integer> offsets = new ArrayList<>();
+        offsets.add(0);
+
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) == '\n') {
+                offsets.add(i + 1);
+            }
+        }
+
+        return offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Kind and attributes of every node outside the methods, without their positions.
+     */
+    private static String describeClassContext(JmmNode root) {
+        var description = new StringBuilder();
+
+        Deque<JmmNode> nodes = new ArrayDeque<>();
+        nodes.push(root);
+        while (!nodes.isEmpty()) {
+            var node = nodes.pop();
+            if (node.isInstance(Kind.METHOD_DECL) || node.isInstance(Kind.MAIN_METHOD)) continue;
+
+            describe(node, description);
+
+            var children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodes.push(children.get(i));
+            }
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * @return the return type and parameters of the method
+     */
+    private static String describeSignature(JmmNode method) {
+        var description = new StringBuilder();
+        describe(method, description);
+
+        if (method.isInstance(Kind.METHOD_DECL)) {
+            method.getChild(0).getDescendantsAndSelfStream().forEach(node -> describe(node, description));
+            method.getChildren(Kind.PARAM).stream()
+                    .flatMap(JmmNode::getDescendantsAndSelfStream)
+                    .forEach(node -> describe(node, description));
+        } else {
+            method.getChildren().forEach(node -> describe(node, description));
+        }
+
+        return description.toString();
+    }
+
+    private static void describe(JmmNode node, StringBuilder description) {
+        description.append(node.getKind());
+
+        for (var attribute : new TreeSet<>(node.getAttributes())) {
+            if (POSITION_ATTRIBUTES.contains(attribute)) continue;
+
+            description.append(" ").append(attribute).append("=").append(node.getObject(attribute));
+        }
+
+        description.append("\n");
+    }
+
+    private static Set<String> getChangedNames(Map<String, String> previous, Map<String, String> current) {
+        Set<String> changed = new HashSet<>();
+
+        for (var name : current.keySet()) {
+            if (!current.get(name).equals(previous.get(name))) {
+                changed.add(name);
+            }
+        }
+
+        for (var name : previous.keySet()) {
+            if (!current.containsKey(name)) {
+                changed.add(name);
+            }
+        }
+
+        return changed;
+    }
+
+    private static Set<String> getDuplicatedNames(List<JmmNode> methods) {
+        Set<String> names = new HashSet<>();
+        Set<String> duplicated = new HashSet<>();
+
+        for (var method : methods) {
+            if (!names.add(getName(method))) {
+                duplicated.add(getName(method));
+            }
+        }
+
+        return duplicated;
+    }
+}
@@ -1,13 +1,19 @@
 package pt.up.fe.comp2024.optimization;
 
 import pt.up.fe.comp.jmm.analysis.JmmSemanticsResult;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp.jmm.ollir.JmmOptimization;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.optimization.ollir.LoopInvariantCodeMotion;
+import pt.up.fe.comp2024.optimization.ollir.ValueNumbering;
 import pt.up.fe.comp2024.optimization.registers.RegisterAllocationOptimizer;
-import pt.up.fe.comp2024.optimization_jasmin.ConstantFolding;
-import pt.up.fe.comp2024.utils.graph.algorithms.GreedyGraphColoringAlgorithm;
-import pt.up.fe.comp2024.utils.graph.algorithms.KColorsAlgorithm;
-import pt.up.fe.comp2024.optimization_jasmin.ConstantPropagationOpt;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.comp2024.optimization_jasmin.AlgebraicSimplification;
+import pt.up.fe.comp2024.optimization_jasmin.DeadCodeElimination;
+import pt.up.fe.comp2024.optimization_jasmin.SparseConditionalConstantPropagation;
+import pt.up.fe.comp2024.utils.graph.algorithms.ChaitinBriggsAlgorithm;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,26 +25,41 @@ public class JmmOptimizationImpl implements JmmOptimization {
     @Override
     public OllirResult toOllir(JmmSemanticsResult semanticsResult) {
 
-        if(semanticsResult.getConfig().containsKey("optimize") && semanticsResult.getConfig().get("optimize").equals("true")) {
-            var constantPropagationOpt = new ConstantPropagationOpt();
-            var constantFolding = new ConstantFolding();
-
-            do {
-                constantFolding.setChanged(false);
-                constantPropagationOpt.setChanged(false);
-                constantPropagationOpt.visit(semanticsResult.getRootNode(), semanticsResult.getSymbolTable());
-                constantFolding.analyze(semanticsResult.getRootNode(), semanticsResult.getSymbolTable());
-            } while (constantFolding.hasChanged() || constantPropagationOpt.hasChanged());
+        if(CompilerConfig.getOptimize(semanticsResult.getConfig())) {
+            optimizeAst(semanticsResult.getRootNode(), semanticsResult.getSymbolTable());
         }
 
         var visitor = new OllirGeneratorVisitor(semanticsResult.getSymbolTable());
-        var ollirCode = visitor.visit(semanticsResult.getRootNode());
+        var ollirCode = CompileProfiler.time("ollirGeneration", () -> visitor.visit(semanticsResult.getRootNode()));
+
+        // the OLLIR code is parsed by the constructor of OllirResult
+        return CompileProfiler.time("ollirParsing",
+                () -> new OllirResult(semanticsResult, ollirCode, Collections.emptyList()));
+    }
 
-        return new OllirResult(semanticsResult, ollirCode, Collections.emptyList());
+    /**
+     * Propagates and folds constants, simplifies expressions and removes dead code in the given node (the whole
+     * program or a single method). Each pass can give work to the others (e.g. x * 0 gives a new constant, which can
+     * make a branch dead), so they are repeated until nothing changes.
+     */
+    public void optimizeAst(JmmNode node, SymbolTable table) {
+        boolean changed = true;
+        while (changed) {
+            changed = CompileProfiler.time("constantPropagation",
+                    () -> SparseConditionalConstantPropagation.optimize(node));
+            changed |= CompileProfiler.time("algebraicSimplification", () -> AlgebraicSimplification.optimize(node));
+            changed |= CompileProfiler.time("deadCodeElimination", () -> DeadCodeElimination.optimize(node));
+        }
     }
 
     @Override
     public OllirResult optimize(OllirResult ollirResult) {
+        if(CompilerConfig.getOptimize(ollirResult.getConfig())) {
+            CompileProfiler.time("valueNumbering", () -> ValueNumbering.optimize(ollirResult.getOllirClass()));
+            CompileProfiler.time("loopInvariantCodeMotion",
+                    () -> LoopInvariantCodeMotion.optimize(ollirResult.getOllirClass()));
+        }
+
         this.registerAllocation(ollirResult);
 
         return ollirResult;
@@ -72,7 +93,7 @@ public class JmmOptimizationImpl implements JmmOptimization {
     private Optional<RegisterAllocationOptimizer> definedLimitRegisterAllocation(OllirResult ollirResult) {
         int maximumNumberOfRegisters = Integer.valueOf(ollirResult.getConfig().get("registerAllocation"));
         if(maximumNumberOfRegisters >= 1) {
-            return Optional.of(new RegisterAllocationOptimizer(ollirResult, new KColorsAlgorithm<>(maximumNumberOfRegisters)));
+            return Optional.of(new RegisterAllocationOptimizer(ollirResult, new ChaitinBriggsAlgorithm(maximumNumberOfRegisters)));
         }
 
         return Optional.empty();
@@ -80,7 +101,7 @@ public class JmmOptimizationImpl implements JmmOptimization {
 
     private Optional<RegisterAllocationOptimizer> fewAsPossibleRegisterAllocation(OllirResult ollirResult) {
         if(ollirResult.getConfig().get("registerAllocation").equals("0")) {
-            return Optional.of(new RegisterAllocationOptimizer(ollirResult, new GreedyGraphColoringAlgorithm<String>()));
+            return Optional.of(new RegisterAllocationOptimizer(ollirResult, new ChaitinBriggsAlgorithm(0)));
         }
 
         return Optional.empty();
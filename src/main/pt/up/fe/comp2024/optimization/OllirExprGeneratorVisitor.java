@@ -5,11 +5,10 @@ import org.specs.comp.ollir.OperandType;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
-import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
-import pt.up.fe.comp.jmm.ast.PreorderJmmVisitor;
 import pt.up.fe.comp2024.analysis.AnalysisUtils;
 import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.KindVisitor;
 import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
@@ -22,7 +21,7 @@ import static pt.up.fe.comp2024.ast.Kind.*;
 /**
  * Generates OLLIR code from JmmNodes that are expressions.
  */
-public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult> {
+public class OllirExprGeneratorVisitor extends KindVisitor<Void, OllirExprResult> {
 
     private static final String SPACE = " ";
     private static final String ASSIGN = ":=";
@@ -30,8 +29,27 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
     private final SymbolTable table;
 
+    // temporaries are numbered per method, so that the code of a method does not depend on the other methods (or on
+    // other files compiled in the same JVM, e.g. in batch mode)
+    private int tempNumber;
+
     public OllirExprGeneratorVisitor(SymbolTable table) {
+        super(Traversal.EXPLICIT);
         this.table = table;
+        this.tempNumber = -1;
+    }
+
+    public void resetTemps() {
+        this.tempNumber = -1;
+    }
+
+    private String getTemp() {
+        return getTemp("tmp");
+    }
+
+    private String getTemp(String prefix) {
+        tempNumber += 1;
+        return prefix + tempNumber;
     }
 
     @Override
@@ -42,7 +60,6 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         addVisit(BOOL, this::visitBoolLiteral);
         addVisit(NEW_CLASS, this::visitClassInstantiation);
         addVisit(VAR_METHOD, this::visitVarMethod);
-        addVisit(PARENTHESIS, this::visitParenthesis);
         addVisit(THIS, this::visitThis);
         addVisit(UNARY, this::visitUnary);
         addVisit(ACCESS_ARRAY, this::visitAccessArray);
@@ -66,7 +83,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             lhsName = node.getParent().getChild(0).get("name");
         }
         else {
-            lhsName = OptUtils.getTemp();
+            lhsName = getTemp();
             code.append(lhsName).append(".array.i32 :=.array.i32 ");
         }
 
@@ -74,7 +91,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 //            lhsName = node.getParent().getChild(0).get("name");
 //        }
 //        else {
-//            lhsName = OptUtils.getTemp();
+//            lhsName = getTemp();
 //            code.append(lhsName).append(".array.i32 :=.array.i32 ");
 //        }
 
@@ -108,7 +125,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         StringBuilder code = new StringBuilder();
         OllirExprResult exprVisit = visit(node.getJmmChild(0));
 
-        String tempVar = OptUtils.getTemp();
+        String tempVar = getTemp();
 
         code.append(exprVisit.getComputation());
         code.append(tempVar);
@@ -125,7 +142,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         JmmNode parent = node.getParent();
 
         if (parent.isInstance(ASSIGN_STMT) && parent.getChild(0).get("isField").equals("True")) {
-            String temp = OptUtils.getTemp();
+            String temp = getTemp();
             String computation = sizeVisit.getComputation() +
                     temp + ".array.i32 " + ASSIGN + ".array.i32 " + "new(array, " + sizeVisit.getCode() + ").array.i32;\n";
 
@@ -152,7 +169,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         String assignLeft = assignLeftOpt.orElse("False");
 
         if(assignLeft.equals("True")) {
-            String tmpVar = OptUtils.getTemp();
+            String tmpVar = getTemp();
 
             StringBuilder indexValue = new StringBuilder();
 
@@ -168,7 +185,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
             code.append(leftNode.get("name")).append("[").append(indexValue).append("]").append(arrayAccessType);
         } else {
-            String tmpVar = OptUtils.getTemp();
+            String tmpVar = getTemp();
 
             StringBuilder indexValue = new StringBuilder();
 
@@ -199,7 +216,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         var ret = visit(node.getJmmChild(0));
         code.append(ret.getComputation());
 
-        String tempVar = OptUtils.getTemp();
+        String tempVar = getTemp();
         code.append(tempVar).append(".bool :=.bool !.bool ").append(ret.getCode()).append(";").append("\n");
 
         return new OllirExprResult(tempVar + ".bool", code);
@@ -209,18 +226,9 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         return new OllirExprResult("this." + table.getClassName());
     }
 
-    private OllirExprResult visitParenthesis(JmmNode node, Void unused) {
-        return visit(node.getJmmChild(0));
-    }
-
     private OllirExprResult visitVarMethod(JmmNode node, Void unused) {
         String methodName = node.get("name");
-        JmmNode callerNode;
-
-        if (node.getJmmChild(0).isInstance(PARENTHESIS))
-            callerNode = node.getJmmChild(0).getJmmChild(0);
-        else
-            callerNode = node.getJmmChild(0);
+        JmmNode callerNode = node.getJmmChild(0);
 
         List<String> imports = table.getImports();
         StringBuilder computation = new StringBuilder();
@@ -231,18 +239,13 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         JmmNode parent = node.getParent();
         String invokeType;
         String tempVar = "";
-        System.out.println("node:" + node.toString() + "\ncaller:\t" + callerNode.toString());
         // this.foo() ou className classname; classname.foo()
         if (callerNode.isInstance(THIS) ||
                 (callerNode.isInstance(VAR_REF_EXPR) && callerType.equals("." + table.getClassName())) ||
                 (callerNode.isInstance(VAR_METHOD) && table.getMethods().contains(callerNode.get("name")))) {
-            System.out.println("ENTRA\nnode:" + node.toString() + "\ncaller:\t" + callerNode.toString());
-            System.out.println("node:" + node.toString() + "\ntype:\t" + callerType);
-            System.out.println("node:" + node.toString() + "\nret type:\t"+table.getReturnType(methodName));
             invokeType = "invokevirtual";
             callerName = callerNode.isInstance(THIS) ? "this" : (callerNode.get("name") + callerType);
             methodReturnType = OptUtils.toOllirType(table.getReturnType(methodName));
-            System.out.println("node:" + node.toString() + "\n" +methodReturnType);
         }
         else if (callerNode.isInstance(NEW_CLASS)) {
             // constroi NEW em OLLIR
@@ -272,7 +275,6 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
             callerName = callerNode.get("name") + callerType;
             methodReturnType = ".V";
         }
-        System.out.println("node:" + node.toString() + "\nmid:\t" + methodReturnType);
         StringBuilder params = new StringBuilder();
         // tem parametros
         if (node.getNumChildren() > 1) {
@@ -289,7 +291,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
         // é um assign / operacao
         if (!parent.isInstance(EXPR_STMT)) {
-            tempVar = OptUtils.getTemp();
+            tempVar = getTemp();
 
             if (parent.isInstance(ASSIGN_STMT)) {
                 JmmNode lhs = parent.getChild(0);
@@ -345,7 +347,6 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         computation.append(";");
         computation.append("\n");
 
-        System.out.println("node:" + node.toString() + "\nFINAL:\t" + computation.toString());
 
         if (!parent.isInstance(EXPR_STMT)) {
             return new OllirExprResult(String.format("%s%s", tempVar, methodReturnType), computation.toString());
@@ -358,7 +359,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
         StringBuilder computation = new StringBuilder();
         String nodeType = OptUtils.toOllirType(node);
-        String tempVar = OptUtils.getTemp();
+        String tempVar = getTemp();
 
         computation.append(String.format("%s%s :=%s new(%s)%s;\n", tempVar, nodeType, nodeType, node.get("name"), nodeType));
         computation.append(String.format("invokespecial(%s%s, \"<init>\").V;\n", tempVar, nodeType));
@@ -399,7 +400,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         OllirExprResult firstConditionResult = this.visit(firstCondition);
         OllirExprResult secondConditionResult = this.visit(secondCondition);
 
-        String tmpVar = OptUtils.getTemp();
+        String tmpVar = getTemp();
 
         int labelNumber = Integer.valueOf(node.get("ifLabel"));
 
@@ -435,7 +436,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
         // code to compute self
         Type resType = TypeUtils.getExprType(node, table);
         String resOllirType = OptUtils.toOllirType(resType);
-        String code = OptUtils.getTemp() + resOllirType;
+        String code = getTemp() + resOllirType;
 
         computation.append(code).append(SPACE)
                 .append(ASSIGN).append(resOllirType).append(SPACE)
@@ -458,7 +459,7 @@ public class OllirExprGeneratorVisitor extends AJmmVisitor<Void, OllirExprResult
 
         if(node.get("isField").equals("True")) {
             if(node.get("assignLeft").equals("False")) {
-                var tmp = OptUtils.getTemp();
+                var tmp = getTemp();
                 computation.append(tmp).append(ollirType).append(SPACE).append(ASSIGN).append(ollirType).append(SPACE);
                 computation.append("getfield(this, ").append(id).append(ollirType).append(")").append(ollirType).append(END_STMT);
                 code.append(tmp).append(ollirType);
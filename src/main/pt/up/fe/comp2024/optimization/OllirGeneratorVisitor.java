@@ -3,14 +3,15 @@ package pt.up.fe.comp2024.optimization;
 import pt.up.fe.comp.jmm.analysis.table.Symbol;
 import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
 import pt.up.fe.comp.jmm.analysis.table.Type;
-import pt.up.fe.comp.jmm.ast.AJmmVisitor;
 import pt.up.fe.comp.jmm.ast.JmmNode;
 import pt.up.fe.comp2024.analysis.AnalysisUtils;
 import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.KindVisitor;
 import pt.up.fe.comp2024.ast.NodeUtils;
 import pt.up.fe.comp2024.ast.TypeUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -19,7 +20,7 @@ import static pt.up.fe.comp2024.ast.Kind.*;
 /**
  * Generates OLLIR code from JmmNodes that are not expressions.
  */
-public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
+public class OllirGeneratorVisitor extends KindVisitor<Void, String> {
 
     private static final String SPACE = " ";
     private static final String ASSIGN = ":=";
@@ -32,8 +33,17 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
     private final OllirExprGeneratorVisitor exprVisitor;
 
+    // code of methods that was already generated, used instead of visiting them
+    private final Map<JmmNode, String> methodCodes;
+
     public OllirGeneratorVisitor(SymbolTable table) {
+        this(table, Map.of());
+    }
+
+    public OllirGeneratorVisitor(SymbolTable table, Map<JmmNode, String> methodCodes) {
+        super(Traversal.EXPLICIT);
         this.table = table;
+        this.methodCodes = methodCodes;
         exprVisitor = new OllirExprGeneratorVisitor(table);
     }
 
@@ -128,6 +138,8 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
     }
 
     private String visitMainMethod(JmmNode node, Void unused) {
+        exprVisitor.resetTemps();
+
         StringBuilder code = new StringBuilder(".method ");
         code.append("public static main(args.array.String).V {\n");
 
@@ -137,7 +149,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var afterParam = params.size();
         for (int i = afterParam; i < node.getNumChildren(); i++) {
             var child = node.getJmmChild(i);
-            if(Kind.fromString(child.getKind()).equals(PARAM)) {
+            if(Kind.of(child).equals(PARAM)) {
                 continue;
             }
             var childCode = visit(child);
@@ -170,7 +182,10 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
         String computation = rhs.getComputation();
         String[] computationLines = computation.split("\n");
-        boolean iincAssign = (computationLines.length == 1 && !computationLines[0].isEmpty());
+        // the single line of the rhs is inlined into the assignment (e.g. a = a + 1), which only applies to locals;
+        // array and field targets need both computations
+        boolean iincAssign = (computationLines.length == 1 && !computationLines[0].isEmpty())
+                && left.isInstance(VAR_REF_EXPR) && !left.get("isField").equals("True");
 
         StringBuilder code = new StringBuilder();
         boolean rightIsBinaryExpr = right.getKind().equals("BinaryExpr");
@@ -269,6 +284,8 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
 
 
     private String visitMethodDecl(JmmNode node, Void unused) {
+        exprVisitor.resetTemps();
+
         StringBuilder code = new StringBuilder(".method ");
 
         boolean isPublic = NodeUtils.getBooleanAttribute(node, "isPublic", "false");
@@ -307,7 +324,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var afterParam = params.size();
         for (int i = afterParam; i < node.getNumChildren(); i++) {
             var child = node.getJmmChild(i);
-            if(Kind.fromString(child.getKind()).equals(PARAM)) {
+            if(Kind.of(child).equals(PARAM)) {
                 continue;
             }
             var childCode = visit(child);
@@ -342,7 +359,7 @@ public class OllirGeneratorVisitor extends AJmmVisitor<Void, String> {
         var needNl = true;
 
         for (var child : node.getChildren()) {
-            var result = visit(child);
+            var result = methodCodes.containsKey(child) ? methodCodes.get(child) : visit(child);
 
             if (METHOD_DECL.check(child) && needNl) {
                 code.append(NL);
@@ -0,0 +1,310 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.specs.comp.ollir.*;
+
+import java.util.*;
+
+/**
+ * Moves the computations of a loop whose value is the same in every iteration to a preheader, i.e. right before the
+ * header of the loop, where they run once.
+ * <p>
+ * An assignment of a local is moved when it is the only assignment of that local in the method, every use of the
+ * local is dominated by it (so no use can see another value), and its value only depends on literals, on variables
+ * not assigned in the loop, and on assignments already moved. The values that can be moved are the arithmetic, the
+ * comparisons and the copies of such operands, the length of an array, and a field of this class that the loop never
+ * writes (nor can write, as it makes no calls).
+ * <p>
+ * Moving a computation runs it even if the loop ends before reaching it, so one that may throw (a division, or the
+ * length of an array that may be null) is only moved if it runs in every iteration, before any effect of the loop.
+ */
+public class LoopInvariantCodeMotion {
+
+    private final Method method;
+
+    public LoopInvariantCodeMotion(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * Moves the loop invariant computations of every method of the class.
+     *
+     * @return true if the code changed
+     */
+    public static boolean optimize(ClassUnit classUnit) {
+        boolean changed = false;
+
+        for (var method : classUnit.getMethods()) {
+            changed |= new LoopInvariantCodeMotion(method).optimize();
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return true if the code of the method changed
+     */
+    public boolean optimize() {
+        boolean changed = false;
+
+        // the CFG changes with each loop whose code is moved, and an outer loop can then move it further
+        while (optimizeOneLoop()) {
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private boolean optimizeOneLoop() {
+        var cfg = new OllirCfg(method);
+
+        for (var loop : cfg.getLoops()) {
+            if (new LoopMotion(cfg, loop).hoist()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The motion of the invariant computations of a single loop.
+     */
+    private class LoopMotion {
+        private final OllirCfg cfg;
+        private final OllirCfg.Loop loop;
+
+        // assignments of each variable in the method and in the loop (not counting the ones already moved)
+        private final Map<String, Integer> methodAssignments;
+        private final Map<String, Integer> loopAssignments;
+        private final Map<String, List<Integer>> uses;
+
+        private final Set<String> fieldsWritten;
+        private boolean hasCalls;
+
+        private final List<Integer> hoisted;
+
+        LoopMotion(OllirCfg cfg, OllirCfg.Loop loop) {
+            this.cfg = cfg;
+            this.loop = loop;
+            this.methodAssignments = new HashMap<>();
+            this.loopAssignments = new HashMap<>();
+            this.uses = new HashMap<>();
+            this.fieldsWritten = new HashSet<>();
+            this.hoisted = new ArrayList<>();
+
+            for (var instruction : method.getInstructions()) {
+                boolean inLoop = loop.contains(instruction.getId());
+                var assigned = OllirInstructions.getAssignedVariable(instruction);
+
+                if (assigned != null) {
+                    methodAssignments.merge(assigned, 1, Integer::sum);
+                    if (inLoop) loopAssignments.merge(assigned, 1, Integer::sum);
+                }
+
+                for (var used : OllirInstructions.getUsedVariables(instruction)) {
+                    uses.computeIfAbsent(used, name -> new ArrayList<>()).add(instruction.getId());
+                }
+
+                if (inLoop) {
+                    if (instruction instanceof PutFieldInstruction putField) {
+                        fieldsWritten.add(putField.getField().getName());
+                    }
+                    hasCalls |= OllirInstructions.hasCall(instruction);
+                }
+            }
+        }
+
+        /**
+         * @return true if any computation was moved
+         */
+        boolean hoist() {
+            var preheaderSuccessor = cfg.getInstruction(loop.getHeader());
+            if (preheaderSuccessor == null || !hasPreheader(preheaderSuccessor)) {
+                return false;
+            }
+
+            var body = loop.getBody();
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+
+                for (int node = body.nextSetBit(0); node >= 0; node = body.nextSetBit(node + 1)) {
+                    if (!hoisted.contains(node) && isInvariant(node)) {
+                        hoisted.add(node);
+                        loopAssignments.merge(OllirInstructions.getAssignedVariable(cfg.getInstruction(node)), -1, Integer::sum);
+                        changed = true;
+                    }
+                }
+            }
+
+            if (hoisted.isEmpty()) {
+                return false;
+            }
+
+            move(preheaderSuccessor);
+            return true;
+        }
+
+        /**
+         * The code put right before the header runs when the loop is entered, but not in its iterations, as long as the
+         * instruction before the header is not in the loop, and the labels of the header that are jumped to from
+         * outside the loop are moved to that code.
+         */
+        private boolean hasPreheader(Instruction header) {
+            var instructions = method.getInstructions();
+            int position = instructions.indexOf(header);
+
+            if (position > 0) {
+                var previous = instructions.get(position - 1);
+                boolean fallsThrough = !(previous instanceof GotoInstruction) && !(previous instanceof ReturnInstruction);
+                if (fallsThrough && loop.contains(previous.getId())) return false;
+            }
+
+            // a label jumped to from both inside and outside the loop cannot be split
+            for (var label : getLabels(header)) {
+                var jumps = getJumpsTo(label);
+                if (jumps.stream().anyMatch(this::isInLoop) && !jumps.stream().allMatch(this::isInLoop)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private boolean isInLoop(Instruction instruction) {
+            return loop.contains(instruction.getId());
+        }
+
+        private List<String> getLabels(Instruction instruction) {
+            var labels = new ArrayList<String>();
+            for (var label : method.getLabels().entrySet()) {
+                if (label.getValue() == instruction) labels.add(label.getKey());
+            }
+
+            return labels;
+        }
+
+        private List<Instruction> getJumpsTo(String label) {
+            var jumps = new ArrayList<Instruction>();
+            for (var instruction : method.getInstructions()) {
+                if (instruction instanceof GotoInstruction jump && jump.getLabel().equals(label)) jumps.add(jump);
+                if (instruction instanceof CondBranchInstruction jump && jump.getLabel().equals(label)) jumps.add(jump);
+            }
+
+            return jumps;
+        }
+
+        private boolean isInvariant(int node) {
+            if (!(cfg.getInstruction(node) instanceof AssignInstruction assign)) return false;
+
+            var assigned = OllirInstructions.getAssignedVariable(assign);
+            if (assigned == null || methodAssignments.get(assigned) != 1) return false;
+
+            var descriptor = method.getVarTable().get(assigned);
+            if (descriptor == null || descriptor.getScope() != VarScope.LOCAL) return false;
+
+            if (!isInvariantValue(assign.getRhs())) return false;
+
+            for (var use : uses.getOrDefault(assigned, List.of())) {
+                if (use == node || !cfg.dominates(node, use)) return false;
+            }
+
+            return !OllirInstructions.mayThrow(assign.getRhs()) || runsFirstInEveryIteration(node);
+        }
+
+        private boolean isInvariantValue(Instruction value) {
+            if (value instanceof BinaryOpInstruction binary) {
+                return isInvariant(binary.getLeftOperand()) && isInvariant(binary.getRightOperand());
+            }
+            if (value instanceof UnaryOpInstruction unary) {
+                return isInvariant(unary.getOperand());
+            }
+            if (value instanceof SingleOpInstruction single) {
+                return !(single.getSingleOperand() instanceof ArrayOperand) && isInvariant(single.getSingleOperand());
+            }
+            if (value instanceof GetFieldInstruction getField) {
+                return getField.getObject().getName().equals("this") && !hasCalls
+                        && !fieldsWritten.contains(getField.getField().getName());
+            }
+            if (value instanceof CallInstruction call && call.getInvocationType() == CallType.arraylength) {
+                return isInvariant(call.getCaller());
+            }
+
+            return false;
+        }
+
+        private boolean isInvariant(Element element) {
+            if (element instanceof LiteralElement) return true;
+            if (element instanceof ArrayOperand) return false;
+            if (!(element instanceof Operand operand)) return false;
+
+            return loopAssignments.getOrDefault(operand.getName(), 0) == 0;
+        }
+
+        /**
+         * @return true if the node runs whenever the loop is entered, and no instruction of the loop with effects runs
+         * before it
+         */
+        private boolean runsFirstInEveryIteration(int node) {
+            for (int exit = loop.getBody().nextSetBit(0); exit >= 0; exit = loop.getBody().nextSetBit(exit + 1)) {
+                for (var successor : cfg.getNode(exit).getSuccessors()) {
+                    if (!loop.contains(cfg.indexOf(successor)) && !cfg.dominates(node, exit)) {
+                        return false;
+                    }
+                }
+            }
+
+            for (int dominator = cfg.getImmediateDominator(node); loop.contains(dominator);
+                 dominator = cfg.getImmediateDominator(dominator)) {
+                if (!hoisted.contains(dominator) && OllirInstructions.hasEffects(cfg.getInstruction(dominator))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Moves the hoisted instructions, in their order, to right before the header of the loop. The labels of the
+         * header that are jumped to from outside the loop go to the first moved instruction, and the other labels of a
+         * moved instruction go to the next instruction that stays, so that the jumps to it stay in the loop.
+         */
+        private void move(Instruction header) {
+            var instructions = method.getInstructions();
+            var labels = method.getLabels();
+            hoisted.sort(Comparator.naturalOrder());
+
+            var moved = new ArrayList<Instruction>();
+            for (var node : hoisted) {
+                moved.add(cfg.getInstruction(node));
+            }
+
+            var entryLabels = new ArrayList<String>();
+            for (var label : getLabels(header)) {
+                var jumps = getJumpsTo(label);
+                if (!jumps.isEmpty() && jumps.stream().noneMatch(this::isInLoop)) entryLabels.add(label);
+            }
+
+            for (var label : labels.entrySet()) {
+                if (!moved.contains(label.getValue())) continue;
+                label.setValue(nextStaying(label.getValue(), moved));
+            }
+
+            var newHeader = moved.contains(header) ? nextStaying(header, moved) : header;
+            instructions.removeAll(moved);
+            instructions.addAll(instructions.indexOf(newHeader), moved);
+
+            for (var label : entryLabels) {
+                labels.put(label, moved.get(0));
+            }
+        }
+
+        private Instruction nextStaying(Instruction instruction, List<Instruction> moved) {
+            var instructions = method.getInstructions();
+            int position = instructions.indexOf(instruction) + 1;
+            while (moved.contains(instructions.get(position))) position++;
+
+            return instructions.get(position);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.specs.comp.ollir.Instruction;
+import org.specs.comp.ollir.Method;
+import org.specs.comp.ollir.Node;
+import org.specs.comp.ollir.NodeType;
+
+import java.util.*;
+
+/**
+ * The control flow graph of the instructions of an OLLIR method (the one of {@link Method#buildCFG()}), with its
+ * dominator tree and natural loops.
+ * <p>
+ * Nodes are identified by an index: 0 for the begin node, the id of each instruction (its position in the method,
+ * from 1), and then the end node.
+ */
+public class OllirCfg {
+
+    /**
+     * A natural loop: its header and the nodes that can reach one of its back edges without going through the header.
+     */
+    public static class Loop {
+        private final int header;
+        private final BitSet body;
+
+        private Loop(int header) {
+            this.header = header;
+            this.body = new BitSet();
+            body.set(header);
+        }
+
+        public int getHeader() {
+            return header;
+        }
+
+        /**
+         * @return the indices of the nodes of the loop, the header included
+         */
+        public BitSet getBody() {
+            return body;
+        }
+
+        public boolean contains(int node) {
+            return body.get(node);
+        }
+    }
+
+    private final Method method;
+    private final Node[] nodes;
+
+    // immediate dominator of each node (the begin node is its own), or -1 if the node cannot be reached
+    private final int[] idom;
+
+    // order in which a depth-first search of the dominator tree enters and leaves each node
+    private final int[] treeEnter;
+    private final int[] treeExit;
+    private final List<List<Integer>> treeChildren;
+
+    private final List<Loop> loops;
+
+    public OllirCfg(Method method) {
+        this.method = method;
+        build(method);
+
+        var instructions = method.getInstructions();
+        this.nodes = new Node[instructions.size() + 2];
+        nodes[0] = method.getBeginNode();
+        for (var instruction : instructions) {
+            nodes[instruction.getId()] = instruction;
+        }
+        nodes[nodes.length - 1] = method.getEndNode();
+
+        this.idom = new int[nodes.length];
+        this.treeEnter = new int[nodes.length];
+        this.treeExit = new int[nodes.length];
+        this.treeChildren = new ArrayList<>();
+
+        computeDominators();
+        this.loops = findLoops();
+    }
+
+    /**
+     * Builds the CFG of the method, which may have been built before: {@link Method#buildCFG()} only adds edges, so the
+     * ones of a previous build (e.g. before the instructions were moved) are removed.
+     */
+    public static void build(Method method) {
+        for (var instruction : method.getInstructions()) {
+            instruction.getSuccessors().clear();
+            instruction.getPredecessors().clear();
+        }
+
+        method.buildCFG();
+
+        // the begin and end nodes are never rebuilt, so they keep the edges to the instructions of previous builds
+        var begin = method.getBeginNode();
+        var end = method.getEndNode();
+        var first = begin.getSuccessors().get(begin.getSuccessors().size() - 1);
+        begin.getSuccessors().clear();
+        begin.addSucc(first);
+
+        end.getPredecessors().clear();
+        for (var instruction : method.getInstructions()) {
+            if (instruction.getSuccessors().contains(end)) {
+                end.addPred(instruction);
+            }
+        }
+        if (method.getInstructions().isEmpty()) {
+            end.addPred(begin);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int indexOf(Node node) {
+        if (node.getNodeType() == NodeType.BEGIN) return 0;
+        if (node.getNodeType() == NodeType.END) return nodes.length - 1;
+
+        return node.getId();
+    }
+
+    public Node getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * @return the instruction of the node, or null for the begin and end nodes
+     */
+    public Instruction getInstruction(int index) {
+        return index == 0 || index == nodes.length - 1 ? null : (Instruction) nodes[index];
+    }
+
+    public boolean isReachable(int node) {
+        return idom[node] != -1;
+    }
+
+    /**
+     * @return the immediate dominator of the node, or -1 for the begin node and the nodes that cannot be reached
+     */
+    public int getImmediateDominator(int node) {
+        return node == 0 ? -1 : idom[node];
+    }
+
+    /**
+     * @return the nodes immediately dominated by the given one
+     */
+    public List<Integer> getDominatorChildren(int node) {
+        return treeChildren.get(node);
+    }
+
+    /**
+     * @return true if every path from the begin node to the second node goes through the first (a node dominates itself)
+     */
+    public boolean dominates(int dominator, int node) {
+        if (!isReachable(dominator) || !isReachable(node)) return false;
+
+        return treeEnter[dominator] <= treeEnter[node] && treeExit[node] <= treeExit[dominator];
+    }
+
+    /**
+     * @return the natural loops, the ones with the same header merged, inner loops before the loops around them
+     */
+    public List<Loop> getLoops() {
+        return loops;
+    }
+
+    private int[] reversePostorder() {
+        var postorder = new int[nodes.length];
+        int count = 0;
+
+        var visited = new boolean[nodes.length];
+        var nextSuccessor = new int[nodes.length];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(0);
+        visited[0] = true;
+
+        while (!stack.isEmpty()) {
+            int node = stack.peek();
+            var successors = nodes[node].getSuccessors();
+
+            if (nextSuccessor[node] < successors.size()) {
+                int successor = indexOf(successors.get(nextSuccessor[node]++));
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    stack.push(successor);
+                }
+            } else {
+                postorder[count++] = stack.pop();
+            }
+        }
+
+        var order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = postorder[count - 1 - i];
+        }
+
+        return order;
+    }
+
+    /**
+     * The iterative algorithm of Cooper, Harvey and Kennedy, which refines the immediate dominators in reverse postorder
+     * until they no longer change.
+     */
+    private void computeDominators() {
+        var order = reversePostorder();
+        var orderIndex = new int[nodes.length];
+        for (int i = 0; i < order.length; i++) {
+            orderIndex[order[i]] = i;
+        }
+
+        Arrays.fill(idom, -1);
+        idom[0] = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = 1; i < order.length; i++) {
+                int node = order[i];
+                int newIdom = -1;
+
+                for (var predecessor : nodes[node].getPredecessors()) {
+                    int pred = indexOf(predecessor);
+                    if (idom[pred] == -1) continue;
+
+                    newIdom = newIdom == -1 ? pred : intersect(pred, newIdom, orderIndex);
+                }
+
+                if (newIdom != idom[node]) {
+                    idom[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            treeChildren.add(new ArrayList<>());
+        }
+        for (int i = 1; i < nodes.length; i++) {
+            if (idom[i] != -1) {
+                treeChildren.get(idom[i]).add(i);
+            }
+        }
+
+        numberDominatorTree();
+    }
+
+    private int intersect(int node1, int node2, int[] orderIndex) {
+        while (node1 != node2) {
+            while (orderIndex[node1] > orderIndex[node2]) node1 = idom[node1];
+            while (orderIndex[node2] > orderIndex[node1]) node2 = idom[node2];
+        }
+
+        return node1;
+    }
+
+    private void numberDominatorTree() {
+        int counter = 0;
+        var nextChild = new int[nodes.length];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(0);
+        treeEnter[0] = counter++;
+
+        while (!stack.isEmpty()) {
+            int node = stack.peek();
+            var children = treeChildren.get(node);
+
+            if (nextChild[node] < children.size()) {
+                int child = children.get(nextChild[node]++);
+                treeEnter[child] = counter++;
+                stack.push(child);
+            } else {
+                treeExit[stack.pop()] = counter++;
+            }
+        }
+    }
+
+    private List<Loop> findLoops() {
+        Map<Integer, Loop> loopsByHeader = new LinkedHashMap<>();
+
+        for (int node = 0; node < nodes.length; node++) {
+            if (!isReachable(node)) continue;
+
+            for (var successor : nodes[node].getSuccessors()) {
+                int header = indexOf(successor);
+                if (!dominates(header, node)) continue;
+
+                // a back edge: the loop has every node that reaches it without going through the header
+                var loop = loopsByHeader.computeIfAbsent(header, Loop::new);
+                Deque<Integer> worklist = new ArrayDeque<>();
+                if (!loop.body.get(node)) {
+                    loop.body.set(node);
+                    worklist.push(node);
+                }
+
+                while (!worklist.isEmpty()) {
+                    for (var predecessor : nodes[worklist.pop()].getPredecessors()) {
+                        int pred = indexOf(predecessor);
+                        if (isReachable(pred) && !loop.body.get(pred)) {
+                            loop.body.set(pred);
+                            worklist.push(pred);
+                        }
+                    }
+                }
+            }
+        }
+
+        var loops = new ArrayList<>(loopsByHeader.values());
+        loops.sort(Comparator.comparingInt(loop -> loop.body.cardinality()));
+
+        return loops;
+    }
+}
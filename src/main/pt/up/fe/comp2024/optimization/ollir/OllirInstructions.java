@@ -0,0 +1,101 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.specs.comp.ollir.*;
+import org.specs.comp.ollir.tree.TreeNode;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What the optimizations of OLLIR code need to know about an instruction: the variables it reads and whether it has
+ * effects besides assigning its result.
+ */
+public class OllirInstructions {
+
+    /**
+     * @return the name of the variable (local or parameter) assigned by the instruction, or null if it assigns none
+     */
+    public static String getAssignedVariable(Instruction instruction) {
+        if (!(instruction instanceof AssignInstruction assign)) return null;
+        if (!(assign.getDest() instanceof Operand dest) || dest instanceof ArrayOperand) return null;
+
+        return dest.getName();
+    }
+
+    /**
+     * @return the names of the variables (locals, parameters and this) read by the instruction
+     */
+    public static Set<String> getUsedVariables(Instruction instruction) {
+        Set<String> used = new HashSet<>();
+
+        if (instruction instanceof AssignInstruction assign) {
+            // the array of an element that is assigned, and its index, are read
+            if (assign.getDest() instanceof ArrayOperand array) {
+                addOperands(array, used);
+            }
+            addOperands(assign.getRhs(), used);
+        } else {
+            addOperands(instruction, used);
+        }
+
+        return used;
+    }
+
+    private static void addOperands(TreeNode node, Set<String> used) {
+        if (node instanceof Operand operand) {
+            used.add(operand.getName());
+        }
+
+        if (node instanceof FieldInstruction field) {
+            // the field is an operand, but it is not a variable
+            addOperands(field.getObject(), used);
+            if (field instanceof PutFieldInstruction putField) {
+                addOperands(putField.getValue(), used);
+            }
+            return;
+        }
+
+        for (var child : node.getChildren()) {
+            addOperands(child, used);
+        }
+    }
+
+    /**
+     * @return true if the instruction calls a method (which may change the fields of the class)
+     */
+    static boolean hasCall(Instruction instruction) {
+        if (instruction instanceof AssignInstruction assign) {
+            return hasCall(assign.getRhs());
+        }
+
+        return instruction instanceof CallInstruction call && call.getInvocationType() != CallType.arraylength
+                && call.getInvocationType() != CallType.NEW;
+    }
+
+    /**
+     * @return true if computing the value may throw
+     */
+    static boolean mayThrow(Instruction value) {
+        if (value instanceof BinaryOpInstruction binary && binary.getOperation().getOpType() == OperationType.DIV) {
+            return !(binary.getRightOperand() instanceof LiteralElement literal)
+                    || Integer.parseInt(literal.getLiteral()) == 0;
+        }
+        if (value instanceof SingleOpInstruction single) {
+            return single.getSingleOperand() instanceof ArrayOperand;
+        }
+
+        return value instanceof CallInstruction;
+    }
+
+    /**
+     * @return true if running the instruction does more than assigning a local: it writes to an array or field, calls a
+     * method, may throw, or returns
+     */
+    static boolean hasEffects(Instruction instruction) {
+        if (instruction instanceof AssignInstruction assign) {
+            return assign.getDest() instanceof ArrayOperand || mayThrow(assign.getRhs());
+        }
+
+        return !(instruction instanceof GotoInstruction) && !(instruction instanceof CondBranchInstruction);
+    }
+}
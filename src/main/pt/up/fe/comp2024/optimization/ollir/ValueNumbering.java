@@ -0,0 +1,339 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.specs.comp.ollir.*;
+
+import java.util.*;
+
+/**
+ * Common subexpression elimination by value numbering: an assignment whose value was already computed, by an
+ * instruction that dominates it, into a variable that still holds it, gets a copy of that variable instead.
+ * <p>
+ * Each value is identified by its operation and the values of its operands. A local assigned only once (as the
+ * temporaries of the OLLIR code are), or a parameter never assigned, has the same value wherever its assignment
+ * dominates, so the values computed from such operands are reused in every instruction the computation dominates
+ * (global value numbering, in a walk of the dominator tree). Any other variable is only known to keep its value until
+ * it is assigned again in the same basic block, so the values computed from it are only reused in that block (local
+ * value numbering).
+ * <p>
+ * The values numbered are the arithmetic, the comparisons, the length of an array and the elements of an array, which
+ * are only reused if no path between the two loads writes to an array or calls a method.
+ */
+public class ValueNumbering {
+
+    private static final Set<OperationType> COMMUTATIVE = EnumSet.of(OperationType.ADD, OperationType.MUL,
+            OperationType.AND, OperationType.ANDB, OperationType.OR, OperationType.ORB, OperationType.XOR,
+            OperationType.EQ, OperationType.NEQ);
+
+    /**
+     * A value computed by an instruction, which its destination holds while its version is the current one (a null
+     * version if the destination is assigned only there).
+     */
+    private record Value(int node, Operand holder, String holderVersion) {
+    }
+
+    private final Method method;
+    private final OllirCfg cfg;
+
+    // assignments of each variable in the method, and the node of the first one
+    private final Map<String, Integer> assignments;
+    private final Map<String, Integer> assignmentNode;
+
+    // variables assigned once that copy another value, and the name of that value
+    private final Map<String, String> copies;
+
+    private final Map<String, Value> available;
+
+    // the current basic block, and how many times each variable was assigned in it so far
+    private int block;
+    private final Map<String, Integer> versions;
+
+    private final Map<Integer, Operand> replacements;
+
+    public ValueNumbering(Method method) {
+        this.method = method;
+        this.cfg = new OllirCfg(method);
+        this.assignments = new HashMap<>();
+        this.assignmentNode = new HashMap<>();
+        this.copies = new HashMap<>();
+        this.available = new HashMap<>();
+        this.versions = new HashMap<>();
+        this.replacements = new TreeMap<>();
+
+        for (var instruction : method.getInstructions()) {
+            var assigned = OllirInstructions.getAssignedVariable(instruction);
+            if (assigned != null) {
+                assignments.merge(assigned, 1, Integer::sum);
+                assignmentNode.putIfAbsent(assigned, instruction.getId());
+            }
+        }
+    }
+
+    /**
+     * Eliminates the common subexpressions of every method of the class.
+     *
+     * @return true if the code changed
+     */
+    public static boolean optimize(ClassUnit classUnit) {
+        boolean changed = false;
+
+        for (var method : classUnit.getMethods()) {
+            changed |= new ValueNumbering(method).optimize();
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return true if the code of the method changed
+     */
+    public boolean optimize() {
+        walkDominatorTree();
+
+        if (replacements.isEmpty()) {
+            return false;
+        }
+
+        replace();
+        return true;
+    }
+
+    /**
+     * Visits the nodes in a depth-first walk of the dominator tree, so that the values of a node are available to the
+     * nodes it dominates, and no longer available when the walk leaves it.
+     */
+    private void walkDominatorTree() {
+        Deque<Integer> nodes = new ArrayDeque<>();
+        Deque<Integer> nextChild = new ArrayDeque<>();
+        Deque<Map<String, Value>> shadowed = new ArrayDeque<>();
+
+        nodes.push(0);
+        nextChild.push(0);
+        shadowed.push(new HashMap<>());
+
+        while (!nodes.isEmpty()) {
+            int node = nodes.peek();
+            var children = cfg.getDominatorChildren(node);
+            int child = nextChild.pop();
+
+            if (child < children.size()) {
+                nextChild.push(child + 1);
+
+                int next = children.get(child);
+                var previous = new HashMap<String, Value>();
+                visit(next, previous);
+
+                nodes.push(next);
+                nextChild.push(0);
+                shadowed.push(previous);
+            } else {
+                nodes.pop();
+
+                // the values of the node, and the ones they replaced, are put back as they were before it
+                for (var value : shadowed.pop().entrySet()) {
+                    if (value.getValue() == null) available.remove(value.getKey());
+                    else available.put(value.getKey(), value.getValue());
+                }
+            }
+        }
+    }
+
+    private void visit(int node, Map<String, Value> shadowed) {
+        if (startsBlock(node)) {
+            block++;
+            versions.clear();
+        }
+
+        if (!(cfg.getInstruction(node) instanceof AssignInstruction assign)) return;
+
+        var key = getValue(assign.getRhs(), node);
+        Operand copied = null;
+
+        if (key != null) {
+            var value = available.get(key);
+
+            if (value != null && isHeld(value) && (!isArrayLoad(assign.getRhs()) || !writesMemoryBetween(value.node(), node))) {
+                replacements.put(node, value.holder());
+                copied = value.holder();
+            } else if (assign.getDest() instanceof Operand dest && !(dest instanceof ArrayOperand)) {
+                shadowed.putIfAbsent(key, value);
+                available.put(key, new Value(node, dest, isAssignedOnce(dest.getName()) ? null : nextVersion(dest)));
+            }
+        }
+
+        if (!(assign.getDest() instanceof Operand dest) || dest instanceof ArrayOperand) return;
+
+        if (copied == null && assign.getRhs() instanceof SingleOpInstruction single
+                && single.getSingleOperand() instanceof Operand operand && !(operand instanceof ArrayOperand)) {
+            copied = operand;
+        }
+
+        var name = dest.getName();
+        if (isAssignedOnce(name) && copied != null && isStable(copied.getName(), node)) {
+            copies.put(name, getName(copied, node));
+        }
+
+        versions.merge(name, 1, Integer::sum);
+    }
+
+    private boolean startsBlock(int node) {
+        var predecessors = cfg.getNode(node).getPredecessors();
+        return predecessors.size() != 1 || predecessors.get(0).getSuccessors().size() != 1;
+    }
+
+    /**
+     * @return the value computed, identified by its operation and operands, or null if it is not numbered
+     */
+    private String getValue(Instruction rhs, int node) {
+        if (rhs instanceof BinaryOpInstruction binary) {
+            var left = getName(binary.getLeftOperand(), node);
+            var right = getName(binary.getRightOperand(), node);
+            if (left == null || right == null) return null;
+
+            var operation = binary.getOperation();
+            if (COMMUTATIVE.contains(operation.getOpType()) && left.compareTo(right) > 0) {
+                var swap = left;
+                left = right;
+                right = swap;
+            }
+
+            return operation.getOpType() + "." + operation.getTypeInfo() + " " + left + " " + right;
+        }
+        if (rhs instanceof UnaryOpInstruction unary) {
+            var operand = getName(unary.getOperand(), node);
+            return operand == null ? null : unary.getOperation().getOpType() + " " + operand;
+        }
+        if (rhs instanceof SingleOpInstruction single && single.getSingleOperand() instanceof ArrayOperand array) {
+            var name = getName(new Operand(array.getName(), array.getType()), node);
+            var index = getName(array.getIndexOperands().get(0), node);
+            return name == null || index == null ? null : "load " + name + "[" + index + "]";
+        }
+        if (rhs instanceof CallInstruction call && call.getInvocationType() == CallType.arraylength) {
+            var name = getName(call.getCaller(), node);
+            return name == null ? null : "length " + name;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the name of the value of an operand in the given node: the variable it copies (or itself) if it is
+     * stable there, or else its version in the current block; null if it is not a variable or literal
+     */
+    private String getName(Element element, int node) {
+        if (element instanceof LiteralElement literal) {
+            return literal.getLiteral() + "." + literal.getType();
+        }
+        if (!(element instanceof Operand operand) || element instanceof ArrayOperand) {
+            return null;
+        }
+
+        var name = operand.getName();
+        if (isStable(name, node)) {
+            return copies.getOrDefault(name, name);
+        }
+
+        return getVersion(name);
+    }
+
+    /**
+     * @return true if the variable has the same value in every node dominated by the given one
+     */
+    private boolean isStable(String name, int node) {
+        var descriptor = method.getVarTable().get(name);
+        if (descriptor == null) return false;
+
+        int count = assignments.getOrDefault(name, 0);
+        if (descriptor.getScope() != VarScope.LOCAL) {
+            return count == 0;
+        }
+
+        int assignment = assignmentNode.getOrDefault(name, -1);
+        return count == 1 && assignment != node && cfg.dominates(assignment, node);
+    }
+
+    private boolean isAssignedOnce(String name) {
+        var descriptor = method.getVarTable().get(name);
+        return descriptor != null && descriptor.getScope() == VarScope.LOCAL && assignments.get(name) == 1;
+    }
+
+    private String getVersion(String name) {
+        return name + "@" + block + "#" + versions.getOrDefault(name, 0);
+    }
+
+    private String nextVersion(Operand dest) {
+        return dest.getName() + "@" + block + "#" + (versions.getOrDefault(dest.getName(), 0) + 1);
+    }
+
+    private boolean isHeld(Value value) {
+        return value.holderVersion() == null || value.holderVersion().equals(getVersion(value.holder().getName()));
+    }
+
+    private static boolean isArrayLoad(Instruction rhs) {
+        return rhs instanceof SingleOpInstruction single && single.getSingleOperand() instanceof ArrayOperand;
+    }
+
+    /**
+     * @return true if an instruction in a path from the first node to the second (that does not go through the first
+     * node again) may write to an array
+     */
+    private boolean writesMemoryBetween(int from, int to) {
+        var afterFrom = new BitSet();
+        Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.push(from);
+        while (!worklist.isEmpty()) {
+            for (var successor : cfg.getNode(worklist.pop()).getSuccessors()) {
+                int next = cfg.indexOf(successor);
+                if (next != from && !afterFrom.get(next)) {
+                    afterFrom.set(next);
+                    worklist.push(next);
+                }
+            }
+        }
+
+        var beforeTo = new BitSet();
+        worklist.push(to);
+        while (!worklist.isEmpty()) {
+            for (var predecessor : cfg.getNode(worklist.pop()).getPredecessors()) {
+                int previous = cfg.indexOf(predecessor);
+                if (previous != from && !beforeTo.get(previous)) {
+                    beforeTo.set(previous);
+                    worklist.push(previous);
+                }
+            }
+        }
+
+        afterFrom.and(beforeTo);
+        for (int node = afterFrom.nextSetBit(0); node >= 0; node = afterFrom.nextSetBit(node + 1)) {
+            var instruction = cfg.getInstruction(node);
+            if (instruction == null) continue;
+
+            boolean writesArray = instruction instanceof AssignInstruction assign && assign.getDest() instanceof ArrayOperand;
+            if (writesArray || OllirInstructions.hasCall(instruction)) return true;
+        }
+
+        return false;
+    }
+
+    private void replace() {
+        var instructions = method.getInstructions();
+        var labels = method.getLabels();
+
+        for (var replacement : replacements.entrySet()) {
+            var assign = (AssignInstruction) cfg.getInstruction(replacement.getKey());
+            var holder = replacement.getValue();
+
+            var operand = new Operand(holder.getName(), holder.getType());
+            if (holder.isParameter()) operand.setParamId(holder.getParamId());
+
+            var copy = new AssignInstruction(assign.getDest(), assign.getTypeOfAssign(), new SingleOpInstruction(operand));
+            copy.setId(assign.getId());
+            instructions.set(instructions.indexOf(assign), copy);
+
+            for (var label : labels.entrySet()) {
+                if (label.getValue() == assign) label.setValue(copy);
+            }
+        }
+
+        OllirCfg.build(method);
+    }
+}
@@ -1,137 +1,273 @@
 package pt.up.fe.comp2024.optimization.registers;
 
-import org.specs.comp.ollir.AssignInstruction;
-import org.specs.comp.ollir.Instruction;
-import org.specs.comp.ollir.Node;
-import org.specs.comp.ollir.Operand;
-import org.specs.comp.ollir.tree.TreeNode;
+import org.specs.comp.ollir.*;
+import pt.up.fe.comp2024.optimization.ollir.OllirInstructions;
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * The variables used, defined and live in each node of the CFG of a method.
+ * <p>
+ * The variables of the method are numbered, and the sets are {@link BitSet}s indexed by those numbers. Liveness is
+ * computed with a worklist, starting with the nodes in postorder (the successors of a node before it, except for back
+ * edges, as liveness flows backwards), until no set changes, so the variables used in a loop are live around all of it.
+ */
 public class CfgMetadata {
-    private final HashMap<Node, Set<String>> use;
-    private final HashMap<Node, Set<String>> def;
-    private final HashMap<Node, Set<String>> liveIn;
-    private final HashMap<Node, Set<String>> liveOut;
-
-    public CfgMetadata(Node cfgBeginNode) {
-        this.use = new HashMap<>();
-        this.def = new HashMap<>();
-        this.liveIn = new HashMap<>();
-        this.liveOut = new HashMap<>();
-
-        this.initHashMaps(cfgBeginNode);
-
-        Node currentNode;
-        List<Node> succNodes;
-        Stack<Node> bfsStack = new Stack<>();
-        bfsStack.push(cfgBeginNode);
-
-        while(!bfsStack.isEmpty()) {
-            currentNode = bfsStack.pop();
-            if(!this.computationCfgNodeSentinel(currentNode)) {
-                this.computeDef((Instruction) currentNode);
-                this.computeUse((Instruction) currentNode);
-            }
+    private final List<String> variables;
+    private final Map<String, Integer> variableIndices;
 
-            succNodes = currentNode.getSuccessors();
-            for(var succNode: succNodes) {
-                bfsStack.push(succNode);
-            }
+    // nodes are indexed as in the CFG: 0 for the begin node, the id of each instruction, and then the end node
+    private final Node[] nodes;
+    private final BitSet[] use;
+    private final BitSet[] def;
+    private final BitSet[] liveIn;
+    private final BitSet[] liveOut;
+
+    // the copies from a variable to another, a pair of variables for each, and the variable copied by each node (or -1)
+    private final List<int[]> moves;
+    private final int[] copied;
+
+    // the work done, to check that it grows linearly with the size of the method
+    private long worklistVisits;
+    private long interferenceTests;
+
+    public CfgMetadata(Method method) {
+        this.variables = new ArrayList<>();
+        this.variableIndices = new HashMap<>();
+        for (var variable : method.getVarTable().keySet()) {
+            if (variable.equals("this")) continue;
+
+            variableIndices.put(variable, variables.size());
+            variables.add(variable);
         }
 
-        this.computeLiveInAndOut(cfgBeginNode);
-    }
+        var instructions = method.getInstructions();
+        this.nodes = new Node[instructions.size() + 2];
+        this.use = new BitSet[nodes.length];
+        this.def = new BitSet[nodes.length];
+        this.liveIn = new BitSet[nodes.length];
+        this.liveOut = new BitSet[nodes.length];
+        this.moves = new ArrayList<>();
+        this.copied = new int[nodes.length];
+        Arrays.fill(this.copied, -1);
 
-    public boolean interfere(String variable1, String variable2) {
-        for(Map.Entry<Node, Set<String>> map: this.liveIn.entrySet()) {
-            Node currentNode = map.getKey();
-            Set<String> liveInVariableSet = map.getValue();
-            Set<String> liveOutDefVariableSet = this.liveOut.get(currentNode);
-            liveOutDefVariableSet.addAll(this.def.get(currentNode));
-
-            boolean bothAreOnLiveIn = liveInVariableSet.contains(variable1) && liveInVariableSet.contains(variable2);
-            boolean bothAreOnLiveOutDef = liveOutDefVariableSet.contains(variable1) && liveOutDefVariableSet.contains(variable2);
-            if(bothAreOnLiveIn || bothAreOnLiveOutDef) {
-                return true;
-            }
+        nodes[0] = method.getBeginNode();
+        nodes[nodes.length - 1] = method.getEndNode();
+        for (var instruction : instructions) {
+            nodes[instruction.getId()] = instruction;
+        }
+
+        for (int node = 0; node < nodes.length; node++) {
+            use[node] = new BitSet(variables.size());
+            def[node] = new BitSet(variables.size());
+            liveIn[node] = new BitSet(variables.size());
+            liveOut[node] = new BitSet(variables.size());
         }
 
-        return false;
+        for (var instruction : instructions) {
+            this.computeUseAndDef(instruction);
+        }
+
+        this.computeLiveInAndOut();
     }
 
-    private boolean varInsideLiveInAndOutDef(Set<String> liveIn, Set<String> liveOutDef, String variable) {
-        return liveIn.contains(variable) && liveOutDef.contains(variable);
+    public List<String> getVariables() {
+        return this.variables;
     }
 
-    private void initHashMaps(Node cfgBeginNode) {
-        Node currentNode;
-        List<Node> succNodes;
-        Stack<Node> bfsStack = new Stack<>();
-        bfsStack.push(cfgBeginNode);
+    /**
+     * @return how many nodes the liveness worklist processed
+     */
+    public long getWorklistVisits() {
+        return this.worklistVisits;
+    }
 
-        while(!bfsStack.isEmpty()) {
-            currentNode = bfsStack.pop();
+    /**
+     * @return how many pairs of variables {@link #getInterferenceGraph()} tested for an edge, so far
+     */
+    public long getInterferenceTests() {
+        return this.interferenceTests;
+    }
+
+    public Set<String> getLiveIn(Node node) {
+        return this.toNames(this.liveIn[this.indexOf(node)]);
+    }
+
+    public Set<String> getLiveOut(Node node) {
+        return this.toNames(this.liveOut[this.indexOf(node)]);
+    }
+
+    /**
+     * Builds the interference graph of the variables (the node of each variable is its index in
+     * {@link #getVariables()}) in a backward sweep of each basic block: a variable defined by an instruction interferes
+     * with every other variable live after it, except the one it copies, as they hold the same value. The variables live
+     * at the start of the method (the parameters, and any variable read before being assigned) interfere with each
+     * other.
+     */
+    public InterferenceGraph getInterferenceGraph() {
+        var graph = new InterferenceGraph(this.variables.size());
 
-            this.def.put(currentNode, new TreeSet<>());
-            this.use.put(currentNode, new TreeSet<>());
-            this.liveIn.put(currentNode, new TreeSet<>());
-            this.liveOut.put(currentNode, new TreeSet<>());
+        for(int last = 0; last < this.nodes.length; last++) {
+            if(!this.endsBlock(last)) continue;
 
-            succNodes = currentNode.getSuccessors();
-            for(var succNode: succNodes) {
-                bfsStack.push(succNode);
+            var live = (BitSet) this.liveOut[last].clone();
+            int node = last;
+            while(true) {
+                var defined = this.def[node];
+                for(int d = defined.nextSetBit(0); d >= 0; d = defined.nextSetBit(d + 1)) {
+                    for(int other = live.nextSetBit(0); other >= 0; other = live.nextSetBit(other + 1)) {
+                        this.interferenceTests++;
+                        if(other != this.copied[node]) graph.addEdge(d, other);
+                    }
+                }
+
+                live.andNot(defined);
+                live.or(this.use[node]);
+
+                if(this.startsBlock(node)) break;
+                node = this.indexOf(this.nodes[node].getPredecessors().get(0));
             }
         }
+
+        for(var move : this.moves) {
+            graph.addMove(move[0], move[1]);
+        }
+
+        var entry = this.liveOut[0];
+        for(int variable1 = entry.nextSetBit(0); variable1 >= 0; variable1 = entry.nextSetBit(variable1 + 1)) {
+            for(int variable2 = entry.nextSetBit(variable1 + 1); variable2 >= 0; variable2 = entry.nextSetBit(variable2 + 1)) {
+                graph.addEdge(variable1, variable2);
+            }
+        }
+
+        return graph;
+    }
+
+    private boolean startsBlock(int node) {
+        var preds = this.nodes[node].getPredecessors();
+        return preds.size() != 1 || preds.get(0).getSuccessors().size() != 1;
     }
 
-    private boolean computationCfgNodeSentinel(Node cfgNode) {
-        return (cfgNode.getNodeType().toString().equals("BEGIN") || cfgNode.getNodeType().toString().equals("END"));
+    private boolean endsBlock(int node) {
+        var succs = this.nodes[node].getSuccessors();
+        return succs.size() != 1 || this.startsBlock(this.indexOf(succs.get(0)));
     }
 
-    private void computeUse(Instruction instruction) {
-        if(this.computationCfgNodeSentinel(instruction)) return;
+    private int indexOf(Node node) {
+        if(node.getNodeType() == NodeType.BEGIN) return 0;
+        if(node.getNodeType() == NodeType.END) return this.nodes.length - 1;
 
-        List<TreeNode> operands = instruction.getDescendants().stream().filter(n -> n instanceof Operand).collect(Collectors.toList());
+        return node.getId();
+    }
 
-        // If is an assign, we ignore the first operand
-        for(int i = 0; i < operands.size(); i++) {
-            if(this.isAssign(instruction) && i == 0) {
-                continue;
-            }
+    private Set<String> toNames(BitSet set) {
+        Set<String> names = new TreeSet<>();
+        for(int variable = set.nextSetBit(0); variable >= 0; variable = set.nextSetBit(variable + 1)) {
+            names.add(this.variables.get(variable));
+        }
+
+        return names;
+    }
+
+    private void computeUseAndDef(Instruction instruction) {
+        int node = instruction.getId();
+
+        // the array of an element that is assigned is used, not defined
+        for(var variable : OllirInstructions.getUsedVariables(instruction)) {
+            Integer index = this.variableIndices.get(variable);
+            if(index != null) this.use[node].set(index);
+        }
 
-            Operand operand = (Operand) operands.get(i);
-            this.use.get(instruction).add(operand.getName());
+        var assigned = OllirInstructions.getAssignedVariable(instruction);
+        if(assigned != null && this.variableIndices.containsKey(assigned)) {
+            this.def[node].set(this.variableIndices.get(assigned));
+
+            var copiedVariable = getCopiedVariable(instruction);
+            if(copiedVariable != null && this.variableIndices.containsKey(copiedVariable)) {
+                this.copied[node] = this.variableIndices.get(copiedVariable);
+                this.moves.add(new int[]{this.variableIndices.get(assigned), this.copied[node]});
+            }
         }
     }
 
-    private boolean isAssign(Instruction instruction) {
-        return instruction instanceof AssignInstruction;
+    /**
+     * @return the variable whose value the instruction assigns, unchanged, or null if it is not such a copy
+     */
+    private static String getCopiedVariable(Instruction instruction) {
+        if(!(instruction instanceof AssignInstruction assign)) return null;
+        if(!(assign.getRhs() instanceof SingleOpInstruction single)) return null;
+        if(!(single.getSingleOperand() instanceof Operand operand) || operand instanceof ArrayOperand) return null;
+
+        return operand.getName();
     }
 
-    private void computeDef(Instruction instruction) {
-        if(instruction instanceof AssignInstruction) {
-            Operand operand = (Operand) ((AssignInstruction) instruction).getDest();
-            def.get(instruction).add(operand.getName());
+    private void computeLiveInAndOut() {
+        Deque<Integer> worklist = new ArrayDeque<>();
+        var inWorklist = new boolean[this.nodes.length];
+        for(int node : this.postorder()) {
+            worklist.add(node);
+            inWorklist[node] = true;
+        }
+
+        while(!worklist.isEmpty()) {
+            int node = worklist.poll();
+            inWorklist[node] = false;
+            this.worklistVisits++;
+
+            var out = new BitSet(this.variables.size());
+            for(var succ : this.nodes[node].getSuccessors()) {
+                out.or(this.liveIn[this.indexOf(succ)]);
+            }
+            this.liveOut[node] = out;
+
+            var in = (BitSet) out.clone();
+            in.andNot(this.def[node]);
+            in.or(this.use[node]);
+            if(in.equals(this.liveIn[node])) continue;
+
+            this.liveIn[node] = in;
+            for(var pred : this.nodes[node].getPredecessors()) {
+                int predIndex = this.indexOf(pred);
+                if(!inWorklist[predIndex]) {
+                    worklist.add(predIndex);
+                    inWorklist[predIndex] = true;
+                }
+            }
         }
     }
 
-    private void computeLiveInAndOut(Node currentNode) {
-        if(currentNode.getNodeType().toString().equals("END")) return;
+    /**
+     * @return every node, in the postorder of a depth-first search from the begin node, followed by the nodes it
+     * cannot reach
+     */
+    private List<Integer> postorder() {
+        List<Integer> order = new ArrayList<>();
+        var visited = new boolean[this.nodes.length];
+        var nextSucc = new int[this.nodes.length];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(0);
+        visited[0] = true;
 
-        List<Node> succNodes = currentNode.getSuccessors();
+        while(!stack.isEmpty()) {
+            int node = stack.peek();
+            var succs = this.nodes[node].getSuccessors();
 
-        for(var succ: succNodes) {
-            this.computeLiveInAndOut(succ);
-            this.liveOut.get(currentNode).addAll(this.liveIn.get(succ));
+            if(nextSucc[node] < succs.size()) {
+                int succ = this.indexOf(succs.get(nextSucc[node]++));
+                if(!visited[succ]) {
+                    visited[succ] = true;
+                    stack.push(succ);
+                }
+            } else {
+                order.add(stack.pop());
+            }
         }
 
-        Set<String> liveOutDiffDef = new TreeSet<>(this.liveOut.get(currentNode));
-        liveOutDiffDef.removeAll(this.def.get(currentNode));
+        for(int node = this.nodes.length - 1; node >= 0; node--) {
+            if(!visited[node]) order.add(node);
+        }
 
-        Set<String> useUnionLiveOutDiff = new TreeSet<>(this.use.get(currentNode));
-        useUnionLiveOutDiff.addAll(liveOutDiffDef);
-        this.liveIn.get(currentNode).addAll(useUnionLiveOutDiff);
+        return order;
     }
 }
@@ -1,24 +1,23 @@
 package pt.up.fe.comp2024.optimization.registers;
 
 import org.specs.comp.ollir.Descriptor;
-import org.specs.comp.ollir.Instruction;
 import org.specs.comp.ollir.Method;
-import org.specs.comp.ollir.Node;
+import org.specs.comp.ollir.VarScope;
 import pt.up.fe.comp.jmm.ollir.OllirResult;
 import pt.up.fe.comp.jmm.report.Report;
 import pt.up.fe.comp.jmm.report.Stage;
-import pt.up.fe.comp2024.utils.graph.Graph;
-import pt.up.fe.comp2024.utils.graph.GraphColoringNode;
-import pt.up.fe.comp2024.utils.graph.GraphNode;
+import pt.up.fe.comp2024.optimization.ollir.OllirCfg;
+import pt.up.fe.comp2024.profiling.CompileProfiler;
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
 import pt.up.fe.comp2024.utils.graph.algorithms.GraphColoringAlgorithm;
 
-import java.util.*;
+import java.util.List;
 
 public class RegisterAllocationOptimizer {
     OllirResult ollirResult;
-    GraphColoringAlgorithm<String> graphColoringAlgorithm;
+    GraphColoringAlgorithm graphColoringAlgorithm;
 
-    public RegisterAllocationOptimizer(OllirResult ollirResult, GraphColoringAlgorithm<String> graphColoringAlgorithm) {
+    public RegisterAllocationOptimizer(OllirResult ollirResult, GraphColoringAlgorithm graphColoringAlgorithm) {
         this.ollirResult = ollirResult;
         Report.newError(Stage.OPTIMIZATION, 0, 0, "teste", null);
         this.graphColoringAlgorithm = graphColoringAlgorithm;
@@ -27,56 +26,50 @@ public class RegisterAllocationOptimizer {
 
     public void optimize() {
         for(Method method: this.ollirResult.getOllirClass().getMethods()) {
-            method.buildCFG();
-            CfgMetadata cfgMetadata = new CfgMetadata(method.getBeginNode());
-            Graph<GraphColoringNode<String>> currentMethodGraph = new Graph<GraphColoringNode<String>>();
-            HashMap<String, GraphNode<String>> variableNodeMap = new HashMap<>();
-            List<String> variables = new ArrayList<>();
-
-            // 1. Create nodes for each variable and store it inside an hash map mapping variable names to nodes
-            for(Map.Entry<String, Descriptor> entry: method.getVarTable().entrySet()) {
-                String varName = entry.getKey();
-                if(varName.equals("this")) continue;
-                GraphColoringNode<String> graphNode = new GraphColoringNode<>(varName);
-                variableNodeMap.put(varName, graphNode);
-                currentMethodGraph.addNode(graphNode);
-                variables.add(varName);
-            }
+            CompileProfiler.time(method.getMethodName(), () -> this.allocateRegisters(method));
+        }
+    }
 
-            // 2. For each variable, see which other ones interfere with it and add it as an edge on the graph
-            for(var variable1: variables) {
-                for(var variable2: variables) {
-                    if(variable1.equals("this") || variable2.equals("this")) continue;
-                    if(variable2.equals(variable1)) continue;
+    private void allocateRegisters(Method method) {
+        // the CFG may have been built by the optimizations before
+        CompileProfiler.time("cfg", () -> OllirCfg.build(method));
+        CfgMetadata cfgMetadata = CompileProfiler.time("liveness", () -> new CfgMetadata(method));
 
-                    if(cfgMetadata.interfere(variable1, variable2)) {
-                        var variable1Node = variableNodeMap.get(variable1);
-                        var variable2Node = variableNodeMap.get(variable2);
+        // 1. Each variable is a node, with an edge between each pair of variables that interfere
+        InterferenceGraph graph = CompileProfiler.time("interference", cfgMetadata::getInterferenceGraph);
+        List<String> variables = cfgMetadata.getVariables();
 
-                        variable1Node.addEdge(variable2Node);
-                    }
-                }
+        // 2. The parameters are passed in their registers, so they keep them
+        var varTable = method.getVarTable();
+        for(int node = 0; node < variables.size(); node++) {
+            Descriptor descriptor = varTable.get(variables.get(node));
+            if(descriptor.getScope() == VarScope.PARAMETER) {
+                graph.setColor(node, descriptor.getVirtualReg());
             }
+        }
 
-            boolean optimizationWasPossible = this.graphColoringAlgorithm.execute(currentMethodGraph, method.getParams().size() + 1);
-            if(optimizationWasPossible) {
-                for (var node : currentMethodGraph.getNodes()) {
-                    Optional<Integer> possibleColor = node.getColor();
-
-                    if (possibleColor.isPresent()) {
-                        method.getVarTable().get(node.getValue()).setVirtualReg(possibleColor.get());
-                    }
-                }
-            } else {
-                Report report = Report.newError(
-                        Stage.OPTIMIZATION,
-                        0,
-                        0,
-                        "Register allocation was not possible with specified number of registers",
-                        null
-                );
-                this.ollirResult.getReports().add(report);
+        int firstFreeRegister = method.getParams().size() + (method.isStaticMethod() ? 0 : 1);
+        boolean optimizationWasPossible = CompileProfiler.time("coloring",
+                () -> this.graphColoringAlgorithm.execute(graph, firstFreeRegister));
+        if(optimizationWasPossible) {
+            for(int node = 0; node < variables.size(); node++) {
+                varTable.get(variables.get(node)).setVirtualReg(graph.getColor(node));
             }
+        } else {
+            String message = "Register allocation was not possible with specified number of registers";
+            var sufficientColors = this.graphColoringAlgorithm.getSufficientColors();
+            if(sufficientColors.isPresent()) {
+                message += " (method " + method.getMethodName() + " can be allocated with " + sufficientColors.get() + ")";
+            }
+
+            Report report = Report.newError(
+                    Stage.OPTIMIZATION,
+                    0,
+                    0,
+                    message,
+                    null
+            );
+            this.ollirResult.getReports().add(report);
         }
     }
 }
@@ -0,0 +1,189 @@
+package pt.up.fe.comp2024.optimization_jasmin;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.NodeUtils;
+
+/**
+ * Algebraic simplification of expressions, bottom-up: identities (x + 0, x * 1, x / 1, true && x, !!x, ...),
+ * annihilators (x * 0, x && false, x - x, x < x), chains of additions and subtractions of constants folded into one
+ * ((x + 1) + 2 becomes x + 3), and x * 2 turned into x + x for locals.
+ * <p>
+ * An operand is only dropped if evaluating it has no effects: it has no calls, no array accesses and no divisions
+ * (which may throw). Multiplications by other powers of two are turned into shifts by the backend.
+ */
+public class AlgebraicSimplification {
+
+    private boolean changed;
+
+    /**
+     * Simplifies every expression in the given node (the whole program or a single method).
+     *
+     * @return true if the code changed
+     */
+    public static boolean optimize(JmmNode node) {
+        var simplification = new AlgebraicSimplification();
+        simplification.simplify(node);
+
+        return simplification.changed;
+    }
+
+    private void simplify(JmmNode node) {
+        for (var child : node.getChildren()) {
+            simplify(child);
+        }
+
+        JmmNode simplified = switch (Kind.of(node)) {
+            case BINARY_EXPR -> simplifyBinary(node);
+            case UNARY -> simplifyUnary(node);
+            default -> node;
+        };
+
+        if (simplified != node) {
+            NodeUtils.replace(node, simplified);
+            changed = true;
+        }
+    }
+
+    /**
+     * @return the node itself, or what replaces it (which has no parent)
+     */
+    private static JmmNode simplifyUnary(JmmNode node) {
+        var operand = node.getChild(0);
+
+        if (operand.isInstance(Kind.BOOL)) {
+            return NodeUtils.newLiteral(!Boolean.parseBoolean(operand.get("value")), node);
+        }
+
+        // !!x
+        if (operand.isInstance(Kind.UNARY)) {
+            return operand.getChild(0).detach();
+        }
+
+        return node;
+    }
+
+    /**
+     * @return the node itself, or what replaces it (which has no parent)
+     */
+    private static JmmNode simplifyBinary(JmmNode node) {
+        var left = node.getChild(0);
+        var right = node.getChild(1);
+
+        switch (node.get("op")) {
+            case "+" -> {
+                if (isInt(right, 0)) return left.detach();
+                if (isInt(left, 0)) return right.detach();
+
+                return reassociate(node);
+            }
+            case "-" -> {
+                if (isInt(right, 0)) return left.detach();
+                if (isSameVariable(left, right)) return NodeUtils.newLiteral(0, node);
+
+                return reassociate(node);
+            }
+            case "*" -> {
+                if (isInt(right, 1)) return left.detach();
+                if (isInt(left, 1)) return right.detach();
+                if (isInt(right, 0) && NodeUtils.isPure(left)) return right.detach();
+                if (isInt(left, 0) && NodeUtils.isPure(right)) return left.detach();
+
+                if (isInt(right, 2) && isLocal(left)) return toAddition(node, left.detach());
+                if (isInt(left, 2) && isLocal(right)) return toAddition(node, right.detach());
+            }
+            case "/" -> {
+                if (isInt(right, 1)) return left.detach();
+            }
+            case "&&" -> {
+                // the right operand is not evaluated when the left one is false
+                if (isBool(left, true)) return right.detach();
+                if (isBool(left, false)) return left.detach();
+                if (isBool(right, true)) return left.detach();
+                if (isBool(right, false) && NodeUtils.isPure(left)) return right.detach();
+            }
+            case "<" -> {
+                if (isSameVariable(left, right)) return NodeUtils.newLiteral(false, node);
+            }
+            default -> throw new RuntimeException("operator '" + node.get("op") + "' not implemented");
+        }
+
+        return node;
+    }
+
+    /**
+     * Folds (x + c1) + c2 into x + (c1 + c2), for any mix of additions and subtractions.
+     */
+    private static JmmNode reassociate(JmmNode node) {
+        var inner = node.getChild(0);
+        var outerConstant = node.getChild(1);
+
+        if (!inner.isInstance(Kind.BINARY_EXPR) || !outerConstant.isInstance(Kind.INTEGER_LITERAL)) return node;
+        if (!isAdditive(inner) || !inner.getChild(1).isInstance(Kind.INTEGER_LITERAL)) return node;
+
+        // the sum wraps around as the additions would
+        int sum = signedValue(inner) + signedValue(node);
+
+        if (sum == 0) return inner.getChild(0).detach();
+
+        var innerConstant = inner.getChild(1);
+        boolean subtract = sum < 0 && sum != Integer.MIN_VALUE;
+        inner.put("op", subtract ? "-" : "+");
+        innerConstant.put("value", String.valueOf(subtract ? -sum : sum));
+
+        return inner.detach();
+    }
+
+    private static boolean isAdditive(JmmNode binary) {
+        var op = binary.get("op");
+        return op.equals("+") || op.equals("-");
+    }
+
+    /**
+     * @return the constant that the additive binary expression adds to its left operand
+     */
+    private static int signedValue(JmmNode binary) {
+        int value = Integer.parseInt(binary.getChild(1).get("value"));
+        return binary.get("op").equals("-") ? -value : value;
+    }
+
+    /**
+     * Turns x * 2 into x + x.
+     */
+    private static JmmNode toAddition(JmmNode node, JmmNode variable) {
+        // the name, and what the semantic analysis found about the variable (e.g. whether it is a field)
+        var copy = NodeUtils.newExpr(Kind.VAR_REF_EXPR, variable);
+        for (var attribute : variable.getAttributes()) {
+            copy.putObject(attribute, variable.getObject(attribute));
+        }
+
+        var addition = NodeUtils.newExpr(Kind.BINARY_EXPR, node);
+        addition.put("op", "+");
+        addition.add(variable);
+        addition.add(copy);
+        addition.putObject("left", variable);
+        addition.putObject("right", copy);
+
+        return addition;
+    }
+
+    private static boolean isInt(JmmNode expr, int value) {
+        return expr.isInstance(Kind.INTEGER_LITERAL) && Integer.parseInt(expr.get("value")) == value;
+    }
+
+    private static boolean isBool(JmmNode expr, boolean value) {
+        return expr.isInstance(Kind.BOOL) && Boolean.parseBoolean(expr.get("value")) == value;
+    }
+
+    /**
+     * @return true if the expression is a local or a parameter, which is cheap to load twice (unlike a field)
+     */
+    private static boolean isLocal(JmmNode expr) {
+        return expr.isInstance(Kind.VAR_REF_EXPR) && !expr.getOptional("isField").orElse("False").equals("True");
+    }
+
+    private static boolean isSameVariable(JmmNode left, JmmNode right) {
+        return left.isInstance(Kind.VAR_REF_EXPR) && right.isInstance(Kind.VAR_REF_EXPR)
+                && left.get("name").equals(right.get("name"));
+    }
+}
@@ -0,0 +1,159 @@
+package pt.up.fe.comp2024.optimization_jasmin;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.Kind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Control flow graph of the statements of a method, with basic blocks of AST statements.
+ * <p>
+ * A block runs its statements in order and then either ends the method (after a return, or at the end of the body),
+ * jumps to its only successor, or branches on the condition of an if or while statement: to the first successor if
+ * the condition is true, to the second otherwise. Statements after a return are in a block without predecessors.
+ */
+public class AstCfg {
+
+    public static class Block {
+        private final int index;
+        private final List<JmmNode> statements;
+        private final List<Block> successors;
+        private final List<Block> predecessors;
+        private JmmNode branch;
+
+        private Block(int index) {
+            this.index = index;
+            this.statements = new ArrayList<>();
+            this.successors = new ArrayList<>();
+            this.predecessors = new ArrayList<>();
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return the assignments, expression statements and returns of the block, in order
+         */
+        public List<JmmNode> getStatements() {
+            return statements;
+        }
+
+        public List<Block> getSuccessors() {
+            return successors;
+        }
+
+        public List<Block> getPredecessors() {
+            return predecessors;
+        }
+
+        /**
+         * @return the if or while statement whose condition ends the block, or null if the block does not branch
+         */
+        public JmmNode getBranch() {
+            return branch;
+        }
+
+        /**
+         * @return the condition the block branches on, or null if it does not branch
+         */
+        public JmmNode getCondition() {
+            return branch == null ? null : branch.getChild(0);
+        }
+
+        private void addSuccessor(Block successor) {
+            successors.add(successor);
+            successor.predecessors.add(this);
+        }
+    }
+
+    private final JmmNode method;
+    private final List<Block> blocks;
+    private final Block entry;
+
+    /**
+     * @param method a MethodDecl or an InnerMainMethod
+     */
+    public AstCfg(JmmNode method) {
+        this.method = method;
+        this.blocks = new ArrayList<>();
+        this.entry = newBlock();
+
+        addStatements(method.getChildren(), entry);
+    }
+
+    public JmmNode getMethod() {
+        return method;
+    }
+
+    public Block getEntry() {
+        return entry;
+    }
+
+    /**
+     * @return every block, the entry first
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    private Block newBlock() {
+        var block = new Block(blocks.size());
+        blocks.add(block);
+
+        return block;
+    }
+
+    /**
+     * Adds the statements among the given nodes (the others, e.g. declarations, are skipped) after the given block.
+     *
+     * @return the block where the statements end
+     */
+    private Block addStatements(List<JmmNode> nodes, Block current) {
+        for (var node : nodes) {
+            switch (Kind.of(node)) {
+                case ASSIGN_STMT, EXPR_STMT -> current.statements.add(node);
+                case RETURN_STMT -> {
+                    current.statements.add(node);
+                    // whatever follows is unreachable
+                    current = newBlock();
+                }
+                case SCOPE_STMT -> current = addStatements(node.getChildren(), current);
+                case IF_ELSE_STMT -> {
+                    current.branch = node;
+
+                    var thenBlock = newBlock();
+                    var elseBlock = newBlock();
+                    current.addSuccessor(thenBlock);
+                    current.addSuccessor(elseBlock);
+
+                    var thenEnd = addStatements(List.of(node.getChild(1)), thenBlock);
+                    var elseEnd = addStatements(List.of(node.getChild(2)), elseBlock);
+
+                    current = newBlock();
+                    thenEnd.addSuccessor(current);
+                    elseEnd.addSuccessor(current);
+                }
+                case WHILE_STMT -> {
+                    var header = newBlock();
+                    current.addSuccessor(header);
+                    header.branch = node;
+
+                    var body = newBlock();
+                    var after = newBlock();
+                    header.addSuccessor(body);
+                    header.addSuccessor(after);
+
+                    addStatements(List.of(node.getChild(1)), body).addSuccessor(header);
+                    current = after;
+                }
+                default -> {
+                    // declarations, parameters and types are not statements
+                }
+            }
+        }
+
+        return current;
+    }
+}
@@ -0,0 +1,288 @@
+package pt.up.fe.comp2024.optimization_jasmin;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.NodeUtils;
+
+import java.util.*;
+
+/**
+ * Removes the code of a method that is never run, or whose results are never used:
+ * <ul>
+ *     <li>an if statement with a constant condition is replaced by the branch it takes, a while statement whose
+ *     condition is false is removed, and so is an if statement with empty branches and a condition without effects;</li>
+ *     <li>the statements of the blocks of the {@link AstCfg} that cannot be reached (after a return) are removed;</li>
+ *     <li>an assignment to a local (or parameter) that is not live after it, i.e. that is not read before being
+ *     assigned again, is removed if its value has no effects.</li>
+ * </ul>
+ * The return at the end of a method is always kept, as the code generation expects it.
+ */
+public class DeadCodeElimination {
+
+    private final JmmNode method;
+
+    // index of each local (and parameter) in the sets of live variables
+    private final Map<String, Integer> variables;
+
+    private boolean changed;
+
+    public DeadCodeElimination(JmmNode method) {
+        this.method = method;
+        this.variables = new HashMap<>();
+
+        for (var child : method.getChildren()) {
+            if (child.isInstance(Kind.VAR_DECL) || child.isInstance(Kind.PARAM)) {
+                variables.putIfAbsent(child.get("name"), variables.size());
+            }
+        }
+    }
+
+    /**
+     * Removes the dead code of every method in the given node (the whole program or a single method).
+     *
+     * @return true if the code changed
+     */
+    public static boolean optimize(JmmNode node) {
+        boolean changed = false;
+
+        for (var method : node.getDescendantsAndSelfStream().toList()) {
+            if (method.isInstance(Kind.METHOD_DECL) || method.isInstance(Kind.INNER_MAIN_METHOD)) {
+                changed |= new DeadCodeElimination(method).optimize();
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * @return true if the code of the method changed
+     */
+    public boolean optimize() {
+        foldBranches(method);
+
+        var cfg = new AstCfg(method);
+        var reachable = findReachable(cfg);
+        removeUnreachable(cfg, reachable);
+        removeDeadAssignments(cfg, reachable);
+
+        return changed;
+    }
+
+    private void foldBranches(JmmNode node) {
+        // the inner statements first, so that only the statements still in the method are visited
+        for (var child : node.getChildren()) {
+            foldBranches(child);
+        }
+
+        if (node.isInstance(Kind.IF_ELSE_STMT)) {
+            var condition = node.getChild(0);
+
+            if (condition.isInstance(Kind.BOOL)) {
+                replaceStatement(node, node.getChild(Boolean.parseBoolean(condition.get("value")) ? 1 : 2));
+            } else if (isEmpty(node.getChild(1)) && isEmpty(node.getChild(2)) && NodeUtils.isPure(condition)) {
+                removeStatement(node);
+            }
+        } else if (node.isInstance(Kind.WHILE_STMT)) {
+            var condition = node.getChild(0);
+
+            if (condition.isInstance(Kind.BOOL) && !Boolean.parseBoolean(condition.get("value"))) {
+                removeStatement(node);
+            }
+        }
+    }
+
+    private static boolean isEmpty(JmmNode statement) {
+        return statement.isInstance(Kind.SCOPE_STMT) && statement.getNumChildren() == 0;
+    }
+
+    private static boolean holdsStatements(JmmNode node) {
+        return node.isInstance(Kind.METHOD_DECL) || node.isInstance(Kind.INNER_MAIN_METHOD)
+                || node.isInstance(Kind.SCOPE_STMT);
+    }
+
+    /**
+     * Puts the replacement (a statement inside the given one) in the place of the statement. A block is replaced by
+     * its statements where a list of statements is expected, as the AST is kept canonical.
+     */
+    private void replaceStatement(JmmNode statement, JmmNode replacement) {
+        replacement.detach();
+
+        if (holdsStatements(statement.getParent()) && replacement.isInstance(Kind.SCOPE_STMT)) {
+            for (var child : replacement.getChildren()) {
+                statement.insertBefore(child.detach());
+            }
+            statement.detach();
+        } else {
+            NodeUtils.replace(statement, replacement);
+        }
+
+        changed = true;
+    }
+
+    /**
+     * Removes the statement, or empties it if it is the body of an if or while statement.
+     */
+    private void removeStatement(JmmNode statement) {
+        if (holdsStatements(statement.getParent())) {
+            statement.detach();
+        } else {
+            NodeUtils.replace(statement, NodeUtils.newStmt(Kind.SCOPE_STMT, statement));
+        }
+
+        changed = true;
+    }
+
+    private static boolean[] findReachable(AstCfg cfg) {
+        var reachable = new boolean[cfg.getBlocks().size()];
+        Deque<AstCfg.Block> stack = new ArrayDeque<>();
+
+        stack.push(cfg.getEntry());
+        reachable[cfg.getEntry().getIndex()] = true;
+
+        while (!stack.isEmpty()) {
+            for (var successor : stack.pop().getSuccessors()) {
+                if (!reachable[successor.getIndex()]) {
+                    reachable[successor.getIndex()] = true;
+                    stack.push(successor);
+                }
+            }
+        }
+
+        return reachable;
+    }
+
+    private void removeUnreachable(AstCfg cfg, boolean[] reachable) {
+        for (var block : cfg.getBlocks()) {
+            if (reachable[block.getIndex()]) continue;
+
+            for (var statement : block.getStatements()) {
+                if (!isFinalReturn(statement) && statement.getParent() != null) {
+                    removeStatement(statement);
+                }
+            }
+
+            // an if or while statement whose condition cannot be reached, with every statement inside it
+            if (block.getBranch() != null && block.getBranch().getParent() != null) {
+                removeStatement(block.getBranch());
+            }
+        }
+    }
+
+    private boolean isFinalReturn(JmmNode statement) {
+        return statement.isInstance(Kind.RETURN_STMT) && statement.getParent() == method
+                && statement.getIndexOfSelf() == method.getNumChildren() - 1;
+    }
+
+    private void removeDeadAssignments(AstCfg cfg, boolean[] reachable) {
+        var blocks = cfg.getBlocks();
+        var liveIn = new BitSet[blocks.size()];
+        for (int i = 0; i < liveIn.length; i++) {
+            liveIn[i] = new BitSet(variables.size());
+        }
+
+        // backwards, so that most blocks are visited after their successors
+        Deque<AstCfg.Block> worklist = new ArrayDeque<>();
+        var inWorklist = new boolean[blocks.size()];
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            if (reachable[i]) {
+                worklist.add(blocks.get(i));
+                inWorklist[i] = true;
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            var block = worklist.poll();
+            inWorklist[block.getIndex()] = false;
+
+            var live = transfer(block, liveOut(block, liveIn), false);
+            if (live.equals(liveIn[block.getIndex()])) continue;
+
+            liveIn[block.getIndex()] = live;
+            for (var predecessor : block.getPredecessors()) {
+                if (!inWorklist[predecessor.getIndex()]) {
+                    worklist.add(predecessor);
+                    inWorklist[predecessor.getIndex()] = true;
+                }
+            }
+        }
+
+        for (var block : blocks) {
+            if (reachable[block.getIndex()]) {
+                transfer(block, liveOut(block, liveIn), true);
+            }
+        }
+    }
+
+    private static BitSet liveOut(AstCfg.Block block, BitSet[] liveIn) {
+        var live = new BitSet();
+        for (var successor : block.getSuccessors()) {
+            live.or(liveIn[successor.getIndex()]);
+        }
+
+        return live;
+    }
+
+    /**
+     * Goes back from the end of the block to its start, removing the dead assignments if asked to.
+     *
+     * @param live the variables live at the end of the block, which is changed
+     * @return the variables live at the start of the block
+     */
+    private BitSet transfer(AstCfg.Block block, BitSet live, boolean remove) {
+        // the condition is evaluated after the statements
+        if (block.getBranch() != null) {
+            addUses(block.getCondition(), live);
+        }
+
+        var statements = block.getStatements();
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            var statement = statements.get(i);
+
+            if (!statement.isInstance(Kind.ASSIGN_STMT)) {
+                addUses(statement, live);
+                continue;
+            }
+
+            var target = statement.getChild(0);
+            var value = statement.getChild(1);
+            var variable = getLocal(target);
+
+            if (variable == null) {
+                // an element of an array, or a field
+                addUses(target, live);
+                addUses(value, live);
+                continue;
+            }
+
+            if (remove && !live.get(variable) && NodeUtils.isPure(value)) {
+                removeStatement(statement);
+                continue;
+            }
+
+            live.clear(variable);
+            addUses(value, live);
+        }
+
+        return live;
+    }
+
+    private void addUses(JmmNode node, BitSet live) {
+        node.getDescendantsAndSelfStream().forEach(descendant -> {
+            var variable = getLocal(descendant);
+            if (variable != null) {
+                live.set(variable);
+            }
+        });
+    }
+
+    /**
+     * @return the index of the local (or parameter) the node refers to, or null if it refers to none
+     */
+    private Integer getLocal(JmmNode node) {
+        if (!node.isInstance(Kind.VAR_REF_EXPR) || node.getOptional("isField").orElse("False").equals("True")) {
+            return null;
+        }
+
+        return variables.get(node.get("name"));
+    }
+}
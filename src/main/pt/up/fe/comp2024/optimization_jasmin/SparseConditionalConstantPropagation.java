@@ -0,0 +1,283 @@
+package pt.up.fe.comp2024.optimization_jasmin;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.ast.NodeUtils;
+
+import java.util.*;
+
+/**
+ * Conditional constant propagation and folding of the int and boolean locals (and parameters) of a method, over its
+ * {@link AstCfg}.
+ * <p>
+ * Each variable has a value in the lattice TOP (no value reaches it yet), a constant, or BOTTOM (not a constant).
+ * Blocks are only visited once an edge into them is known to be executable, and a branch whose condition is a
+ * constant only makes the edge it takes executable, so the values assigned in branches that are never taken do not
+ * reach the code after them. Loops are handled by the worklist: the values at the header of a loop are lowered until
+ * they agree with the ones coming back from its body.
+ * <p>
+ * Once the values converge, every expression of a reachable block whose value is a constant (including the
+ * conditions of if and while statements) is replaced by a literal. Expressions that call methods or access arrays are
+ * never constants, so nothing that has side effects is removed.
+ */
+public class SparseConditionalConstantPropagation {
+
+    private static final Object TOP = new Object() {
+        @Override
+        public String toString() {
+            return "TOP";
+        }
+    };
+
+    private static final Object BOTTOM = new Object() {
+        @Override
+        public String toString() {
+            return "BOTTOM";
+        }
+    };
+
+    private final AstCfg cfg;
+
+    // index of each int or boolean local (and parameter) in the arrays of values
+    private final Map<String, Integer> variables;
+
+    // values at the start of each block, or null if no executable edge reaches it yet
+    private final Object[][] blockValues;
+
+    private boolean changed;
+
+    public SparseConditionalConstantPropagation(JmmNode method) {
+        this.cfg = new AstCfg(method);
+        this.variables = new HashMap<>();
+        this.blockValues = new Object[cfg.getBlocks().size()][];
+
+        for (var child : method.getChildren()) {
+            boolean isVariable = child.isInstance(Kind.VAR_DECL) || child.isInstance(Kind.PARAM);
+            if (isVariable && isTracked(child.getChild(0))) {
+                variables.putIfAbsent(child.get("name"), variables.size());
+            }
+        }
+    }
+
+    /**
+     * Propagates and folds the constants of every method in the given node (the whole program or a single method).
+     *
+     * @return true if the code changed
+     */
+    public static boolean optimize(JmmNode node) {
+        boolean changed = false;
+
+        for (var method : node.getDescendantsAndSelfStream().toList()) {
+            if (method.isInstance(Kind.METHOD_DECL) || method.isInstance(Kind.INNER_MAIN_METHOD)) {
+                changed |= new SparseConditionalConstantPropagation(method).optimize();
+            }
+        }
+
+        return changed;
+    }
+
+    private static boolean isTracked(JmmNode type) {
+        return type.isInstance(Kind.INTEGER_TYPE) || type.isInstance(Kind.BOOL_TYPE);
+    }
+
+    /**
+     * @return true if the code of the method changed
+     */
+    public boolean optimize() {
+        solve();
+        rewrite();
+
+        return changed;
+    }
+
+    private void solve() {
+        // parameters, and locals that are read before being assigned, are not constants
+        var entryValues = new Object[variables.size()];
+        Arrays.fill(entryValues, BOTTOM);
+        blockValues[cfg.getEntry().getIndex()] = entryValues;
+
+        Deque<AstCfg.Block> worklist = new ArrayDeque<>();
+        var inWorklist = new boolean[cfg.getBlocks().size()];
+        worklist.add(cfg.getEntry());
+        inWorklist[cfg.getEntry().getIndex()] = true;
+
+        while (!worklist.isEmpty()) {
+            var block = worklist.poll();
+            inWorklist[block.getIndex()] = false;
+
+            var values = blockValues[block.getIndex()].clone();
+            for (var statement : block.getStatements()) {
+                transfer(statement, values, false);
+            }
+
+            for (var successor : getExecutableSuccessors(block, values)) {
+                if (merge(successor, values) && !inWorklist[successor.getIndex()]) {
+                    worklist.add(successor);
+                    inWorklist[successor.getIndex()] = true;
+                }
+            }
+        }
+    }
+
+    private List<AstCfg.Block> getExecutableSuccessors(AstCfg.Block block, Object[] values) {
+        var successors = block.getSuccessors();
+        if (block.getBranch() == null) {
+            return successors;
+        }
+
+        var condition = evaluate(block.getCondition(), values, false);
+        if (condition == TOP) return List.of();
+        if (condition == BOTTOM) return successors;
+
+        return List.of(successors.get((Boolean) condition ? 0 : 1));
+    }
+
+    /**
+     * Meets the values at the start of the block with the given ones.
+     *
+     * @return true if the values at the start of the block changed
+     */
+    private boolean merge(AstCfg.Block block, Object[] values) {
+        var current = blockValues[block.getIndex()];
+        if (current == null) {
+            blockValues[block.getIndex()] = values.clone();
+            return true;
+        }
+
+        boolean merged = false;
+        for (int i = 0; i < values.length; i++) {
+            var value = meet(current[i], values[i]);
+            if (value != current[i]) {
+                current[i] = value;
+                merged = true;
+            }
+        }
+
+        return merged;
+    }
+
+    private static Object meet(Object value1, Object value2) {
+        if (value1 == TOP) return value2;
+        if (value2 == TOP) return value1;
+        if (value1.equals(value2)) return value1;
+
+        return BOTTOM;
+    }
+
+    private void rewrite() {
+        for (var block : cfg.getBlocks()) {
+            var values = blockValues[block.getIndex()];
+            // unreachable blocks are left as they are
+            if (values == null) continue;
+
+            values = values.clone();
+            for (var statement : block.getStatements()) {
+                transfer(statement, values, true);
+            }
+
+            if (block.getBranch() != null) {
+                evaluate(block.getCondition(), values, true);
+            }
+        }
+    }
+
+    /**
+     * Updates the values with the effect of the statement, replacing its constant expressions if asked to.
+     */
+    private void transfer(JmmNode statement, Object[] values, boolean replace) {
+        if (!statement.isInstance(Kind.ASSIGN_STMT)) {
+            for (var expr : statement.getChildren()) {
+                evaluate(expr, values, replace);
+            }
+            return;
+        }
+
+        var target = statement.getChild(0);
+        var value = evaluate(statement.getChild(1), values, replace);
+
+        if (target.isInstance(Kind.VAR_REF_EXPR)) {
+            var variable = variables.get(target.get("name"));
+            if (variable != null) {
+                values[variable] = value;
+            }
+        } else {
+            // an element of an array, whose index may have constants
+            for (var expr : target.getChildren()) {
+                evaluate(expr, values, replace);
+            }
+        }
+    }
+
+    /**
+     * @return the value of the expression, which is replaced by a literal if asked to and if it is a constant
+     */
+    private Object evaluate(JmmNode expr, Object[] values, boolean replace) {
+        var value = evaluateChildren(expr, values, replace);
+
+        boolean isLiteral = expr.isInstance(Kind.INTEGER_LITERAL) || expr.isInstance(Kind.BOOL);
+        if (replace && !isLiteral && value != TOP && value != BOTTOM) {
+            NodeUtils.replace(expr, NodeUtils.newLiteral(value, expr));
+            changed = true;
+        }
+
+        return value;
+    }
+
+    private Object evaluateChildren(JmmNode expr, Object[] values, boolean replace) {
+        switch (Kind.of(expr)) {
+            case INTEGER_LITERAL -> {
+                return Integer.parseInt(expr.get("value"));
+            }
+            case BOOL -> {
+                return Boolean.parseBoolean(expr.get("value"));
+            }
+            case VAR_REF_EXPR -> {
+                var variable = variables.get(expr.get("name"));
+                return variable == null ? BOTTOM : values[variable];
+            }
+            case UNARY -> {
+                var operand = evaluate(expr.getChild(0), values, replace);
+                return operand == TOP || operand == BOTTOM ? operand : !(Boolean) operand;
+            }
+            case BINARY_EXPR -> {
+                var left = evaluate(expr.getChild(0), values, replace);
+                var right = evaluate(expr.getChild(1), values, replace);
+
+                return evaluateBinary(expr.get("op"), left, right);
+            }
+            default -> {
+                // calls, arrays and objects are never constants, but their operands can be
+                for (var child : expr.getChildren()) {
+                    evaluate(child, values, replace);
+                }
+                return BOTTOM;
+            }
+        }
+    }
+
+    private static Object evaluateBinary(String op, Object left, Object right) {
+        // the right operand is not evaluated when the left one is false
+        if (op.equals("&&") && Boolean.FALSE.equals(left)) return false;
+        if (op.equals("&&") && Boolean.TRUE.equals(left)) return right;
+
+        if (left == TOP || right == TOP) return TOP;
+        if (left == BOTTOM || right == BOTTOM) return BOTTOM;
+
+        if (op.equals("&&")) {
+            return (Boolean) left && (Boolean) right;
+        }
+
+        int leftInt = (Integer) left;
+        int rightInt = (Integer) right;
+
+        return switch (op) {
+            case "+" -> leftInt + rightInt;
+            case "-" -> leftInt - rightInt;
+            case "*" -> leftInt * rightInt;
+            // division by zero throws at run time, which must be kept
+            case "/" -> rightInt == 0 ? BOTTOM : leftInt / rightInt;
+            case "<" -> leftInt < rightInt;
+            default -> throw new RuntimeException("operator '" + op + "' not implemented");
+        };
+    }
+}
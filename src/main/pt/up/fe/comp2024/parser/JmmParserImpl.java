@@ -1,14 +1,26 @@
 package pt.up.fe.comp2024.parser;
 
-import org.antlr.v4.runtime.ANTLRInputStream;
-import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
 import pt.up.fe.comp.jmm.ast.antlr.AntlrParser;
+import pt.up.fe.comp.jmm.ast.antlr.AntlrToJmmNodeConverter;
+import pt.up.fe.comp.jmm.ast.antlr.JmmErrorListener;
+import pt.up.fe.comp.jmm.ast.antlr.JmmNodeCleanup;
 import pt.up.fe.comp.jmm.parser.JmmParser;
 import pt.up.fe.comp.jmm.parser.JmmParserResult;
 import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
 import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JavammLexer;
+import pt.up.fe.comp2024.JavammParser;
+import pt.up.fe.comp2024.ast.AstCanonicalizer;
 
-import java.util.Collections;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -26,6 +38,9 @@ import java.util.Map;
 
 public class JmmParserImpl implements JmmParser {
 
+    // lexer and parser of each thread, reset before every input instead of being created again
+    private static final ThreadLocal<PooledParser> POOL = ThreadLocal.withInitial(PooledParser::new);
+
     @Override
     public String getDefaultRule() {
         return "program";
@@ -35,22 +50,93 @@ public class JmmParserImpl implements JmmParser {
     public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
 
         try {
-            // Convert code string into a character stream
-            var input = new ANTLRInputStream(jmmCode);
-            // Transform characters into tokens using the lexer
-            var lex = new pt.up.fe.comp2024.JavammLexer(input);
-            // Wrap lexer around a token stream
-            var tokens = new CommonTokenStream(lex);
-            // Transforms tokens into a parse tree
-            var parser = new pt.up.fe.comp2024.JavammParser(tokens);
-
+            var pooled = POOL.get();
+            // Convert code string into a character stream, and give it to the lexer
+            pooled.lexer.setInputStream(new ANTLRInputStream(jmmCode));
+            // Wrap lexer around a token stream, which the parser turns into a parse tree
+            pooled.parser.setTokenStream(new CommonTokenStream(pooled.lexer));
 
             // Convert ANTLR CST to JmmNode AST
-            return AntlrParser.parse(lex, parser, startingRule, config);
+            return parse(pooled.lexer, pooled.parser, startingRule, CompilerConfig.isTwoStageParsing(config), config);
 
         } catch (Exception e) {
             // There was an uncaught exception during parsing, create an error JmmParserResult without root node
             return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
         }
     }
+
+    /**
+     * Same steps as {@link AntlrParser#parse(Lexer, Parser, String, Map)}, but calls the starting rule directly.
+     * <p>
+     * The library version looks the rule up through a static cache that is not thread-safe, which breaks when several
+     * files are parsed at the same time (e.g. in batch mode).
+     */
+    private static JmmParserResult parse(Lexer lex, Parser parser, String startingRule, boolean twoStage,
+                                         Map<String, String> config) throws ReflectiveOperationException {
+
+        lex.removeErrorListeners();
+        var lexerListener = new JmmErrorListener(Stage.LEXICAL);
+        lex.addErrorListener(lexerListener);
+
+        var rule = parser.getClass().getMethod(startingRule);
+        var parserListener = new JmmErrorListener(Stage.SYNTATIC);
+        var node = twoStage ? parseTwoStage(parser, rule, parserListener) : parseLL(parser, rule, parserListener);
+
+        var reports = new ArrayList<Report>();
+        reports.addAll(lexerListener.getReports());
+        reports.addAll(parserListener.getReports());
+
+        if (reports.stream().anyMatch(r -> r.getType().equals(ReportType.ERROR))) {
+            return new JmmParserResult(null, reports, config);
+        }
+
+        var root = AntlrToJmmNodeConverter.convert(node, parser);
+
+        var ignoreList = AntlrParser.getIgnoreList(parser);
+        if (!ignoreList.isEmpty()) {
+            new JmmNodeCleanup(ignoreList).visit(root);
+        }
+
+        return new JmmParserResult(AstCanonicalizer.canonicalize(root), reports, config);
+    }
+
+    /**
+     * Tries the cheaper SLL prediction first, giving up at the first syntax error. SLL only fails on valid code for
+     * a few ambiguous inputs, so the input is parsed again with full LL (which also reports the errors) only then.
+     */
+    private static ParseTree parseTwoStage(Parser parser, Method rule, JmmErrorListener listener)
+            throws ReflectiveOperationException {
+
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+
+        try {
+            return (ParseTree) rule.invoke(parser);
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof ParseCancellationException)) {
+                throw e;
+            }
+        }
+
+        // rewinds the token stream, tokens already read by the lexer are not read again
+        parser.reset();
+        return parseLL(parser, rule, listener);
+    }
+
+    private static ParseTree parseLL(Parser parser, Method rule, JmmErrorListener listener)
+            throws ReflectiveOperationException {
+
+        parser.removeErrorListeners();
+        parser.addErrorListener(listener);
+        parser.setErrorHandler(new DefaultErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+
+        return (ParseTree) rule.invoke(parser);
+    }
+
+    private static class PooledParser {
+        private final JavammLexer lexer = new JavammLexer(null);
+        private final JavammParser parser = new JavammParser(null);
+    }
 }
@@ -0,0 +1,42 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.parser.JmmParser;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Creates the parser chosen by property 'ParserClass' of config.properties, the same property the tests use.
+ */
+public class JmmParsers {
+
+    private static final Path CONFIG_FILE = Path.of("config.properties");
+    private static final String PARSER_CLASS = "ParserClass";
+
+    /**
+     * @return the configured parser, or {@link JmmParserImpl} if there is no config.properties in the working directory
+     */
+    public static JmmParser fromConfigFile() {
+        if (!Files.isRegularFile(CONFIG_FILE)) {
+            return new JmmParserImpl();
+        }
+
+        var properties = new Properties();
+        try (var reader = new FileReader(CONFIG_FILE.toFile())) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read '" + CONFIG_FILE + "'", e);
+        }
+
+        var className = properties.getProperty(PARSER_CLASS, JmmParserImpl.class.getName()).trim();
+        try {
+            return (JmmParser) Class.forName(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new RuntimeException("Could not create parser '" + className + "' given in '" + CONFIG_FILE + "'", e);
+        }
+    }
+}
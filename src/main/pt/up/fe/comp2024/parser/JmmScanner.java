@@ -0,0 +1,220 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written scanner with the same tokens (and the same longest-match rules) as the lexer of Javamm.g4.
+ * <p>
+ * Positions follow ANTLR: lines start at 1, columns at 0.
+ */
+public class JmmScanner {
+
+    public enum TokenType {
+        EQUALS, SEMI, COMMA, STOP, LCURLY, RCURLY, LPAREN, RPAREN, LSQUARE, RSQUARE, EMPTY_SQUARES,
+        MUL, DIV, ADD, SUB, ELLIPSIS, AND, NEGATION, LESS,
+        FALSE, TRUE, THIS, NEW, LENGTH, MAIN, STRING,
+        CLASS, INT, BOOL, PUBLIC, RETURN, IMPORT, IF, ELSE, WHILE, STATIC, VOID, EXTENDS,
+        // comment markers that are not part of a comment, which no rule accepts
+        COMMENT_MARKER,
+        ID, INTEGER, EOF
+    }
+
+    private static final Map<String, TokenType> KEYWORDS = Map.ofEntries(
+            Map.entry("false", TokenType.FALSE),
+            Map.entry("true", TokenType.TRUE),
+            Map.entry("this", TokenType.THIS),
+            Map.entry("new", TokenType.NEW),
+            Map.entry("length", TokenType.LENGTH),
+            Map.entry("main", TokenType.MAIN),
+            Map.entry("String", TokenType.STRING),
+            Map.entry("class", TokenType.CLASS),
+            Map.entry("int", TokenType.INT),
+            Map.entry("boolean", TokenType.BOOL),
+            Map.entry("public", TokenType.PUBLIC),
+            Map.entry("return", TokenType.RETURN),
+            Map.entry("import", TokenType.IMPORT),
+            Map.entry("if", TokenType.IF),
+            Map.entry("else", TokenType.ELSE),
+            Map.entry("while", TokenType.WHILE),
+            Map.entry("static", TokenType.STATIC),
+            Map.entry("void", TokenType.VOID),
+            Map.entry("extends", TokenType.EXTENDS)
+    );
+
+    public static class Token {
+        private final TokenType type;
+        private final String text;
+        private final String line;
+        private final String column;
+
+        Token(TokenType type, String text, int line, int column) {
+            this.type = type;
+            this.text = text;
+            this.line = Integer.toString(line);
+            this.column = Integer.toString(column);
+        }
+
+        public TokenType getType() {
+            return type;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    private final String code;
+    private final List<Token> tokens;
+    private final List<Report> reports;
+
+    private int index;
+    private int line;
+    private int column;
+
+    public JmmScanner(String code) {
+        this(code, 1, 0);
+    }
+
+    /**
+     * @param line   line where the code starts, when it is part of a larger code
+     * @param column column where the code starts
+     */
+    public JmmScanner(String code, int line, int column) {
+        this.code = code;
+        this.tokens = new ArrayList<>();
+        this.reports = new ArrayList<>();
+        this.index = 0;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the tokens of the code, always ending with an EOF token
+     */
+    public List<Token> scan() {
+        while (index < code.length()) {
+            scanToken();
+        }
+
+        tokens.add(new Token(TokenType.EOF, "<EOF>", line, column));
+        return tokens;
+    }
+
+    public List<Report> getReports() {
+        return reports;
+    }
+
+    private void scanToken() {
+        char current = code.charAt(index);
+        char next = index + 1 < code.length() ? code.charAt(index + 1) : '\0';
+
+        switch (current) {
+            case ' ', '\t', '\n', '\r', '\f' -> advance(1);
+            case '/' -> {
+                if (next == '/') {
+                    int end = code.indexOf('\n', index);
+                    advance((end == -1 ? code.length() : end) - index);
+                } else if (next == '*') {
+                    int end = code.indexOf("*/", index + 2);
+                    if (end == -1) {
+                        add(TokenType.COMMENT_MARKER, 2);
+                    } else {
+                        advance(end + 2 - index);
+                    }
+                } else {
+                    add(TokenType.DIV, 1);
+                }
+            }
+            case '*' -> add(next == '/' ? TokenType.COMMENT_MARKER : TokenType.MUL, next == '/' ? 2 : 1);
+            case '=' -> add(TokenType.EQUALS, 1);
+            case ';' -> add(TokenType.SEMI, 1);
+            case ',' -> add(TokenType.COMMA, 1);
+            case '.' -> {
+                boolean ellipsis = next == '.' && index + 2 < code.length() && code.charAt(index + 2) == '.';
+                add(ellipsis ? TokenType.ELLIPSIS : TokenType.STOP, ellipsis ? 3 : 1);
+            }
+            case '{' -> add(TokenType.LCURLY, 1);
+            case '}' -> add(TokenType.RCURLY, 1);
+            case '(' -> add(TokenType.LPAREN, 1);
+            case ')' -> add(TokenType.RPAREN, 1);
+            case '[' -> add(next == ']' ? TokenType.EMPTY_SQUARES : TokenType.LSQUARE, next == ']' ? 2 : 1);
+            case ']' -> add(TokenType.RSQUARE, 1);
+            case '+' -> add(TokenType.ADD, 1);
+            case '-' -> add(TokenType.SUB, 1);
+            case '!' -> add(TokenType.NEGATION, 1);
+            case '<' -> add(TokenType.LESS, 1);
+            case '&' -> {
+                if (next == '&') {
+                    add(TokenType.AND, 2);
+                } else {
+                    unexpected(current);
+                }
+            }
+            default -> {
+                if (isLetter(current)) {
+                    int end = index + 1;
+                    while (end < code.length() && (isLetter(code.charAt(end)) || isDigit(code.charAt(end)))) {
+                        end++;
+                    }
+
+                    var text = code.substring(index, end);
+                    add(KEYWORDS.getOrDefault(text, TokenType.ID), end - index);
+                } else if (current == '0') {
+                    // a leading zero is a literal on its own, as in the grammar
+                    add(TokenType.INTEGER, 1);
+                } else if (isDigit(current)) {
+                    int end = index + 1;
+                    while (end < code.length() && isDigit(code.charAt(end))) {
+                        end++;
+                    }
+
+                    add(TokenType.INTEGER, end - index);
+                } else {
+                    unexpected(current);
+                }
+            }
+        }
+    }
+
+    private void add(TokenType type, int length) {
+        tokens.add(new Token(type, code.substring(index, index + length), line, column));
+        advance(length);
+    }
+
+    private void unexpected(char current) {
+        reports.add(Report.newError(Stage.LEXICAL, line, column, "token recognition error at: '" + current + "'", null));
+        advance(1);
+    }
+
+    private void advance(int length) {
+        for (int i = 0; i < length; i++, index++) {
+            if (code.charAt(index) == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,648 @@
+package pt.up.fe.comp2024.parser;
+
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.ast.JmmNodeImpl;
+import pt.up.fe.comp.jmm.ast.NodePosition;
+import pt.up.fe.comp.jmm.parser.JmmParser;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.ast.AstCanonicalizer;
+import pt.up.fe.comp2024.parser.JmmScanner.Token;
+import pt.up.fe.comp2024.parser.JmmScanner.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static pt.up.fe.comp2024.parser.JmmScanner.TokenType.*;
+
+/**
+ * Recursive-descent parser for Javamm.g4, with precedence climbing for expressions, that builds the AST directly
+ * instead of converting an ANTLR parse tree.
+ * <p>
+ * The AST is the same as the one of {@link JmmParserImpl}: same kinds, hierarchies, attributes and positions. The only
+ * exception are the internal labels ANTLR generates for token sets (e.g. '_tset408' in imports), which are not kept.
+ * Parsing stops at the first syntax error.
+ */
+public class PrattParserImpl implements JmmParser {
+
+    // precedences ANTLR gives to the alternatives of the left-recursive 'expr' rule (the earlier, the higher)
+    private static final int UNARY_OPERAND = 17;
+    private static final int LENGTH_PREC = 14;
+    private static final int METHOD_PREC = 13;
+    private static final int ACCESS_PREC = 12;
+    private static final int MUL_PREC = 8;
+    private static final int ADD_PREC = 7;
+    private static final int LESS_PREC = 6;
+    private static final int AND_PREC = 5;
+
+    @Override
+    public String getDefaultRule() {
+        return "program";
+    }
+
+    @Override
+    public JmmParserResult parse(String jmmCode, String startingRule, Map<String, String> config) {
+        try {
+            var scanner = new JmmScanner(jmmCode);
+            var tokens = scanner.scan();
+            if (!scanner.getReports().isEmpty()) {
+                return new JmmParserResult(null, scanner.getReports(), config);
+            }
+
+            var root = new RuleParser(tokens).parse(startingRule);
+            return new JmmParserResult(AstCanonicalizer.canonicalize(root), new ArrayList<>(), config);
+
+        } catch (SyntaxError e) {
+            var reports = new ArrayList<Report>();
+            reports.add(e.report);
+            return new JmmParserResult(null, reports, config);
+        } catch (Exception e) {
+            return JmmParserResult.newError(Report.newError(Stage.SYNTATIC, -1, -1, "Exception during parsing", e), config);
+        }
+    }
+
+    /**
+     * Parses a single method declaration that starts at the given line and column of a larger code, so that its nodes
+     * have the positions they have in that code.
+     *
+     * @return the method, or empty if the code is not exactly one method declaration
+     */
+    public Optional<JmmNode> parseMethod(String methodCode, int line, int column) {
+        var scanner = new JmmScanner(methodCode, line, column);
+        var tokens = scanner.scan();
+        if (!scanner.getReports().isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            var ruleParser = new RuleParser(tokens);
+            var method = ruleParser.methodDecl();
+
+            return ruleParser.check(EOF) ? Optional.of(AstCanonicalizer.canonicalize(method)) : Optional.empty();
+        } catch (SyntaxError e) {
+            return Optional.empty();
+        }
+    }
+
+    private static class SyntaxError extends RuntimeException {
+        private final Report report;
+
+        SyntaxError(Report report) {
+            super(report.getMessage(), null, false, false);
+            this.report = report;
+        }
+    }
+
+    private static class RuleParser {
+
+        private final List<Token> tokens;
+        private int current;
+
+        RuleParser(List<Token> tokens) {
+            this.tokens = tokens;
+            this.current = 0;
+        }
+
+        JmmNode parse(String rule) {
+            return switch (rule) {
+                case "program" -> program();
+                case "importDecl" -> importDecl();
+                case "classDeclRule" -> classDecl();
+                case "varDeclRule" -> varDecl();
+                case "methodDeclRule" -> methodDecl();
+                case "mainMethodDecl" -> innerMainMethod();
+                case "type" -> type();
+                case "param" -> param();
+                case "stmt" -> stmt();
+                case "expr" -> expr(0);
+                default -> throw new RuntimeException("Unknown starting rule '" + rule + "'");
+            };
+        }
+
+        private JmmNodeImpl program() {
+            var program = start("Program", null, peek());
+
+            while (check(IMPORT)) {
+                program.add(importDecl());
+            }
+
+            program.add(classDecl());
+            expect(EOF);
+
+            return end(program);
+        }
+
+        private JmmNodeImpl importDecl() {
+            var importDecl = start("Import", "ImportDecl", expect(IMPORT));
+
+            var names = new ArrayList<String>();
+            names.add(expectName().getText());
+
+            while (match(STOP)) {
+                names.add(expectName().getText());
+            }
+
+            expect(SEMI);
+            importDecl.putObject("names", names);
+
+            return end(importDecl);
+        }
+
+        private JmmNodeImpl classDecl() {
+            var classDecl = start("ClassDecl", "ClassDeclRule", expect(CLASS));
+            classDecl.put("name", expectName().getText());
+
+            if (match(EXTENDS)) {
+                classDecl.put("ultraSuper", expect(ID).getText());
+            }
+
+            expect(LCURLY);
+
+            while (isVarDecl()) {
+                classDecl.add(varDecl());
+            }
+
+            while (!check(RCURLY)) {
+                classDecl.add(methodDecl());
+            }
+
+            expect(RCURLY);
+
+            return end(classDecl);
+        }
+
+        private JmmNodeImpl varDecl() {
+            var varDecl = start("VarDecl", "VarDeclRule", peek());
+            varDecl.add(type());
+            varDecl.put("name", expectName().getText());
+            expect(SEMI);
+
+            return end(varDecl);
+        }
+
+        private JmmNodeImpl methodDecl() {
+            int afterPublic = check(PUBLIC) ? current + 1 : current;
+
+            if (tokens.get(afterPublic).getType() == STATIC) {
+                var mainMethod = start("MainMethod", "MethodDeclRule", peek());
+                mainMethod.putObject("isPublic", false);
+                mainMethod.add(innerMainMethod());
+
+                return end(mainMethod);
+            }
+
+            var methodDecl = start("MethodDecl", "MethodDeclRule", peek());
+            methodDecl.putObject("isPublic", match(PUBLIC));
+            methodDecl.add(type());
+            methodDecl.put("name", expectName().getText());
+
+            expect(LPAREN);
+            if (!check(RPAREN)) {
+                methodDecl.add(param());
+
+                while (match(COMMA)) {
+                    methodDecl.add(param());
+                }
+            }
+            expect(RPAREN);
+
+            methodBody(methodDecl);
+
+            return end(methodDecl);
+        }
+
+        private JmmNodeImpl innerMainMethod() {
+            var innerMainMethod = start("InnerMainMethod", "MainMethodDecl", peek());
+
+            match(PUBLIC);
+            expect(STATIC);
+            expect(VOID);
+            expect(MAIN);
+            expect(LPAREN);
+            expect(STRING);
+            if (!match(EMPTY_SQUARES)) {
+                expect(LSQUARE);
+                expect(RSQUARE);
+            }
+            innerMainMethod.put("name", expect(ID).getText());
+            expect(RPAREN);
+
+            methodBody(innerMainMethod);
+
+            return end(innerMainMethod);
+        }
+
+        private void methodBody(JmmNodeImpl method) {
+            expect(LCURLY);
+
+            while (isVarDecl()) {
+                method.add(varDecl());
+            }
+
+            while (!check(RCURLY)) {
+                method.add(stmt());
+            }
+
+            expect(RCURLY);
+        }
+
+        private JmmNodeImpl param() {
+            var param = start("Param", null, peek());
+            param.add(type());
+            param.put("name", expectName().getText());
+
+            return end(param);
+        }
+
+        private JmmNodeImpl type() {
+            var token = peek();
+
+            String kind = switch (token.getType()) {
+                case INT -> {
+                    if (peek(1).getType() == EMPTY_SQUARES || (peek(1).getType() == LSQUARE && peek(2).getType() == RSQUARE)) {
+                        yield "ArrayType";
+                    }
+                    yield peek(1).getType() == ELLIPSIS ? "VarArgType" : "IntegerType";
+                }
+                case BOOL -> "BoolType";
+                case STRING -> "StringType";
+                case MAIN, LENGTH, ID -> "AbstractDataType";
+                default -> throw error(token, "a type");
+            };
+
+            var type = start(kind, "Type", next());
+            type.put("name", token.getText());
+
+            if (kind.equals("ArrayType") && !match(EMPTY_SQUARES)) {
+                expect(LSQUARE);
+                expect(RSQUARE);
+            } else if (kind.equals("VarArgType")) {
+                expect(ELLIPSIS);
+            }
+
+            return end(type);
+        }
+
+        /**
+         * A variable declaration is a type followed by a name, which never starts a statement, and which starts a method
+         * only when followed by its parameters.
+         */
+        private boolean isVarDecl() {
+            int afterType = switch (peek().getType()) {
+                case INT -> {
+                    if (peek(1).getType() == EMPTY_SQUARES || peek(1).getType() == ELLIPSIS) yield 2;
+                    if (peek(1).getType() == LSQUARE && peek(2).getType() == RSQUARE) yield 3;
+                    yield 1;
+                }
+                case BOOL, STRING, MAIN, LENGTH, ID -> 1;
+                default -> -1;
+            };
+
+            return afterType != -1 && isName(peek(afterType)) && peek(afterType + 1).getType() != LPAREN;
+        }
+
+        private JmmNodeImpl stmt() {
+            var token = peek();
+
+            switch (token.getType()) {
+                case RETURN -> {
+                    var returnStmt = start("ReturnStmt", "Stmt", next());
+                    if (!check(SEMI)) {
+                        returnStmt.add(expr(0));
+                    }
+                    expect(SEMI);
+
+                    return end(returnStmt);
+                }
+                case LCURLY -> {
+                    var scopeStmt = start("ScopeStmt", "Stmt", next());
+                    while (!check(RCURLY)) {
+                        scopeStmt.add(stmt());
+                    }
+                    expect(RCURLY);
+
+                    return end(scopeStmt);
+                }
+                case IF -> {
+                    var ifElseStmt = start("IfElseStmt", "Stmt", next());
+                    expect(LPAREN);
+                    ifElseStmt.add(expr(0));
+                    expect(RPAREN);
+                    ifElseStmt.add(stmt());
+                    expect(ELSE);
+                    ifElseStmt.add(stmt());
+
+                    return end(ifElseStmt);
+                }
+                case WHILE -> {
+                    var whileStmt = start("WhileStmt", "Stmt", next());
+                    expect(LPAREN);
+                    whileStmt.add(expr(0));
+                    expect(RPAREN);
+                    whileStmt.add(stmt());
+
+                    return end(whileStmt);
+                }
+                default -> {
+                    var expr = expr(0);
+
+                    // 'a[i] = x' is also a VarListAssignStmt, but ANTLR resolves the ambiguity with the first alternative
+                    if (match(EQUALS)) {
+                        var assignStmt = startAt("AssignStmt", "Stmt", expr);
+                        var value = expr(0);
+                        expect(SEMI);
+
+                        assignStmt.putObject("left", expr);
+                        assignStmt.putObject("value", value);
+                        assignStmt.add(expr);
+                        assignStmt.add(value);
+
+                        return end(assignStmt);
+                    }
+
+                    var exprStmt = startAt("ExprStmt", "Stmt", expr);
+                    expect(SEMI);
+                    exprStmt.add(expr);
+
+                    return end(exprStmt);
+                }
+            }
+        }
+
+        /**
+         * Parses an expression whose operators have at least the given precedence.
+         */
+        private JmmNodeImpl expr(int minPrecedence) {
+            var left = primary();
+
+            while (true) {
+                var token = peek();
+
+                switch (token.getType()) {
+                    case STOP -> {
+                        if (peek(1).getType() == LENGTH && LENGTH_PREC >= minPrecedence) {
+                            var length = startAt("Length", "Expr", left);
+                            length.put("op", next().getText());
+                            expect(LENGTH);
+                            length.add(left);
+                            left = end(length);
+                        } else if (METHOD_PREC >= minPrecedence) {
+                            left = varMethod(left);
+                        } else {
+                            return left;
+                        }
+                    }
+                    case LSQUARE -> {
+                        if (ACCESS_PREC < minPrecedence) {
+                            return left;
+                        }
+
+                        var accessArray = startAt("AccessArray", "Expr", left);
+                        next();
+                        var index = expr(0);
+                        accessArray.put("op", expect(RSQUARE).getText());
+                        accessArray.putObject("var", left);
+                        accessArray.putObject("index", index);
+                        accessArray.add(left);
+                        accessArray.add(index);
+                        left = end(accessArray);
+                    }
+                    case MUL, DIV, ADD, SUB, LESS, AND -> {
+                        int precedence = precedence(token.getType());
+                        if (precedence < minPrecedence) {
+                            return left;
+                        }
+
+                        var binaryExpr = startAt("BinaryExpr", "Expr", left);
+                        binaryExpr.put("op", next().getText());
+                        // operators are left-associative, the right operand only takes tighter operators
+                        var right = expr(precedence + 1);
+                        binaryExpr.putObject("left", left);
+                        binaryExpr.putObject("right", right);
+                        binaryExpr.add(left);
+                        binaryExpr.add(right);
+                        left = end(binaryExpr);
+                    }
+                    default -> {
+                        return left;
+                    }
+                }
+            }
+        }
+
+        private JmmNodeImpl varMethod(JmmNodeImpl target) {
+            var varMethod = startAt("VarMethod", "Expr", target);
+            varMethod.put("op", expect(STOP).getText());
+            varMethod.put("name", expect(ID).getText());
+            varMethod.add(target);
+
+            expect(LPAREN);
+            if (!check(RPAREN)) {
+                varMethod.add(expr(0));
+
+                while (match(COMMA)) {
+                    varMethod.add(expr(0));
+                }
+            }
+            expect(RPAREN);
+
+            return end(varMethod);
+        }
+
+        private JmmNodeImpl primary() {
+            var token = peek();
+
+            switch (token.getType()) {
+                case NEGATION -> {
+                    var unary = start("Unary", "Expr", next());
+                    unary.put("op", token.getText());
+                    unary.add(expr(UNARY_OPERAND));
+
+                    return end(unary);
+                }
+                case LPAREN -> {
+                    var parenthesis = start("Parenthesis", "Expr", next());
+                    parenthesis.put("openingParentheses", token.getText());
+                    parenthesis.add(expr(0));
+                    parenthesis.put("closingParentheses", expect(RPAREN).getText());
+
+                    return end(parenthesis);
+                }
+                case NEW -> {
+                    if (peek(1).getType() == INT) {
+                        var newInt = start("NewInt", "Expr", next());
+                        newInt.put("op", token.getText());
+                        expect(INT);
+                        expect(LSQUARE);
+                        var size = expr(0);
+                        expect(RSQUARE);
+                        newInt.putObject("size", size);
+                        newInt.add(size);
+
+                        return end(newInt);
+                    }
+
+                    var newClass = start("NewClass", "Expr", next());
+                    newClass.put("op", token.getText());
+                    newClass.put("name", check(STRING) ? next().getText() : expect(ID).getText());
+                    expect(LPAREN);
+                    expect(RPAREN);
+
+                    return end(newClass);
+                }
+                case LSQUARE -> {
+                    var initArray = start("InitArray", "Expr", next());
+
+                    if (!check(RSQUARE)) {
+                        initArray.add(expr(0));
+
+                        while (match(COMMA)) {
+                            initArray.add(expr(0));
+                        }
+                    }
+
+                    // 'op' labels every bracket and comma, so it ends up with the closing bracket
+                    initArray.put("op", expect(RSQUARE).getText());
+
+                    return end(initArray);
+                }
+                case EMPTY_SQUARES -> {
+                    return end(start("InitArray", "Expr", next()));
+                }
+                case INTEGER -> {
+                    return literal("IntegerLiteral", "value");
+                }
+                case THIS -> {
+                    return literal("This", "value");
+                }
+                case TRUE, FALSE -> {
+                    return literal("Bool", "value");
+                }
+                case MAIN, LENGTH, ID -> {
+                    return literal("VarRefExpr", "name");
+                }
+                default -> throw error(token, "an expression");
+            }
+        }
+
+        private JmmNodeImpl literal(String kind, String attribute) {
+            var token = next();
+            var literal = start(kind, "Expr", token);
+            literal.put(attribute, token.getText());
+
+            return end(literal);
+        }
+
+        private static int precedence(TokenType operator) {
+            return switch (operator) {
+                case MUL, DIV -> MUL_PREC;
+                case ADD, SUB -> ADD_PREC;
+                case LESS -> LESS_PREC;
+                case AND -> AND_PREC;
+                default -> throw new RuntimeException("Not a binary operator: " + operator);
+            };
+        }
+
+        private static JmmNodeImpl start(String kind, String superKind, Token startToken) {
+            var node = new JmmNodeImpl(kind);
+            if (superKind != null) {
+                node.setHierarchy(List.of(kind, superKind));
+            }
+
+            node.put(NodePosition.LINE_START.getKey(), startToken.getLine());
+            node.put(NodePosition.COL_START.getKey(), startToken.getColumn());
+
+            return node;
+        }
+
+        /**
+         * Starts a node at the same position as the given node, for left-recursive rules.
+         */
+        private static JmmNodeImpl startAt(String kind, String superKind, JmmNode first) {
+            var node = new JmmNodeImpl(kind);
+            node.setHierarchy(List.of(kind, superKind));
+
+            node.put(NodePosition.LINE_START.getKey(), first.get(NodePosition.LINE_START.getKey()));
+            node.put(NodePosition.COL_START.getKey(), first.get(NodePosition.COL_START.getKey()));
+
+            return node;
+        }
+
+        /**
+         * Nodes end at the start of their last token, as in ANTLR.
+         */
+        private JmmNodeImpl end(JmmNodeImpl node) {
+            var last = tokens.get(current - 1);
+            node.put(NodePosition.LINE_END.getKey(), last.getLine());
+            node.put(NodePosition.COL_END.getKey(), last.getColumn());
+
+            return node;
+        }
+
+        private Token peek() {
+            return tokens.get(current);
+        }
+
+        private Token peek(int offset) {
+            return tokens.get(Math.min(current + offset, tokens.size() - 1));
+        }
+
+        private Token next() {
+            var token = tokens.get(current);
+            if (token.getType() != EOF) {
+                current++;
+            }
+
+            return token;
+        }
+
+        private boolean check(TokenType type) {
+            return peek().getType() == type;
+        }
+
+        private boolean match(TokenType type) {
+            if (!check(type)) {
+                return false;
+            }
+
+            current++;
+            return true;
+        }
+
+        private Token expect(TokenType type) {
+            if (type == EOF && check(EOF)) {
+                // EOF is the last token of the program, positions of the program end at it
+                current = tokens.size();
+                return tokens.get(current - 1);
+            }
+
+            if (!check(type)) {
+                throw error(peek(), type.name());
+            }
+
+            return next();
+        }
+
+        private static boolean isName(Token token) {
+            var type = token.getType();
+            return type == MAIN || type == LENGTH || type == ID;
+        }
+
+        private Token expectName() {
+            if (!isName(peek())) {
+                throw error(peek(), "an identifier");
+            }
+
+            return next();
+        }
+
+        private static SyntaxError error(Token token, String expected) {
+            var message = "mismatched input '" + token.getText() + "' expecting " + expected;
+            return new SyntaxError(Report.newError(Stage.SYNTATIC, Integer.parseInt(token.getLine()),
+                    Integer.parseInt(token.getColumn()), message, null));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package pt.up.fe.comp2024.profiling;
+
+import pt.up.fe.comp2024.utils.JsonUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records the wall time and the allocated bytes of each step of a compilation.
+ * <p>
+ * A profiler is active for the thread that started it, until it is stopped. Steps are measured with
+ * {@link #time(String, Supplier)}, which does nothing besides running the step when no profiler is active. Steps
+ * measured inside other steps are named after their path (e.g. "analysis/UndeclaredMethod").
+ */
+public class CompileProfiler {
+
+    private static final ThreadLocal<CompileProfiler> ACTIVE = new ThreadLocal<>();
+
+    private final String input;
+    private final List<Step> steps;
+    private final transient Deque<String> path;
+
+    private CompileProfiler(String input) {
+        this.input = input;
+        this.steps = new ArrayList<>();
+        this.path = new ArrayDeque<>();
+    }
+
+    /**
+     * Starts profiling the compilation of the given input in the current thread.
+     */
+    public static CompileProfiler start(String input) {
+        var profiler = new CompileProfiler(input);
+        ACTIVE.set(profiler);
+        return profiler;
+    }
+
+    public void stop() {
+        if (ACTIVE.get() == this) {
+            ACTIVE.remove();
+        }
+    }
+
+    /**
+     * @return whether a profiler is active in the current thread, for steps that are measured piece by piece and only
+     * want to pay for it when the profile is kept (see {@link #add(String, long)})
+     */
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    public static <T> T time(String name, Supplier<T> step) {
+        var profiler = ACTIVE.get();
+        if (profiler == null) {
+            return step.get();
+        }
+
+        return profiler.record(name, step);
+    }
+
+    public static void time(String name, Runnable step) {
+        time(name, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /**
+     * Adds a step whose wall time was measured by the caller (e.g. summed over many small pieces of work, or over other
+     * threads), inside the step being measured. Its allocated bytes are not known.
+     */
+    public static void add(String name, long wallNanos) {
+        var profiler = ACTIVE.get();
+        if (profiler == null) {
+            return;
+        }
+
+        var step = new Step(profiler.getFullName(name));
+        step.wallNanos = wallNanos;
+        step.allocatedBytes = -1;
+        profiler.steps.add(step);
+    }
+
+    private String getFullName(String name) {
+        return path.isEmpty() ? name : path.peekLast() + "/" + name;
+    }
+
+    private <T> T record(String name, Supplier<T> body) {
+        String fullName = getFullName(name);
+
+        // added before running, so that steps are listed in the order they started
+        var step = new Step(fullName);
+        steps.add(step);
+        path.addLast(fullName);
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            step.wallNanos = System.nanoTime() - start;
+            step.allocatedBytes = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+            path.removeLast();
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the JVM cannot measure it
+     */
+    private static long allocatedBytes() {
+        var threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean allocationBean
+                && allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return allocationBean.getCurrentThreadAllocatedBytes();
+        }
+
+        return -1;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public String toJson() {
+        return JsonUtils.toJson(this);
+    }
+
+    public static class Step {
+        private final String name;
+        private long wallNanos;
+        private long allocatedBytes;
+
+        private Step(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+}
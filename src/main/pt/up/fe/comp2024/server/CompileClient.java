@@ -0,0 +1,46 @@
+package pt.up.fe.comp2024.server;
+
+import pt.up.fe.comp2024.server.CompileProtocol.Request;
+import pt.up.fe.comp2024.server.CompileProtocol.Response;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Sends compile requests to a {@link CompileServer} listening on a Unix domain socket.
+ */
+public class CompileClient {
+
+    private final Path socketPath;
+
+    public CompileClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * @param args launcher arguments for the compilation; input paths should be absolute, since they are resolved by
+     *             the server
+     */
+    public Response compile(List<String> args) throws IOException {
+        try (var channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            var out = new PrintWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+            out.println(CompileProtocol.toJson(new Request("0", args)));
+            out.flush();
+
+            var in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("Compile server at '" + socketPath + "' closed the connection without answering");
+            }
+
+            return CompileProtocol.parseResponse(line);
+        }
+    }
+}
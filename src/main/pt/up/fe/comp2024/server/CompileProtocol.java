@@ -0,0 +1,116 @@
+package pt.up.fe.comp2024.server;
+
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.utils.JsonUtils;
+import pt.up.fe.comp2024.utils.ReportUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Messages exchanged between {@link CompileClient} and {@link CompileServer}.
+ * <p>
+ * Each message is a single line of JSON. A request carries the same command-line arguments accepted by the launcher
+ * (e.g. "-i=Foo.jmm", "-o", "-r=2"), optionally the name of a session, and the response carries the reports and the
+ * generated code.
+ */
+public class CompileProtocol {
+
+    public static String toJson(Object message) {
+        return JsonUtils.toJson(message);
+    }
+
+    public static Request parseRequest(String line) {
+        return JsonUtils.fromJson(line, Request.class);
+    }
+
+    public static Response parseResponse(String line) {
+        return JsonUtils.fromJson(line, Response.class);
+    }
+
+    public static class Request {
+        private final String id;
+        private final List<String> args;
+        private final String session;
+
+        public Request(String id, List<String> args) {
+            this(id, args, null);
+        }
+
+        /**
+         * @param session name of the {@link pt.up.fe.comp2024.incremental.CompileSession} that compiles the file, so
+         *                that only what changed since the last request of the same session is compiled again; can be
+         *                null
+         */
+        public Request(String id, List<String> args, String session) {
+            this.id = id;
+            this.args = args;
+            this.session = session;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public List<String> getArgs() {
+            return args == null ? List.of() : args;
+        }
+
+        public Optional<String> getSession() {
+            return Optional.ofNullable(session);
+        }
+    }
+
+    public static class Response {
+        private final String id;
+        private final boolean success;
+        private final List<Report> reports;
+        private final String ollirCode;
+        private final String jasminCode;
+        private final long timeMillis;
+
+        private Response(String id, boolean success, List<Report> reports, String ollirCode, String jasminCode,
+                         long timeMillis) {
+            this.id = id;
+            this.success = success;
+            this.reports = reports;
+            this.ollirCode = ollirCode;
+            this.jasminCode = jasminCode;
+            this.timeMillis = timeMillis;
+        }
+
+        public static Response of(String id, CompilationResult result, long timeMillis) {
+            return new Response(id, !result.hasErrors(), ReportUtils.detachExceptions(result.getReports()),
+                    result.getOllirCode().orElse(null), result.getJasminCode().orElse(null), timeMillis);
+        }
+
+        public static Response error(String id, Report report) {
+            return new Response(id, false, ReportUtils.detachExceptions(List.of(report)), null, null, 0);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public List<Report> getReports() {
+            return reports == null ? List.of() : reports;
+        }
+
+        public String getOllirCode() {
+            return ollirCode;
+        }
+
+        public String getJasminCode() {
+            return jasminCode;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package pt.up.fe.comp2024.server;
+
+import com.google.gson.JsonParseException;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.incremental.CompileSession;
+import pt.up.fe.comp2024.server.CompileProtocol.Request;
+import pt.up.fe.comp2024.server.CompileProtocol.Response;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived compiler that answers compile requests, so that JVM startup, class loading and the ANTLR caches are only
+ * paid once.
+ * <p>
+ * Requests are read one per line (see {@link CompileProtocol}), either from stdin (answering on stdout) or from the
+ * connections to a Unix domain socket, which are served concurrently. Requests of the same session are compiled one at
+ * a time.
+ */
+public class CompileServer implements Closeable {
+
+    // small program that goes through every stage, used to load and warm up the compiler before the first request
+    private static final String WARM_UP_CODE = """
+            import io;
+            class WarmUp {
+                int field;
+
+                public int sum(int[] values) {
+                    int i;
+                    int total;
+                    i = 0;
+                    total = 0;
+                    while (i < values.length) {
+                        if (total < 100 && !false) {
+                            total = total + values[i] * 2;
+                        } else {
+                            total = total - 1;
+                        }
+                        i = i + 1;
+                    }
+                    field = total;
+                    return total;
+                }
+
+                public static void main(String[] args) {
+                    WarmUp warmUp;
+                    int[] values;
+                    warmUp = new WarmUp();
+                    values = new int[3];
+                    values[0] = 5;
+                    io.println(warmUp.sum(values));
+                }
+            }
+            """;
+
+    private final JmmCompiler compiler;
+    private final int threads;
+    private final Map<String, CompileSession> sessions;
+
+    // the channel of the socket being served, if any
+    private volatile ServerSocketChannel serverChannel;
+
+    public CompileServer(int threads) {
+        this(new JmmCompiler(), threads);
+    }
+
+    public CompileServer(JmmCompiler compiler, int threads) {
+        this.compiler = compiler;
+        this.threads = threads;
+        this.sessions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Compiles a small program with and without '-o'.
+     *
+     * @return false if the warm-up program did not compile
+     */
+    public boolean warmUp() {
+        // bypasses the cache, a cached result would not warm up anything
+        var compiler = new JmmCompiler();
+
+        Map<String, String> config = CompilerConfig.getDefault();
+        boolean success = !compiler.compile(WARM_UP_CODE, config).hasErrors();
+
+        Map<String, String> optimizedConfig = CompilerConfig.getDefault();
+        optimizedConfig.put(CompilerConfig.getOptimizeKey(), "true");
+        success &= !compiler.compile(WARM_UP_CODE, optimizedConfig).hasErrors();
+
+        return success;
+    }
+
+    public Response handle(String line) {
+        Request request;
+        try {
+            request = CompileProtocol.parseRequest(line);
+        } catch (JsonParseException e) {
+            return Response.error(null, Report.newError(Stage.OTHER, -1, -1, "Invalid request", e));
+        }
+
+        if (request == null) {
+            return Response.error(null, Report.newError(Stage.OTHER, -1, -1, "Empty request", null));
+        }
+
+        Map<String, String> config;
+        try {
+            config = CompilerConfig.parseArgs(request.getArgs().toArray(String[]::new));
+        } catch (RuntimeException e) {
+            return Response.error(request.getId(), Report.newError(Stage.OTHER, -1, -1, "Invalid arguments", e));
+        }
+
+        var inputFile = CompilerConfig.getInputFile(config);
+        if (inputFile.isEmpty()) {
+            return Response.error(request.getId(),
+                    Report.newError(Stage.OTHER, -1, -1, "Only single-file compilations ('-i') can be requested", null));
+        }
+
+        long start = System.nanoTime();
+        String code;
+        try {
+            code = Files.readString(inputFile.get().toPath());
+        } catch (IOException e) {
+            return Response.error(request.getId(),
+                    Report.newError(Stage.OTHER, -1, -1, "Could not read input file '" + inputFile.get() + "'", e));
+        }
+
+        CompilationResult result;
+        if (request.getSession().isPresent()) {
+            // a session only compiles with the configuration it was created with
+            var session = sessions.compute(request.getSession().get(), (name, previous) ->
+                    previous == null || !previous.getConfig().equals(config) ? new CompileSession(config) : previous);
+
+            synchronized (session) {
+                result = session.update(code);
+            }
+        } else {
+            result = compiler.compile(code, config);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        return Response.of(request.getId(), result, elapsedMillis);
+    }
+
+    /**
+     * Answers every request of the given stream, in order, until the end of the input. A request that makes the
+     * server fail gets an error response, and does not stop the others.
+     */
+    public void serve(BufferedReader in, PrintWriter out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+
+            out.println(CompileProtocol.toJson(handleOrFail(line)));
+            out.flush();
+        }
+    }
+
+    private Response handleOrFail(String line) {
+        try {
+            return handle(line);
+        } catch (RuntimeException e) {
+            return Response.error(getRequestId(line), Report.newError(Stage.OTHER, -1, -1, "Exception while handling request", e));
+        }
+    }
+
+    /**
+     * @return the id of the request, or null if the line is not a valid request
+     */
+    private static String getRequestId(String line) {
+        try {
+            var request = CompileProtocol.parseRequest(line);
+            return request == null ? null : request.getId();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    public void serveStdio() throws IOException {
+        // stdout is reserved for responses, anything else the compiler prints goes to stderr
+        var out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        System.setOut(System.err);
+
+        serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)), out);
+    }
+
+    /**
+     * Serves the connections to the socket until {@link #close()} is called.
+     */
+    public void serveSocket(Path socketPath) throws IOException {
+        // a socket file left behind by a previous server would make the bind fail
+        Files.deleteIfExists(socketPath);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (var serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            this.serverChannel = serverChannel;
+            serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> socketPath.toFile().delete()));
+
+            System.err.println("Compile server listening on " + socketPath);
+
+            while (true) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    // closed by close()
+                    return;
+                }
+
+                pool.submit(() -> serveConnection(channel));
+            }
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Stops {@link #serveSocket(Path)} from accepting connections; the connections already accepted are still served.
+     */
+    @Override
+    public void close() throws IOException {
+        var channel = this.serverChannel;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void serveConnection(SocketChannel channel) {
+        try (channel) {
+            var in = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            var out = new PrintWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+
+            serve(in, out);
+        } catch (IOException e) {
+            System.err.println("Lost connection to client: " + e.getMessage());
+        }
+    }
+}
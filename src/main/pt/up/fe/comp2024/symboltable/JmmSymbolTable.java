@@ -6,10 +6,8 @@ import pt.up.fe.comp.jmm.analysis.table.Type;
 import pt.up.fe.comp2024.ast.TypeUtils;
 import pt.up.fe.specs.util.exceptions.NotImplementedException;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JmmSymbolTable implements SymbolTable {
 
@@ -21,6 +19,14 @@ public class JmmSymbolTable implements SymbolTable {
     private final List<String> imports;
     private final String superSymbol;
 
+    // symbols visible in each method, by name, with the same precedence as a linear search: parameters, locals, fields
+    private final Map<String, Map<String, ScopedSymbol>> methodScopes;
+    private final Map<String, ScopedSymbol> fieldScope;
+    // symbols of any method (the first one that declares the name) and then fields
+    private final Map<String, ScopedSymbol> anyMethodScope;
+    // types of the classes used in the code, so that each class has a single Type
+    private final Map<String, Type> classTypes;
+
     public JmmSymbolTable(String className,
                           List<String> methods,
                           Map<String, Type> returnTypes,
@@ -35,6 +41,51 @@ public class JmmSymbolTable implements SymbolTable {
         this.locals = locals;
         this.imports = imports;
         this.superSymbol = superSymbol;
+
+        this.classTypes = new ConcurrentHashMap<>();
+        this.fieldScope = new HashMap<>();
+        addToScope(fieldScope, getFields(), ScopedSymbol.Scope.FIELD);
+
+        this.methodScopes = new HashMap<>();
+        this.anyMethodScope = new HashMap<>();
+        for (String method : methods) {
+            Map<String, ScopedSymbol> scope = new HashMap<>();
+            addToScope(scope, params.get(method), ScopedSymbol.Scope.PARAMETER);
+            addToScope(scope, locals.get(method), ScopedSymbol.Scope.LOCAL);
+
+            scope.forEach(anyMethodScope::putIfAbsent);
+            fieldScope.forEach(scope::putIfAbsent);
+            methodScopes.put(method, scope);
+        }
+        fieldScope.forEach(anyMethodScope::putIfAbsent);
+    }
+
+    private static void addToScope(Map<String, ScopedSymbol> scope, List<Symbol> symbols, ScopedSymbol.Scope kind) {
+        if (symbols == null) return;
+
+        for (Symbol symbol : symbols) {
+            scope.putIfAbsent(symbol.getName(), new ScopedSymbol(symbol, kind));
+        }
+    }
+
+    public Type getClassType(String name) {
+        return classTypes.computeIfAbsent(name, className -> new Type(className, false));
+    }
+
+    /**
+     * @return the symbol a name refers to inside a method (a parameter, a local or a field, in this order), or a field
+     * if the method does not exist
+     */
+    public Optional<ScopedSymbol> resolve(String methodSignature, String name) {
+        Map<String, ScopedSymbol> scope = methodScopes.getOrDefault(methodSignature, fieldScope);
+        return Optional.ofNullable(scope.get(name));
+    }
+
+    /**
+     * @return the symbol a name refers to in the first method that declares it, or a field
+     */
+    public Optional<ScopedSymbol> resolveInAnyMethod(String name) {
+        return Optional.ofNullable(anyMethodScope.get(name));
     }
 
     @Override
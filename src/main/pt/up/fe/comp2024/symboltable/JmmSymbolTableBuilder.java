@@ -70,7 +70,7 @@ public class JmmSymbolTableBuilder {
         var mainMethod = classDecl.getChildren(MAIN_METHOD);
         if (!mainMethod.isEmpty()) {
             var c = mainMethod.get(0).getChildren(INNER_MAIN_METHOD);
-            map.put("main", new ArrayList<>(List.of(new Symbol(new Type(TypeUtils.getStringTypeName(), true), c.get(0).get("name")))));
+            map.put("main", new ArrayList<>(List.of(new Symbol(TypeUtils.getStringArrayType(), c.get(0).get("name")))));
         }
 
         classDecl.getChildren(MAIN_METHOD)
@@ -130,13 +130,13 @@ public class JmmSymbolTableBuilder {
         Type type;
         switch (type_node.getKind()) {
             case "IntegerType":
-                type = new Type(TypeUtils.getIntTypeName(), false);
+                type = TypeUtils.getIntType();
                 break;
             case "BoolType":
-                type = new Type(TypeUtils.getBoolTypeName(), false);
+                type = TypeUtils.getBoolType();
                 break;
             case "ArrayType":
-                type = new Type(TypeUtils.getIntTypeName(), true);
+                type = TypeUtils.getIntArrayType();
                 break;
             case "AbstractDataType":
                 type = new Type(type_node.get("name"), false);
@@ -145,7 +145,7 @@ public class JmmSymbolTableBuilder {
                 type = new Type(TypeUtils.getVarargTypeName(), true);
                 break;
             case "StringType":
-                type = new Type(TypeUtils.getStringTypeName(), false);
+                type = TypeUtils.getStringType();
                 break;
             default:
                 type = new Type("unknown", false);
@@ -157,10 +157,10 @@ public class JmmSymbolTableBuilder {
 
     private static Type getType(JmmNode node) {
         return switch (node.getKind()) {
-            case "IntegerType" -> new Type(TypeUtils.getIntTypeName(), false);
-            case "BoolType" -> new Type(TypeUtils.getBoolTypeName(), false);
-            case "ArrayType" -> new Type(TypeUtils.getIntTypeName(), true);
-            case "StringType" -> new Type(TypeUtils.getStringTypeName(), false);
+            case "IntegerType" -> TypeUtils.getIntType();
+            case "BoolType" -> TypeUtils.getBoolType();
+            case "ArrayType" -> TypeUtils.getIntArrayType();
+            case "StringType" -> TypeUtils.getStringType();
             case "AbstractDataType" -> new Type(node.get("name"), false);
             default -> new Type("unknown", false);
         };
@@ -0,0 +1,19 @@
+package pt.up.fe.comp2024.symboltable;
+
+import pt.up.fe.comp.jmm.analysis.table.Symbol;
+
+/**
+ * A symbol resolved by {@link JmmSymbolTable#resolve(String, String)}, together with the scope it was declared in.
+ */
+public record ScopedSymbol(Symbol symbol, Scope scope) {
+
+    public enum Scope {
+        PARAMETER,
+        LOCAL,
+        FIELD
+    }
+
+    public boolean isField() {
+        return scope == Scope.FIELD;
+    }
+}
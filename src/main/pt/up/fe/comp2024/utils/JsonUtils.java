@@ -0,0 +1,33 @@
+package pt.up.fe.comp2024.utils;
+
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class JsonUtils {
+
+    // exceptions are not serialized (see ReportUtils.detachExceptions), so Gson must not try to reflect on them
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .setExclusionStrategies(new ExclusionStrategy() {
+                @Override
+                public boolean shouldSkipField(FieldAttributes field) {
+                    return Throwable.class.isAssignableFrom(field.getDeclaredClass());
+                }
+
+                @Override
+                public boolean shouldSkipClass(Class<?> aClass) {
+                    return false;
+                }
+            })
+            .create();
+
+    public static String toJson(Object object) {
+        return GSON.toJson(object);
+    }
+
+    public static <T> T fromJson(String json, Class<T> aClass) {
+        return GSON.fromJson(json, aClass);
+    }
+}
@@ -49,4 +49,18 @@ public class ReportUtils {
 
         return reports.stream().anyMatch(r -> r.getType() == ReportType.ERROR);
     }
+
+    /**
+     * Copies the reports without their exceptions, keeping the exception message in the report message, so that they
+     * can be serialized.
+     */
+    public static List<Report> detachExceptions(List<Report> reports) {
+
+        return reports.stream()
+                .map(report -> new Report(report.getType(), report.getStage(), report.getLine(), report.getColumn(),
+                        report.getException()
+                                .map(e -> report.getMessage() + " (exception: " + e.getMessage() + ")")
+                                .orElse(report.getMessage())))
+                .toList();
+    }
 }
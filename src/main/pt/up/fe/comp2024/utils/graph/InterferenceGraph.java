@@ -0,0 +1,144 @@
+package pt.up.fe.comp2024.utils.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An undirected graph whose nodes are the ints from 0 to size - 1, each with an optional color.
+ * <p>
+ * Edges are kept both in a triangular bit matrix, which answers {@link #interferes(int, int)} in constant time and
+ * keeps an edge from being added twice, and in an adjacency array per node, to iterate over the neighbours.
+ * <p>
+ * The graph also keeps the moves, the pairs of nodes copied from one to the other, which are better off with the same
+ * color.
+ */
+public class InterferenceGraph {
+    public static final int NO_COLOR = -1;
+
+    private final int size;
+    private final BitSet matrix;
+    private final int[][] adjacency;
+    private final int[] degrees;
+    private final int[] colors;
+
+    private int[] moves;
+    private int movesSize;
+
+    public InterferenceGraph(int size) {
+        this.size = size;
+        this.matrix = new BitSet();
+        this.adjacency = new int[size][];
+        this.degrees = new int[size];
+        this.colors = new int[size];
+
+        Arrays.fill(this.adjacency, new int[0]);
+        Arrays.fill(this.colors, NO_COLOR);
+        this.moves = new int[0];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds an edge between the two nodes, unless they are the same node or the edge already exists.
+     */
+    public void addEdge(int node1, int node2) {
+        if(node1 == node2 || this.interferes(node1, node2)) return;
+
+        this.matrix.set(pairIndex(node1, node2));
+        this.addNeighbour(node1, node2);
+        this.addNeighbour(node2, node1);
+    }
+
+    public boolean interferes(int node1, int node2) {
+        return node1 != node2 && this.matrix.get(pairIndex(node1, node2));
+    }
+
+    public int degree(int node) {
+        return this.degrees[node];
+    }
+
+    /**
+     * @return the neighbours of the node, in the order their edges were added (the array must not be changed)
+     */
+    public int[] getNeighbours(int node) {
+        if(this.adjacency[node].length != this.degrees[node]) {
+            this.adjacency[node] = Arrays.copyOf(this.adjacency[node], this.degrees[node]);
+        }
+
+        return this.adjacency[node];
+    }
+
+    public void addMove(int node1, int node2) {
+        if(node1 == node2) return;
+
+        if(this.movesSize + 2 > this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, Math.max(8, this.moves.length * 2));
+        }
+
+        this.moves[this.movesSize++] = node1;
+        this.moves[this.movesSize++] = node2;
+    }
+
+    /**
+     * @return the nodes of the moves, two for each move (the array must not be changed)
+     */
+    public int[] getMoves() {
+        if(this.moves.length != this.movesSize) {
+            this.moves = Arrays.copyOf(this.moves, this.movesSize);
+        }
+
+        return this.moves;
+    }
+
+    public boolean hasColor(int node) {
+        return this.colors[node] != NO_COLOR;
+    }
+
+    /**
+     * @return the color of the node, or {@link #NO_COLOR}
+     */
+    public int getColor(int node) {
+        return this.colors[node];
+    }
+
+    public void setColor(int node, int color) {
+        this.colors[node] = color;
+    }
+
+    /**
+     * A copy of the graph with the generic API, whose nodes hold the int of each node.
+     */
+    public Graph<GraphColoringNode<Integer>> toGraph() {
+        Graph<GraphColoringNode<Integer>> graph = new Graph<>();
+        for(int node = 0; node < this.size; node++) {
+            var graphNode = new GraphColoringNode<>(node);
+            if(this.hasColor(node)) graphNode.setColor(this.colors[node]);
+            graph.addNode(graphNode);
+        }
+
+        for(int node = 0; node < this.size; node++) {
+            for(int neighbour : this.getNeighbours(node)) {
+                graph.getNodes().get(node).addEdge(graph.getNodes().get(neighbour));
+            }
+        }
+
+        return graph;
+    }
+
+    private void addNeighbour(int node, int neighbour) {
+        if(this.degrees[node] == this.adjacency[node].length) {
+            this.adjacency[node] = Arrays.copyOf(this.adjacency[node], Math.max(4, this.degrees[node] * 2));
+        }
+
+        this.adjacency[node][this.degrees[node]++] = neighbour;
+    }
+
+    private static int pairIndex(int node1, int node2) {
+        int low = Math.min(node1, node2);
+        int high = Math.max(node1, node2);
+
+        return high * (high - 1) / 2 + low;
+    }
+}
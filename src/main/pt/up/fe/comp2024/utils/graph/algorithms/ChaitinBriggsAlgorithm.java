@@ -0,0 +1,263 @@
+package pt.up.fe.comp2024.utils.graph.algorithms;
+
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Optional;
+
+/**
+ * Chaitin-Briggs coloring with k colors:
+ * <ol>
+ *     <li>coalesce: the two nodes of a move that do not interfere become one node, if that cannot make the graph
+ *     harder to color (the Briggs test: the merged node has fewer than k neighbours of degree k or more; or the George
+ *     test: every neighbour of one of them either interferes with the other or has degree less than k);</li>
+ *     <li>simplify: the nodes are removed one at a time, one with fewer than k neighbours left whenever there is one
+ *     (it will surely get a color), or else the one with the most neighbours left;</li>
+ *     <li>select: the nodes get a color in the opposite order, optimistically, as the neighbours of a node removed with
+ *     k or more of them may still share colors. A node gets the color of a node of one of its moves if it can, so that
+ *     moves that could not be coalesced may still copy a register to itself.</li>
+ * </ol>
+ * With 0 colors it uses as few as it can, trying one more color at a time (as the coloring is a heuristic, that is
+ * not always the fewest colors the graph needs). A node that already has a color keeps it, which must be lower than
+ * the starting color.
+ */
+public class ChaitinBriggsAlgorithm implements GraphColoringAlgorithm {
+    private final int numberOfColors;
+    private Optional<Integer> sufficientColors;
+
+    public ChaitinBriggsAlgorithm(int numberOfColors) {
+        this.numberOfColors = numberOfColors;
+        this.sufficientColors = Optional.empty();
+    }
+
+    @Override
+    public boolean execute(InterferenceGraph graph, int startingColor) {
+        this.sufficientColors = Optional.empty();
+
+        int colors = this.numberOfColors > 0 ? this.numberOfColors : 1;
+        int[] coloring = new Coloring(graph, colors).color(startingColor);
+        if(coloring == null) {
+            // find out with how many colors it succeeds, which is not always the fewest the graph can be colored with
+            do {
+                colors++;
+                coloring = new Coloring(graph, colors).color(startingColor);
+            } while(coloring == null);
+
+            if(this.numberOfColors > 0) {
+                this.sufficientColors = Optional.of(colors);
+                return false;
+            }
+        }
+
+        for(int node = 0; node < graph.size(); node++) {
+            if(!graph.hasColor(node)) graph.setColor(node, coloring[node]);
+        }
+
+        return true;
+    }
+
+    @Override
+    public Optional<Integer> getSufficientColors() {
+        return this.sufficientColors;
+    }
+
+    /**
+     * An attempt to color the graph with k colors, on a copy of the nodes without a color.
+     */
+    private static class Coloring {
+        private final InterferenceGraph graph;
+        private final int k;
+
+        // the node each node was merged into, and the neighbours without a color of the nodes not merged
+        private final int[] alias;
+        private final BitSet[] neighbours;
+        private final BitSet nodes;
+
+        Coloring(InterferenceGraph graph, int k) {
+            this.graph = graph;
+            this.k = k;
+            this.alias = new int[graph.size()];
+            this.neighbours = new BitSet[graph.size()];
+            this.nodes = new BitSet(graph.size());
+
+            for(int node = 0; node < graph.size(); node++) {
+                this.alias[node] = node;
+                this.neighbours[node] = new BitSet();
+                if(graph.hasColor(node)) continue;
+
+                this.nodes.set(node);
+                for(int neighbour : graph.getNeighbours(node)) {
+                    if(!graph.hasColor(neighbour)) this.neighbours[node].set(neighbour);
+                }
+            }
+        }
+
+        /**
+         * @return the color of each node without one, or null if some node cannot get one of the k colors
+         */
+        int[] color(int startingColor) {
+            this.coalesce();
+            int[] stack = this.simplify();
+            var partners = this.getMovePartners();
+
+            int[] colors = new int[this.graph.size()];
+            Arrays.fill(colors, InterferenceGraph.NO_COLOR);
+            var used = new BitSet();
+
+            for(int i = stack.length - 1; i >= 0; i--) {
+                int node = stack[i];
+
+                used.clear();
+                var nodeNeighbours = this.neighbours[node];
+                for(int neighbour = nodeNeighbours.nextSetBit(0); neighbour >= 0; neighbour = nodeNeighbours.nextSetBit(neighbour + 1)) {
+                    if(colors[neighbour] != InterferenceGraph.NO_COLOR) used.set(colors[neighbour]);
+                }
+
+                int color = used.nextClearBit(startingColor);
+                if(color - startingColor >= this.k) return null;
+
+                var nodePartners = partners[node];
+                for(int partner = nodePartners.nextSetBit(0); partner >= 0; partner = nodePartners.nextSetBit(partner + 1)) {
+                    if(colors[partner] != InterferenceGraph.NO_COLOR && !used.get(colors[partner])) {
+                        color = colors[partner];
+                        break;
+                    }
+                }
+
+                colors[node] = color;
+            }
+
+            for(int node = 0; node < colors.length; node++) {
+                colors[node] = colors[this.find(node)];
+            }
+
+            return colors;
+        }
+
+        /**
+         * @return for each node left after coalescing, the other nodes left of its moves
+         */
+        private BitSet[] getMovePartners() {
+            var partners = new BitSet[this.graph.size()];
+            for(int node = 0; node < partners.length; node++) {
+                partners[node] = new BitSet();
+            }
+
+            int[] moves = this.graph.getMoves();
+            for(int i = 0; i < moves.length; i += 2) {
+                int node1 = this.find(moves[i]);
+                int node2 = this.find(moves[i + 1]);
+                if(node1 == node2 || !this.nodes.get(node1) || !this.nodes.get(node2)) continue;
+
+                partners[node1].set(node2);
+                partners[node2].set(node1);
+            }
+
+            return partners;
+        }
+
+        private int find(int node) {
+            while(this.alias[node] != node) node = this.alias[node];
+            return node;
+        }
+
+        private int degree(int node) {
+            return this.neighbours[node].cardinality();
+        }
+
+        private void coalesce() {
+            int[] moves = this.graph.getMoves();
+
+            boolean changed = true;
+            while(changed) {
+                changed = false;
+
+                for(int i = 0; i < moves.length; i += 2) {
+                    int node1 = this.find(moves[i]);
+                    int node2 = this.find(moves[i + 1]);
+
+                    if(node1 == node2 || !this.nodes.get(node1) || !this.nodes.get(node2)) continue;
+                    if(this.neighbours[node1].get(node2)) continue;
+
+                    if(this.briggs(node1, node2) || this.george(node1, node2)) {
+                        this.merge(node1, node2);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        private boolean briggs(int node1, int node2) {
+            var merged = (BitSet) this.neighbours[node1].clone();
+            merged.or(this.neighbours[node2]);
+
+            int significant = 0;
+            for(int neighbour = merged.nextSetBit(0); neighbour >= 0; neighbour = merged.nextSetBit(neighbour + 1)) {
+                // a neighbour of both loses one of them
+                boolean ofBoth = this.neighbours[node1].get(neighbour) && this.neighbours[node2].get(neighbour);
+                if(this.degree(neighbour) - (ofBoth ? 1 : 0) >= this.k) significant++;
+            }
+
+            return significant < this.k;
+        }
+
+        private boolean george(int node1, int node2) {
+            var neighbours2 = this.neighbours[node2];
+            for(int neighbour = neighbours2.nextSetBit(0); neighbour >= 0; neighbour = neighbours2.nextSetBit(neighbour + 1)) {
+                if(!this.neighbours[node1].get(neighbour) && this.degree(neighbour) >= this.k) return false;
+            }
+
+            return true;
+        }
+
+        private void merge(int node1, int node2) {
+            this.alias[node2] = node1;
+            this.nodes.clear(node2);
+
+            var neighbours2 = this.neighbours[node2];
+            for(int neighbour = neighbours2.nextSetBit(0); neighbour >= 0; neighbour = neighbours2.nextSetBit(neighbour + 1)) {
+                this.neighbours[neighbour].clear(node2);
+                this.neighbours[neighbour].set(node1);
+                this.neighbours[node1].set(neighbour);
+            }
+            neighbours2.clear();
+        }
+
+        /**
+         * @return the nodes in the order they were removed
+         */
+        private int[] simplify() {
+            int[] degrees = new int[this.graph.size()];
+            for(int node = this.nodes.nextSetBit(0); node >= 0; node = this.nodes.nextSetBit(node + 1)) {
+                degrees[node] = this.degree(node);
+            }
+
+            var left = (BitSet) this.nodes.clone();
+            int[] stack = new int[this.nodes.cardinality()];
+
+            for(int i = 0; i < stack.length; i++) {
+                int chosen = -1;
+                for(int node = left.nextSetBit(0); node >= 0; node = left.nextSetBit(node + 1)) {
+                    if(degrees[node] < this.k) {
+                        chosen = node;
+                        break;
+                    }
+
+                    // no node is sure to get a color yet: the one with the most neighbours is removed optimistically
+                    if(chosen == -1 || degrees[node] > degrees[chosen]) chosen = node;
+                }
+
+                stack[i] = chosen;
+                left.clear(chosen);
+
+                var chosenNeighbours = this.neighbours[chosen];
+                for(int neighbour = chosenNeighbours.nextSetBit(0); neighbour >= 0; neighbour = chosenNeighbours.nextSetBit(neighbour + 1)) {
+                    degrees[neighbour]--;
+                }
+            }
+
+            return stack;
+        }
+    }
+}
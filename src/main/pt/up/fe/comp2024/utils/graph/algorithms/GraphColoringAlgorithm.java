@@ -1,8 +1,23 @@
 package pt.up.fe.comp2024.utils.graph.algorithms;
 
-import pt.up.fe.comp2024.utils.graph.Graph;
-import pt.up.fe.comp2024.utils.graph.GraphColoringNode;
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
 
-public interface GraphColoringAlgorithm<T> {
-    public boolean execute(Graph<GraphColoringNode<T>> graph, int startingColor);
+import java.util.Optional;
+
+public interface GraphColoringAlgorithm {
+    /**
+     * Colors the nodes of the graph that have no color yet with colors from startingColor on, different from the colors
+     * of their neighbours.
+     *
+     * @return false if the algorithm could not color every node
+     */
+    public boolean execute(InterferenceGraph graph, int startingColor);
+
+    /**
+     * @return a number of colors with which the algorithm can color the graph of the last {@link #execute} that failed,
+     * if it knows one (the graph itself may need fewer)
+     */
+    public default Optional<Integer> getSufficientColors() {
+        return Optional.empty();
+    }
 }
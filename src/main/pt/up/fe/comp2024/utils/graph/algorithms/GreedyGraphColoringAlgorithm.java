@@ -1,60 +1,34 @@
 package pt.up.fe.comp2024.utils.graph.algorithms;
 
-import pt.up.fe.comp2024.utils.graph.Graph;
-import pt.up.fe.comp2024.utils.graph.GraphColoringNode;
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.BitSet;
 
-public class GreedyGraphColoringAlgorithm<T> implements GraphColoringAlgorithm<T> {
-    int startingColor;
-    public GreedyGraphColoringAlgorithm() {
-        this.startingColor = 0;
-    }
+public class GreedyGraphColoringAlgorithm implements GraphColoringAlgorithm {
 
     @Override
-    public boolean execute(Graph<GraphColoringNode<T>> graph, int startingColor) {
-        List<GraphColoringNode<T>> nodes = graph.getNodes();
+    public boolean execute(InterferenceGraph graph, int startingColor) {
+        BitSet usedColors = new BitSet();
 
-        for(var node: nodes) {
-            Optional<Integer> lowestRegisterValue = this.getLowestRegisterAvailableFor(node);
+        for(int node = 0; node < graph.size(); node++) {
+            if(graph.hasColor(node)) continue;
 
-            if(lowestRegisterValue.isPresent()) {
-                node.setColor(lowestRegisterValue.get());
-            } else {
-                node.setColor(startingColor);
-            }
+            graph.setColor(node, lowestAvailableColor(graph, node, startingColor, usedColors));
         }
 
         return true;
     }
 
-    private Optional<Integer> getLowestRegisterAvailableFor(GraphColoringNode<T> node) {
-        List<Integer> registerValues = new ArrayList<>();
-
-        for(var edge: node.getEdges()) {
-            GraphColoringNode<T> destNode = (GraphColoringNode<T>) edge.getEnd();
-            if(destNode.getColor().isEmpty()) continue;
-
-            registerValues.add(destNode.getColor().get());
-        }
-
-        registerValues.sort((a, b) -> a - b);
-        if(registerValues.isEmpty()) {
-            return Optional.empty();
-        } else {
-            return Optional.of(this.getLowestElementNotOnList(registerValues, this.startingColor));
-        }
-    }
-
-    private int getLowestElementNotOnList(List<Integer> list, int startingLowest) {
-        int lowest = startingLowest;
-        for(var n: list) {
-            if(n == lowest) lowest++;
-            else if (n > lowest) return lowest;
+    /**
+     * @return the lowest color, from startingColor on, that no neighbour of the node has
+     */
+    static int lowestAvailableColor(InterferenceGraph graph, int node, int startingColor, BitSet usedColors) {
+        usedColors.clear();
+        for(int neighbour : graph.getNeighbours(node)) {
+            int color = graph.getColor(neighbour);
+            if(color >= startingColor) usedColors.set(color);
         }
 
-        return lowest;
+        return usedColors.nextClearBit(startingColor);
     }
 }
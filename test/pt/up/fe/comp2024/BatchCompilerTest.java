@@ -0,0 +1,84 @@
+package pt.up.fe.comp2024;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BatchCompilerTest {
+
+    private static final String INPUTS = "test/pt/up/fe/comp/cpf";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> config(boolean optimize, int registers) {
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), String.valueOf(optimize));
+        config.put("registerAllocation", String.valueOf(registers));
+
+        return config;
+    }
+
+    private static void assertSameAsSequential(List<File> inputs, Map<String, String> config) {
+        var sequential = new BatchCompiler(1).compile(inputs, config);
+        var parallel = new BatchCompiler(4).compile(inputs, config);
+
+        assertEquals(inputs.size(), parallel.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            var expected = sequential.get(i);
+            var actual = parallel.get(i);
+
+            assertEquals(inputs.get(i), actual.getInput());
+            assertEquals(actual.getInput().toString(), expected.getResult().hasErrors(), actual.getResult().hasErrors());
+            assertEquals(actual.getInput().toString(), expected.getResult().getOllirCode(), actual.getResult().getOllirCode());
+            assertEquals(actual.getInput().toString(), expected.getResult().getJasminCode(), actual.getResult().getJasminCode());
+        }
+    }
+
+    @Test
+    public void parallelBatchMatchesSequential() {
+        var inputs = BatchCompiler.collectInputs(INPUTS);
+        assertTrue(inputs.size() > 10);
+
+        assertSameAsSequential(inputs, config(false, -1));
+    }
+
+    @Test
+    public void parallelOptimizedBatchMatchesSequential() {
+        assertSameAsSequential(BatchCompiler.collectInputs(INPUTS), config(true, 0));
+    }
+
+    @Test
+    public void failedFileDoesNotStopBatch() throws Exception {
+        File valid = new File("test/pt/up/fe/comp/cp2/apps/HelloWorld.jmm");
+        File invalid = folder.newFile("Invalid.jmm");
+        SpecsIo.write(invalid, "class Invalid { int a; public int foo( { return 0; } }");
+        File simple = new File("test/pt/up/fe/comp/cp2/apps/Simple.jmm");
+
+        var entries = new BatchCompiler(3).compile(List.of(valid, invalid, simple), config(false, -1));
+
+        assertEquals(3, entries.size());
+        assertFalse(entries.get(0).getResult().hasErrors());
+        assertTrue(entries.get(1).getResult().hasErrors());
+        assertFalse(entries.get(1).getResult().getReports().isEmpty());
+        assertFalse(entries.get(2).getResult().hasErrors());
+    }
+
+    @Test
+    public void unreadableFileDoesNotStopBatch() throws Exception {
+        File valid = new File("test/pt/up/fe/comp/cp2/apps/HelloWorld.jmm");
+        File directory = folder.newFolder("Directory.jmm");
+
+        var entries = new BatchCompiler(2).compile(List.of(directory, valid), config(false, -1));
+
+        assertTrue(entries.get(0).getResult().hasErrors());
+        assertFalse(entries.get(1).getResult().hasErrors());
+    }
+}
@@ -0,0 +1,47 @@
+package pt.up.fe.comp2024;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import utils.JmmProgramGenerator;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ParseModeTest {
+
+    private static JmmParserResult parse(String code, String mode) {
+        Map<String, String> config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getParseModeKey(), mode);
+
+        return new JmmParserImpl().parse(code, config);
+    }
+
+    @Test
+    public void sllGivesSameTreeAsLL() {
+        var options = new JmmProgramGenerator.Options().methods(5).statements(300).nestingDepth(3);
+
+        for (long seed = 0; seed < 10; seed++) {
+            String code = JmmProgramGenerator.generate(seed, options);
+
+            var sll = parse(code, "sll");
+            var ll = parse(code, "ll");
+
+            assertTrue(sll.getReports().isEmpty());
+            assertEquals(ll.getRootNode().toTree(), sll.getRootNode().toTree());
+        }
+    }
+
+    @Test
+    public void sllFallsBackToReportErrors() {
+        String code = "class A {\n public int foo() {\n int a;\n a = 1 + ;\n return a;\n }\n}";
+
+        var sll = parse(code, "sll");
+        var ll = parse(code, "ll");
+
+        assertNull(sll.getRootNode());
+        assertFalse(sll.getReports().isEmpty());
+        assertEquals(ll.getReports().toString(), sll.getReports().toString());
+    }
+}
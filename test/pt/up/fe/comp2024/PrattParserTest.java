@@ -0,0 +1,109 @@
+package pt.up.fe.comp2024;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.parser.JmmParserResult;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+import utils.JmmProgramGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PrattParserTest {
+
+    private static void assertSameAst(String code, String rule) {
+        JmmParserResult expected = new JmmParserImpl().parse(code, rule, CompilerConfig.getDefault());
+        JmmParserResult actual = new PrattParserImpl().parse(code, rule, CompilerConfig.getDefault());
+
+        if (expected.getRootNode() == null) {
+            assertNull("Expected a syntax error in:\n" + code, actual.getRootNode());
+            assertFalse(actual.getReports().isEmpty());
+            return;
+        }
+
+        assertNotNull(actual.getReports() + "\n" + code, actual.getRootNode());
+        assertEquals(describe(expected.getRootNode()), describe(actual.getRootNode()));
+    }
+
+    /**
+     * Kind, hierarchy and every attribute of each node (attributes that are nodes are described by kind and position).
+     */
+    private static String describe(JmmNode root) {
+        var description = new StringBuilder();
+
+        for (var node : root.getDescendantsAndSelfStream().toList()) {
+            description.append(node.getKind()).append(" ").append(new ArrayList<>(node.getHierarchy()));
+
+            for (var attribute : new TreeSet<>(node.getAttributes())) {
+                // labels ANTLR generates for token sets are not reproduced
+                if (attribute.startsWith("_")) continue;
+
+                var value = node.getObject(attribute);
+                if (value instanceof JmmNode valueNode) {
+                    value = valueNode.getKind() + "@" + valueNode.get("lineStart") + ":" + valueNode.get("colStart");
+                }
+
+                description.append(" ").append(attribute).append("=").append(value);
+            }
+
+            description.append("\n");
+        }
+
+        return description.toString();
+    }
+
+    @Test
+    public void sameAstForTestFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(Path.of("test"))) {
+            var files = paths.filter(path -> path.toString().endsWith(".jmm")).toList();
+            assertFalse(files.isEmpty());
+
+            for (var file : files) {
+                assertSameAst(SpecsIo.read(new File(file.toString())), "program");
+            }
+        }
+    }
+
+    @Test
+    public void sameAstForGeneratedPrograms() {
+        var options = new JmmProgramGenerator.Options().methods(5).statements(400).nestingDepth(3);
+
+        for (long seed = 0; seed < 10; seed++) {
+            assertSameAst(JmmProgramGenerator.generate(seed, options), "program");
+        }
+    }
+
+    @Test
+    public void sameAstForExpressions() {
+        var exprs = new String[]{
+                "!a.length", "!a[0] && b", "a.foo(1, 2)[3].length", "1 + 2 * 3 - 4 / 5 < 6 && !true",
+                "a < b < c", "new int[n + 1][0]", "new A().foo()", "[1, 2, 3]", "[]", "[ ]", "(this)",
+                "main + length", "1 2", "a.", "a &",
+        };
+
+        for (var expr : exprs) {
+            assertSameAst(expr, "expr");
+        }
+    }
+
+    @Test
+    public void sameAstForStatements() {
+        var stmts = new String[]{
+                "a[0] = 1;", "{ a = 1; { } }", "if (a) b = 1; else { }", "while (a < 1) a = a + 1;", "return;",
+                "a.foo();", "a = ;", "if (a) b;",
+        };
+
+        for (var stmt : stmts) {
+            assertSameAst(stmt, "stmt");
+        }
+    }
+}
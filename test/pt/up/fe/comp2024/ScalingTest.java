@@ -0,0 +1,92 @@
+package pt.up.fe.comp2024;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.optimization.ollir.OllirCfg;
+import pt.up.fe.comp2024.optimization.registers.CfgMetadata;
+import utils.JmmProgramGenerator;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScalingTest {
+
+    private static final int STATEMENTS_PER_METHOD = 40;
+
+    private static JmmProgramGenerator.Options options(int statements) {
+        return new JmmProgramGenerator.Options()
+                .methods(Math.max(1, statements / STATEMENTS_PER_METHOD))
+                .statements(statements)
+                .nestingDepth(3)
+                .variables(8)
+                .loopDensity(0.1);
+    }
+
+    private static Map<String, String> config(boolean optimize, int registers) {
+        Map<String, String> config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), String.valueOf(optimize));
+        config.put("registerAllocation", String.valueOf(registers));
+
+        return config;
+    }
+
+    @Test
+    public void generatedProgramsCompile() {
+        var compiler = new JmmCompiler();
+
+        for (long seed = 0; seed < 20; seed++) {
+            String code = JmmProgramGenerator.generate(seed, options(200));
+
+            for (var optimize : new boolean[]{false, true}) {
+                for (var registers : new int[]{-1, 0}) {
+                    var result = compiler.compile(code, config(optimize, registers));
+                    assertFalse("Seed " + seed + " (optimize=" + optimize + ", registers=" + registers + "): "
+                            + result.getReports() + "\n" + code, result.hasErrors());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameProgram() {
+        assertEquals(JmmProgramGenerator.generate(42, options(500)), JmmProgramGenerator.generate(42, options(500)));
+        assertNotEquals(JmmProgramGenerator.generate(42, options(500)), JmmProgramGenerator.generate(43, options(500)));
+    }
+
+    /**
+     * The liveness and interference of the register allocation of a program 8 times larger (the programs of
+     * CompileScalingBenchmark, in the jmh source set, which measures the time) should take about 8 times more work;
+     * anything super-linear (e.g. testing every pair of variables, or a fixpoint over the whole method for each
+     * change) takes far more than the allowed margin. The work is counted rather than timed, so that the test does not
+     * depend on the load of the machine.
+     */
+    @Test
+    public void registerAllocationWorkGrowsLinearly() {
+        var compiler = new JmmCompiler();
+
+        double[] workPerInstruction = new double[2];
+        int[] sizes = {1_000, 8_000};
+        for (int i = 0; i < sizes.length; i++) {
+            var result = compiler.compile(JmmProgramGenerator.generate(1, options(sizes[i])), config(true, 0));
+            assertFalse(sizes[i] + " statements: " + result.getReports(), result.hasErrors());
+
+            long instructions = 0;
+            long work = 0;
+            var ollirResult = new OllirResult(result.getOllirCode().orElseThrow(), config(true, 0));
+            for (var method : ollirResult.getOllirClass().getMethods()) {
+                OllirCfg.build(method);
+                var metadata = new CfgMetadata(method);
+                metadata.getInterferenceGraph();
+
+                instructions += method.getInstructions().size();
+                work += metadata.getWorklistVisits() + metadata.getInterferenceTests();
+            }
+
+            workPerInstruction[i] = (double) work / instructions;
+        }
+
+        assertTrue("Work per instruction grew from " + workPerInstruction[0] + " to " + workPerInstruction[1],
+                workPerInstruction[1] < workPerInstruction[0] * 2.5);
+    }
+}
@@ -0,0 +1,142 @@
+package pt.up.fe.comp2024.analysis;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.analysis.table.SymbolTable;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.symboltable.JmmSymbolTableBuilder;
+import pt.up.fe.specs.util.SpecsIo;
+import utils.JmmProgramGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class FusedAnalysisTest {
+
+    /**
+     * The passes one after the other, each with its own traversal of the AST, as the analysis used to run them.
+     */
+    private static List<Report> analyzeSequentially(JmmNode root, SymbolTable table) {
+        List<Report> reports = new ArrayList<>();
+
+        for (AnalysisPass analysisPass : new JmmAnalysisImpl().buildAnalysisPasses()) {
+            try {
+                reports.addAll(analysisPass.analyze(root, table));
+            } catch (Exception e) {
+                reports.add(Report.newError(Stage.SEMANTIC,
+                        -1,
+                        -1,
+                        "Problem while executing analysis pass '" + analysisPass.getClass() + "'",
+                        e)
+                );
+            }
+
+            if (!reports.isEmpty()) {
+                break;
+            }
+        }
+
+        return reports;
+    }
+
+    private static List<Report> analyzeFused(JmmNode root, SymbolTable table) {
+        return new FusedAnalysisPass(new JmmAnalysisImpl().buildAnalysisPasses()).analyze(root, table);
+    }
+
+    private static List<Report> analyzeInParallel(JmmNode root, SymbolTable table) {
+        return new ParallelAnalysisPass(new JmmAnalysisImpl()::buildAnalysisPasses).analyze(root, table);
+    }
+
+    private static void assertSameAnalysis(String code, AnalysisPass expectedAnalysis, AnalysisPass actualAnalysis) {
+        var parser = new JmmParserImpl();
+        var expectedRoot = parser.parse(code, CompilerConfig.getDefault()).getRootNode();
+        var actualRoot = parser.parse(code, CompilerConfig.getDefault()).getRootNode();
+
+        // files with syntax errors are not analysed
+        if (expectedRoot == null) return;
+
+        var expectedReports = expectedAnalysis.analyze(expectedRoot, JmmSymbolTableBuilder.build(expectedRoot));
+        var actualReports = actualAnalysis.analyze(actualRoot, JmmSymbolTableBuilder.build(actualRoot));
+
+        assertEquals(code, expectedReports.toString(), actualReports.toString());
+
+        // when there are errors the later passes may not have run, and the AST is not used anymore
+        if (expectedReports.isEmpty()) {
+            assertEquals(code, describe(expectedRoot), describe(actualRoot));
+        }
+    }
+
+    /**
+     * Kind and every attribute of each node, including the ones added by the passes.
+     */
+    private static String describe(JmmNode root) {
+        var description = new StringBuilder();
+
+        for (var node : root.getDescendantsAndSelfStream().toList()) {
+            description.append(node.getKind());
+
+            for (var attribute : new TreeSet<>(node.getAttributes())) {
+                var value = node.getObject(attribute);
+                if (value instanceof JmmNode valueNode) {
+                    value = valueNode.getKind() + "@" + valueNode.get("lineStart") + ":" + valueNode.get("colStart");
+                }
+
+                description.append(" ").append(attribute).append("=").append(value);
+            }
+
+            description.append("\n");
+        }
+
+        return description.toString();
+    }
+
+    private static void assertSameAnalysisForTestFiles(AnalysisPass expected, AnalysisPass actual) throws IOException {
+        try (Stream<Path> paths = Files.walk(Path.of("test"))) {
+            var files = paths.filter(path -> path.toString().endsWith(".jmm")).toList();
+            assertFalse(files.isEmpty());
+
+            for (var file : files) {
+                assertSameAnalysis(SpecsIo.read(new File(file.toString())), expected, actual);
+            }
+        }
+    }
+
+    private static void assertSameAnalysisForGeneratedPrograms(AnalysisPass expected, AnalysisPass actual) {
+        var options = new JmmProgramGenerator.Options().methods(5).statements(400).nestingDepth(3);
+
+        for (long seed = 0; seed < 10; seed++) {
+            assertSameAnalysis(JmmProgramGenerator.generate(seed, options), expected, actual);
+        }
+    }
+
+    @Test
+    public void sameAnalysisForTestFiles() throws IOException {
+        assertSameAnalysisForTestFiles(FusedAnalysisTest::analyzeSequentially, FusedAnalysisTest::analyzeFused);
+    }
+
+    @Test
+    public void sameAnalysisForGeneratedPrograms() {
+        assertSameAnalysisForGeneratedPrograms(FusedAnalysisTest::analyzeSequentially, FusedAnalysisTest::analyzeFused);
+    }
+
+    @Test
+    public void sameAnalysisInParallelForTestFiles() throws IOException {
+        assertSameAnalysisForTestFiles(FusedAnalysisTest::analyzeFused, FusedAnalysisTest::analyzeInParallel);
+    }
+
+    @Test
+    public void sameAnalysisInParallelForGeneratedPrograms() {
+        assertSameAnalysisForGeneratedPrograms(FusedAnalysisTest::analyzeFused, FusedAnalysisTest::analyzeInParallel);
+    }
+}
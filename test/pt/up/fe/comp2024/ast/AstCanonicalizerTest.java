@@ -0,0 +1,85 @@
+package pt.up.fe.comp2024.ast;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+
+import static org.junit.Assert.*;
+
+public class AstCanonicalizerTest {
+
+    private static final String CODE = """
+            import io;
+            class A {
+                public int f(int x) {
+                    int[] v;
+                    int y;
+                    { { y = ((x)); } v = new int[3]; }
+                    if (!((y) < 2)) {{ io.println(((v)).length); }} else { y = ((this)).f(1); }
+                    while ((y < 3)) { { y = y + (1); } }
+                    return (y) * (v.length);
+                }
+                public static void main(String[] args) { { io.println(new A().f(5)); } }
+            }
+            """;
+
+    private static void assertCanonical(JmmNode root) {
+        assertTrue(root.getDescendants(Kind.PARENTHESIS).isEmpty());
+
+        for (var scope : root.getDescendants(Kind.SCOPE_STMT)) {
+            // only the bodies of if and while statements are kept
+            var parent = scope.getParent();
+            assertTrue(parent.toString(), parent.isInstance(Kind.IF_ELSE_STMT) || parent.isInstance(Kind.WHILE_STMT));
+        }
+
+        for (var node : root.getDescendantsAndSelfStream().toList()) {
+            for (var attribute : node.getAttributes()) {
+                if (node.getObject(attribute) instanceof JmmNode labelled) {
+                    assertSame(node, labelled.getParent());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void removesWrappers() {
+        var root = new JmmParserImpl().parse(CODE, CompilerConfig.getDefault()).getRootNode();
+        assertCanonical(root);
+        assertCanonical(new PrattParserImpl().parse(CODE, CompilerConfig.getDefault()).getRootNode());
+
+        var method = root.getDescendants(Kind.METHOD_DECL).get(0);
+        // the statements of the nested blocks, in order
+        assertEquals(Kind.ASSIGN_STMT.toString(), method.getChild(4).getKind());
+        assertEquals(Kind.ASSIGN_STMT.toString(), method.getChild(5).getKind());
+        assertEquals(Kind.IF_ELSE_STMT.toString(), method.getChild(6).getKind());
+
+        // the expression keeps its own position, inside the parentheses
+        var x = method.getChild(4).getChild(1);
+        assertEquals(Kind.VAR_REF_EXPR.toString(), x.getKind());
+        assertEquals("6", x.get("lineStart"));
+        assertEquals("18", x.get("colStart"));
+    }
+
+    @Test
+    public void expressionRule() {
+        var root = new JmmParserImpl().parse("((1 + (2)))", "expr", CompilerConfig.getDefault()).getRootNode();
+
+        assertEquals(Kind.BINARY_EXPR.toString(), root.getKind());
+        assertNull(root.getParent());
+        assertCanonical(root);
+    }
+
+    @Test
+    public void compiles() {
+        var config = CompilerConfig.getDefault();
+        assertFalse(new JmmCompiler().compile(CODE, config).hasErrors());
+
+        // the parentheses no longer stop constant folding, which gives negative constants
+        config.put(CompilerConfig.getOptimizeKey(), "true");
+        var result = new JmmCompiler().compile(CODE.replace("int y;", "int y;\n        y = 3 - (10);"), config);
+        assertFalse(result.getReports().toString(), result.hasErrors());
+    }
+}
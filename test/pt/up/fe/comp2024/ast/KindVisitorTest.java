@@ -0,0 +1,67 @@
+package pt.up.fe.comp2024.ast;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KindVisitorTest {
+
+    /**
+     * Records the kinds it visits, with a visit method for binary expressions only.
+     */
+    private static class Recorder extends KindVisitor<List<String>, String> {
+
+        Recorder(Traversal traversal) {
+            super(traversal);
+        }
+
+        @Override
+        protected void buildVisitor() {
+            addVisit(Kind.BINARY_EXPR, (node, visited) -> {
+                visited.add(node.get("op"));
+                return "binary";
+            });
+            setDefaultVisit((node, visited) -> {
+                visited.add(node.getKind());
+                return "default";
+            });
+        }
+    }
+
+    private static List<String> visit(KindVisitor.Traversal traversal, JmmNode root) {
+        List<String> visited = new ArrayList<>();
+        assertEquals("binary", new Recorder(traversal).visit(root, visited));
+
+        return visited;
+    }
+
+    @Test
+    public void traversals() {
+        var root = new JmmParserImpl().parse("1 + 2 * x", "expr", CompilerConfig.getDefault()).getRootNode();
+
+        assertEquals(List.of("+", "IntegerLiteral", "*", "IntegerLiteral", "VarRefExpr"),
+                visit(KindVisitor.Traversal.PREORDER, root));
+        assertEquals(List.of("IntegerLiteral", "IntegerLiteral", "VarRefExpr", "*", "+"),
+                visit(KindVisitor.Traversal.POSTORDER, root));
+        assertEquals(List.of("+"), visit(KindVisitor.Traversal.EXPLICIT, root));
+    }
+
+    @Test
+    public void kindOfNode() {
+        var root = new JmmParserImpl().parse("x.length", "expr", CompilerConfig.getDefault()).getRootNode();
+
+        assertEquals(Kind.LENGTH, Kind.of(root));
+        assertEquals(Kind.VAR_REF_EXPR, Kind.of(root.getChild(0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void noKindForHierarchyNames() {
+        Kind.fromString("Expr");
+    }
+}
@@ -0,0 +1,192 @@
+package pt.up.fe.comp2024.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CompilationCacheTest {
+
+    private static final String CODE = SpecsIo.read(new File("test/pt/up/fe/comp/cp2/apps/Simple.jmm"));
+    private static final String CRASHING_PROGRAM = "test/pt/up/fe/comp/cp1/symboltable/MethodsAndFields.jmm";
+    private static final String PARSER = JmmParserImpl.class.getName();
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<String, String> config(boolean optimize, int registers) {
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), String.valueOf(optimize));
+        config.put("registerAllocation", String.valueOf(registers));
+
+        return config;
+    }
+
+    private static CompilationResult result(String jasminCode) {
+        return new CompilationResult(List.of(), "ollir", jasminCode);
+    }
+
+    private static List<Path> files(Path directory, String extension) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(extension)).toList();
+        }
+    }
+
+    @Test
+    public void keyChangesWithCodeConfigAndCompiler() throws IOException {
+        var cache = new CompilationCache(folder.getRoot().toPath(), MAX_BYTES, "build1");
+        String key = cache.computeKey(CODE, config(false, -1), PARSER);
+
+        assertEquals(key, cache.computeKey(CODE, config(false, -1), PARSER));
+        assertNotEquals(key, cache.computeKey(CODE + " ", config(false, -1), PARSER));
+        assertNotEquals(key, cache.computeKey(CODE, config(true, -1), PARSER));
+        assertNotEquals(key, cache.computeKey(CODE, config(false, 0), PARSER));
+        assertNotEquals(key, cache.computeKey(CODE, config(false, -1), PrattParserImpl.class.getName()));
+
+        var otherBuild = new CompilationCache(folder.getRoot().toPath(), MAX_BYTES, "build2");
+        assertNotEquals(key, otherBuild.computeKey(CODE, config(false, -1), PARSER));
+    }
+
+    @Test
+    public void compilerHitsAndMisses() throws IOException {
+        var cache = new CompilationCache(folder.getRoot().toPath(), MAX_BYTES);
+        var compiler = new JmmCompiler(cache);
+
+        var first = compiler.compile(CODE, config(false, -1));
+        var second = compiler.compile(CODE, config(false, -1));
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(first.getJasminCode(), second.getJasminCode());
+
+        // a different source or configuration is compiled again
+        compiler.compile(CODE.replace("Simple", "Simpler"), config(false, -1));
+        compiler.compile(CODE, config(true, -1));
+        assertEquals(3, cache.getStats().getMisses());
+        assertEquals(1, cache.getStats().getHits());
+
+        // another build of the compiler does not reuse the entries
+        var otherBuild = new CompilationCache(folder.getRoot().toPath(), MAX_BYTES, "other");
+        new JmmCompiler(otherBuild).compile(CODE, config(false, -1));
+        assertEquals(1, otherBuild.getStats().getMisses());
+        assertEquals(0, otherBuild.getStats().getHits());
+    }
+
+    @Test
+    public void crashesAreNotCached() throws IOException {
+        var cache = new CompilationCache(folder.getRoot().toPath(), MAX_BYTES, "build");
+        var compiler = new JmmCompiler(cache);
+
+        // the OLLIR generation does not support this program yet, and throws
+        String crashing = SpecsIo.read(new File(CRASHING_PROGRAM));
+        var crash = compiler.compile(crashing, config(false, -1));
+        assertTrue(crash.hasErrors());
+        assertTrue(crash.getReports().get(0).getException().isPresent());
+
+        compiler.compile(crashing, config(false, -1));
+        assertEquals(2, cache.getStats().getMisses());
+        assertEquals(0, cache.getStats().getHits());
+        assertTrue(cache.get(cache.computeKey(crashing, config(false, -1), PARSER)).isEmpty());
+
+        // syntax errors carry the exception of the parser, but are cached as any other error
+        String invalid = "class Invalid { public int foo( { return 0; } }";
+        assertTrue(compiler.compile(invalid, config(false, -1)).hasErrors());
+        assertTrue(compiler.compile(invalid, config(false, -1)).hasErrors());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    public void concurrentWritesAreAtomic() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        var cache = new CompilationCache(directory, MAX_BYTES, "build");
+        String key = cache.computeKey(CODE, config(false, -1), PARSER);
+        String jasmin = "x".repeat(100_000);
+
+        var pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                writes.add(pool.submit(() -> cache.put(key, result(jasmin))));
+                // readers never see a partially written entry
+                writes.add(pool.submit(() -> cache.get(key).ifPresent(read ->
+                        assertEquals(jasmin, read.getJasminCode().orElseThrow()))));
+            }
+
+            for (var write : writes) {
+                write.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(jasmin, cache.get(key).orElseThrow().getJasminCode().orElseThrow());
+        assertEquals(1, files(directory, ".json").size());
+        assertTrue(files(directory, ".tmp").isEmpty());
+        assertEquals(Files.size(directory.resolve(key + ".json")), cache.getStats().getSizeBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedDownToLimit() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        String jasmin = "x".repeat(1000);
+        long entryBytes = 1100;
+        var cache = new CompilationCache(directory, 5 * entryBytes, "build");
+
+        List<String> keys = new ArrayList<>();
+        long time = System.currentTimeMillis() - 1_000_000;
+        for (int i = 0; i < 10; i++) {
+            String key = cache.computeKey(CODE + i, config(false, -1), PARSER);
+            keys.add(key);
+            cache.put(key, result(jasmin));
+
+            // entries are used in the order they are added, a second apart
+            Files.setLastModifiedTime(directory.resolve(key + ".json"), FileTime.fromMillis(time + i * 1000L));
+            assertTrue(cache.getStats().getSizeBytes() <= 5 * entryBytes);
+        }
+
+        assertTrue(cache.getStats().getEvictions() > 0);
+        assertFalse(Files.exists(directory.resolve(keys.get(0) + ".json")));
+        assertTrue(Files.exists(directory.resolve(keys.get(9) + ".json")));
+
+        long size = 0;
+        for (var file : files(directory, ".json")) {
+            size += Files.size(file);
+        }
+        assertEquals(size, cache.getStats().getSizeBytes());
+    }
+
+    @Test
+    public void corruptEntryIsIgnored() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        var cache = new CompilationCache(directory, MAX_BYTES, "build");
+        String key = cache.computeKey(CODE, config(false, -1), PARSER);
+
+        Files.writeString(directory.resolve(key + ".json"), "{\"reports\": [");
+        assertTrue(cache.get(key).isEmpty());
+        assertEquals(1, cache.getStats().getMisses());
+
+        // the compiler replaces it
+        var compiler = new JmmCompiler(cache);
+        assertFalse(compiler.compile(CODE, config(false, -1)).hasErrors());
+        assertTrue(cache.get(key).isPresent());
+        assertEquals(1, cache.getStats().getHits());
+    }
+}
@@ -0,0 +1,166 @@
+package pt.up.fe.comp2024.incremental;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.parser.JmmParser;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import pt.up.fe.comp2024.parser.PrattParserImpl;
+import utils.JmmProgramGenerator;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class CompileSessionTest {
+
+    private static final Pattern METHOD = Pattern.compile("\n    (?:public )?(?:static )?\\w+ (\\w+)\\(");
+
+    /**
+     * The parser of the session, if it is not the one of {@link JmmCompiler}, which gives other syntax errors.
+     */
+    private JmmParser sessionParser;
+
+    private CompilationResult assertSameAsCompiler(CompileSession session, String code) {
+        // a new session compiles everything, as the compiler does
+        var expected = sessionParser == null
+                ? new JmmCompiler().compile(code, session.getConfig())
+                : new CompileSession(sessionParser, session.getConfig()).update(code);
+        var actual = session.update(code);
+
+        assertEquals(expected.getReports().toString(), actual.getReports().toString());
+        assertEquals(expected.getOllirCode(), actual.getOllirCode());
+        assertEquals(expected.getJasminCode(), actual.getJasminCode());
+
+        return actual;
+    }
+
+    private void assertRecompiled(CompileSession session, String code, Collection<String> methods) {
+        assertSameAsCompiler(session, code);
+        assertEquals(new TreeSet<>(methods), new TreeSet<>(session.getRecompiledMethods()));
+    }
+
+    /**
+     * @return the code of each method, by name
+     */
+    private static Map<String, String> getMethods(String code) {
+        Map<String, String> methods = new LinkedHashMap<>();
+        var matcher = METHOD.matcher(code);
+
+        String name = null;
+        int start = 0;
+        while (matcher.find()) {
+            if (name != null) {
+                methods.put(name, code.substring(start, matcher.start()));
+            }
+            name = matcher.group(1);
+            start = matcher.start();
+        }
+        methods.put(name, code.substring(start));
+
+        return methods;
+    }
+
+    private static List<String> getCallers(String code, String method) {
+        return getMethods(code).entrySet().stream()
+                .filter(entry -> entry.getValue().contains("." + method + "("))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static String insertInMethod(String code, String method, String statement) {
+        int start = code.indexOf(" " + method + "(");
+        int declarations = code.indexOf("boolean ready;\n", start) + "boolean ready;\n".length();
+
+        return code.substring(0, declarations) + "        " + statement + "\n" + code.substring(declarations);
+    }
+
+    private void assertEditsAreIncremental(CompileSession session, JmmProgramGenerator.Options options) {
+        var code = JmmProgramGenerator.generate(42, options);
+        var allMethods = getMethods(code).keySet();
+
+        assertFalse(assertSameAsCompiler(session, code).hasErrors());
+        assertEquals(new TreeSet<>(allMethods), new TreeSet<>(session.getRecompiledMethods()));
+
+        // nothing changed
+        assertRecompiled(session, code, List.of());
+
+        // the methods after the new line move, their reports must follow them
+        code = code.replace("    public int method3(", "\n    public int method3(");
+        assertRecompiled(session, code, List.of());
+
+        code = insertInMethod(code, "method5", "v0 = v0 + 1;");
+        assertRecompiled(session, code, List.of("method5"));
+
+        var withError = insertInMethod(code, "method7", "undeclared = 1;");
+        assertTrue(assertSameAsCompiler(session, withError).hasErrors());
+        assertEquals(List.of("method7"), session.getRecompiledMethods());
+
+        // the errors of the method move with it
+        withError = withError.replace("    public int method6(", "\n\n    public int method6(");
+        assertTrue(assertSameAsCompiler(session, withError).hasErrors());
+        assertEquals(List.of(), session.getRecompiledMethods());
+
+        assertRecompiled(session, code, List.of("method7"));
+
+        // a different signature changes the callers
+        code = code.replace("    public int method2(", "    int method2(");
+        List<String> changed = new ArrayList<>(getCallers(code, "method2"));
+        changed.add("method2");
+        assertRecompiled(session, code, new HashSet<>(changed));
+
+        // a new field changes every method
+        code = code.replace("    boolean enabled;\n", "    boolean enabled;\n    int extra;\n");
+        assertRecompiled(session, code, allMethods);
+
+        // syntax errors keep the last version
+        assertTrue(assertSameAsCompiler(session, code.replace("int extra;", "int extra")).hasErrors());
+        assertRecompiled(session, code, List.of());
+
+        // a syntax error inside a method, and then a new line in it that moves the methods after it
+        var start = code.indexOf(" method4(");
+        assertTrue(assertSameAsCompiler(session, insertInMethod(code, "method4", "v0 = ;")).hasErrors());
+        code = code.substring(0, start) + code.substring(start).replaceFirst("\n", "\n\n");
+        assertRecompiled(session, code, List.of("method4"));
+
+        // a new method, and the same method twice
+        var newMethod = "    public int method2(int a, int b) {\n        return a;\n    }\n\n";
+        code = code.replace("    public int method3(", newMethod + "    public int method3(");
+        changed = new ArrayList<>(getCallers(code, "method2"));
+        changed.add("method2");
+        assertSameAsCompiler(session, code);
+        assertTrue(session.getRecompiledMethods().containsAll(changed));
+
+        code = code.replace("    public int method3(", newMethod + "    public int method3(");
+        assertTrue(assertSameAsCompiler(session, code).hasErrors());
+    }
+
+    @Test
+    public void incrementalEdits() {
+        var options = new JmmProgramGenerator.Options().methods(12).statements(360).nestingDepth(2);
+
+        assertEditsAreIncremental(new CompileSession(new JmmParserImpl(), CompilerConfig.getDefault()), options);
+    }
+
+    @Test
+    public void incrementalEditsParsingOnlyChangedMethods() {
+        var options = new JmmProgramGenerator.Options().methods(12).statements(360).nestingDepth(2);
+
+        sessionParser = new PrattParserImpl();
+        assertEditsAreIncremental(new CompileSession(sessionParser, CompilerConfig.getDefault()), options);
+    }
+
+    @Test
+    public void incrementalEditsWithOptimizations() {
+        var options = new JmmProgramGenerator.Options().methods(12).statements(360).nestingDepth(2);
+
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), "true");
+        config.put("registerAllocation", "0");
+
+        sessionParser = new PrattParserImpl();
+        assertEditsAreIncremental(new CompileSession(sessionParser, config), options);
+    }
+}
@@ -0,0 +1,75 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.ast.JmmNode;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.optimization_jasmin.AlgebraicSimplification;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import utils.MethodBodyFixture;
+
+import static org.junit.Assert.*;
+
+public class AlgebraicSimplificationTest {
+
+    private static final MethodBodyFixture CLASS = new MethodBodyFixture(
+            "import io; class A { int count; public int f(int p, boolean q) { int a; int b; boolean c; BODY } "
+                    + "public static void main(String[] args) { io.println(new A().f(7, true)); } }");
+
+    /**
+     * @return the expression, returned by a method with an int x and a boolean y, once simplified
+     */
+    private static JmmNode simplify(String expr) {
+        var code = "class A { public int f(int x, boolean y) { return " + expr + "; } }";
+        var root = new JmmParserImpl().parse(code, CompilerConfig.getDefault()).getRootNode();
+        AlgebraicSimplification.optimize(root);
+
+        return root.getDescendants(Kind.RETURN_STMT).get(0).getChild(0);
+    }
+
+    private static void assertVariable(String name, JmmNode expr) {
+        assertEquals(Kind.VAR_REF_EXPR.toString(), expr.getKind());
+        assertEquals(name, expr.get("name"));
+    }
+
+    @Test
+    public void identities() {
+        assertVariable("x", simplify("x * 1 + 0"));
+        assertVariable("x", simplify("1 * (0 + x) / 1"));
+        assertVariable("y", simplify("!!y && true"));
+        assertEquals("0", simplify("x / 1 - x").get("value"));
+        assertEquals("false", simplify("y && false").get("value"));
+    }
+
+    @Test
+    public void constantChains() {
+        var chain = simplify("((x + 1) + 2) - 10");
+        assertEquals("-", chain.get("op"));
+        assertVariable("x", chain.getChild(0));
+        assertEquals("7", chain.getChild(1).get("value"));
+        assertSame(chain.getChild(1), chain.getObject("right"));
+
+        assertVariable("x", simplify("(x - 3) + 3"));
+    }
+
+    @Test
+    public void sideEffectsAreKept() {
+        // the call prints, so it must still be made
+        var body = "a = 0 * this.g(p); b = this.g(a) * 0; return a + b; } public int g(int x) { io.println(x); return x;";
+
+        CLASS.assertSameOutput(body);
+        assertEquals("7\n0\n0", CLASS.run(body, true).trim().replace("\r", ""));
+    }
+
+    @Test
+    public void strengthReduction() {
+        var body = "a = p * 8; b = a * 2; count = 3; count = count * 2; return a + b + count;";
+
+        var jasmin = CLASS.jasmin(body, true);
+
+        // the local is added to itself, the field (read once) is shifted
+        assertEquals(jasmin, 2, jasmin.split("ishl", -1).length - 1);
+        assertFalse(jasmin, jasmin.contains("imul"));
+        CLASS.assertSameOutput(body);
+    }
+}
@@ -0,0 +1,63 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.ast.Kind;
+import pt.up.fe.comp2024.optimization_jasmin.DeadCodeElimination;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+import utils.MethodBodyFixture;
+
+import static org.junit.Assert.*;
+
+public class DeadCodeEliminationTest {
+
+    private static final MethodBodyFixture CLASS = new MethodBodyFixture(
+            "import io; class A { int count; public int f(int p, boolean q) { int a; int b; int[] v; BODY } "
+                    + "public static void main(String[] args) { } }");
+
+    @Test
+    public void constantBranches() {
+        var ollir = CLASS.ollir("a = 1; if (a < 2) { b = p; } else { b = 3; } while (false) { a = a + 1; } "
+                + "if (q) { } else { } return b;");
+
+        assertFalse(ollir, ollir.contains("goto"));
+        assertTrue(ollir, ollir.contains("b.i32 :=.i32 p.i32;"));
+    }
+
+    @Test
+    public void deadAssignments() {
+        var ollir = CLASS.ollir("a = p * 3; a = p + 1; b = this.g(p); v = new int[2]; v[0] = p + 7; count = p + 8; "
+                + "b = 5; return a; } public int g(int x) { io.println(x); return x;");
+
+        assertFalse(ollir, ollir.contains("*.i32"));
+        assertFalse(ollir, ollir.contains("5.i32"));
+        // calls, allocations and stores to arrays and fields are kept
+        assertTrue(ollir, ollir.contains("invokevirtual"));
+        assertTrue(ollir, ollir.contains("new(array"));
+        assertTrue(ollir, ollir.contains("7.i32"));
+        assertTrue(ollir, ollir.contains("putfield"));
+    }
+
+    @Test
+    public void loops() {
+        // a is read in the next iteration, b is only read after the loop
+        var ollir = CLASS.ollir("a = 0; b = 0; while (a < p) { b = a * 4; a = a + 1; b = a * 5; } return b;");
+
+        assertTrue(ollir, ollir.contains("5.i32"));
+        assertFalse(ollir, ollir.contains("4.i32"));
+    }
+
+    @Test
+    public void afterReturn() {
+        // not valid Java-- (which has a single return, at the end), but the pass does not depend on it
+        var code = "class A { public int f(int p) { int a; a = p; { return a; } a = 2; while (p < a) { a = 3; } return a; } }";
+        var root = new JmmParserImpl().parse(code, CompilerConfig.getDefault()).getRootNode();
+
+        assertTrue(DeadCodeElimination.optimize(root));
+
+        var method = root.getDescendants(Kind.METHOD_DECL).get(0);
+        assertEquals(Kind.ASSIGN_STMT.toString(), method.getChild(method.getNumChildren() - 3).getKind());
+        assertEquals(Kind.RETURN_STMT.toString(), method.getChild(method.getNumChildren() - 2).getKind());
+        assertEquals(Kind.RETURN_STMT.toString(), method.getChild(method.getNumChildren() - 1).getKind());
+    }
+}
@@ -0,0 +1,47 @@
+package pt.up.fe.comp2024.optimization;
+
+import org.junit.Test;
+import utils.JmmProgramGenerator;
+import utils.MethodBodyFixture;
+
+import static org.junit.Assert.*;
+
+public class SparseConditionalConstantPropagationTest {
+
+    private static final MethodBodyFixture CLASS = new MethodBodyFixture(
+            "class A { public int f(int p) { int a; int b; int i; BODY } public static void main(String[] args) { } }");
+
+    @Test
+    public void constantBranch() {
+        // only the branch that is taken reaches the return
+        var ollir = CLASS.ollir("a = 1; if (a < 2) { b = 2; } else { b = 3; } return b;");
+        assertTrue(ollir, ollir.contains("ret.i32 2.i32"));
+    }
+
+    @Test
+    public void constantInLoop() {
+        var ollir = CLASS.ollir("a = 10; b = 5; i = 0; while (i < a) { b = 5; i = i + 1; } return b + a;");
+        assertTrue(ollir, ollir.contains("<.bool 10.i32"));
+        assertTrue(ollir, ollir.contains("ret.i32 15.i32"));
+
+        // i changes in the loop, so it is not a constant after it
+        ollir = CLASS.ollir("i = 0; while (i < 10) { i = i + 1; } return i;");
+        assertFalse(ollir, ollir.contains("ret.i32 0.i32"));
+    }
+
+    @Test
+    public void parametersAreNotConstants() {
+        var ollir = CLASS.ollir("a = p; if (a < 2) { b = 2; } else { b = 3; } return b;");
+        assertFalse(ollir, ollir.contains("ret.i32 2.i32"));
+        assertFalse(ollir, ollir.contains("ret.i32 3.i32"));
+    }
+
+    @Test
+    public void sameOutput() {
+        var options = new JmmProgramGenerator.Options().methods(1).statements(80).nestingDepth(2).runnable(true);
+
+        for (long seed = 0; seed < 5; seed++) {
+            MethodBodyFixture.assertSameProgramOutput(JmmProgramGenerator.generate(seed, options));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.junit.Test;
+import utils.MethodBodyFixture;
+
+import static org.junit.Assert.*;
+
+public class LoopInvariantCodeMotionTest {
+
+    private static final MethodBodyFixture CLASS = new MethodBodyFixture("""
+            import io;
+            class A {
+                int count;
+                public int f(int p, int q) {
+                    int[] v;
+                    int i;
+                    int sum;
+                    v = new int[5];
+                    i = 0;
+                    sum = 0;
+                    BODY
+                    return sum;
+                }
+                public static void main(String[] args) {
+                    io.println(new A().f(3, 0));
+                }
+            }
+            """);
+
+    /**
+     * @return the code of the method f before its first loop
+     */
+    private static String beforeLoop(String jasmin) {
+        int method = jasmin.indexOf(".method public f");
+        return jasmin.substring(method, jasmin.indexOf("whileCond", method));
+    }
+
+    @Test
+    public void hoistsInvariants() {
+        var body = "while (i < v.length) { v[i] = count * p + i; sum = sum + p * q + v[i]; i = i + 1; }";
+        var beforeLoop = beforeLoop(CLASS.jasmin(body, true));
+
+        assertTrue(beforeLoop, beforeLoop.contains("arraylength"));
+        assertTrue(beforeLoop, beforeLoop.contains("getfield"));
+        assertTrue(beforeLoop, beforeLoop.contains("imul"));
+        assertFalse(beforeLoop, beforeLoop.contains("iaload"));
+
+        assertFalse(beforeLoop(CLASS.jasmin(body, false)).contains("arraylength"));
+        CLASS.assertSameOutput(body);
+    }
+
+    @Test
+    public void nestedLoops() {
+        var body = "while (i < 3) { sum = 0; while (sum < 4) { v[sum] = p * 7; sum = sum + 1; } i = i + 1; }";
+        var beforeLoop = beforeLoop(CLASS.jasmin(body, true));
+
+        // out of both loops
+        assertTrue(beforeLoop, beforeLoop.contains("imul"));
+        CLASS.assertSameOutput(body);
+    }
+
+    @Test
+    public void keepsVariantCode() {
+        // the field is written in the loop, and the division throws (q is 0) but the second loop never runs
+        var body = "while (i < p) { count = count + 1; i = i + 1; } while (sum < i - p) { sum = p / q; }";
+        var jasmin = CLASS.jasmin(body, true);
+        var beforeLoop = beforeLoop(jasmin);
+
+        assertFalse(beforeLoop, beforeLoop.contains("getfield"));
+        assertTrue(jasmin, jasmin.indexOf("idiv") > jasmin.indexOf("whileLoop1:"));
+
+        // the second loop is entered by a jump, which now goes to the code moved out of it
+        assertTrue(jasmin, jasmin.indexOf("isub") < jasmin.indexOf("whileCond1:"));
+        CLASS.assertSameOutput(body);
+    }
+}
@@ -0,0 +1,66 @@
+package pt.up.fe.comp2024.optimization.ollir;
+
+import org.junit.Test;
+import utils.MethodBodyFixture;
+
+import static org.junit.Assert.*;
+
+public class ValueNumberingTest {
+
+    private static final MethodBodyFixture CLASS = new MethodBodyFixture("""
+            import io;
+            class A {
+                public int f(int p, int q) {
+                    int[] v;
+                    int a;
+                    int b;
+                    v = new int[5];
+                    v[1] = p;
+                    a = 1;
+                    b = 0;
+                    BODY
+                    return b;
+                }
+                public static void main(String[] args) {
+                    io.println(new A().f(3, 4));
+                }
+            }
+            """);
+
+    private static int count(String jasmin, String instruction) {
+        return (int) jasmin.lines().filter(line -> line.trim().equals(instruction)).count();
+    }
+
+    @Test
+    public void localValues() {
+        // a is assigned more than once, so its values are only reused in the same block
+        var body = "a = q - 3; b = v[a] + v[a] + p * q; b = b + q * p + v.length + v.length;";
+        var jasmin = CLASS.jasmin(body, true);
+
+        assertEquals(1, count(jasmin, "iaload"));
+        assertEquals(1, count(jasmin, "imul"));
+        assertEquals(1, count(jasmin, "arraylength"));
+        CLASS.assertSameOutput(body);
+    }
+
+    @Test
+    public void dominatedValues() {
+        // the first product is held by a temporary, which is assigned only there
+        var body = "b = p * q + 1; if (a < p) { b = b + p * q; } else { while (b < p * q + 20) { b = b + p * q; } }";
+        var jasmin = CLASS.jasmin(body, true);
+
+        assertEquals(1, count(jasmin, "imul"));
+        CLASS.assertSameOutput(body);
+    }
+
+    @Test
+    public void keepsChangedValues() {
+        // the array is written, and a changes, between the two loads
+        var body = "a = q; b = v[a]; v[a] = 7; b = b + v[a] + p * a; a = p; b = b + v[a] + p * a;";
+        var jasmin = CLASS.jasmin(body, true);
+
+        assertEquals(3, count(jasmin, "iaload"));
+        assertEquals(2, count(jasmin, "imul"));
+        CLASS.assertSameOutput(body);
+    }
+}
@@ -0,0 +1,127 @@
+package pt.up.fe.comp2024.optimization.registers;
+
+import org.junit.Test;
+import org.specs.comp.ollir.Method;
+import pt.up.fe.comp.jmm.ollir.OllirResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.optimization.ollir.OllirCfg;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CfgMetadataTest {
+
+    private static Method method(String body) {
+        var code = """
+                A {
+                .construct A().V {
+                invokespecial(this, "<init>").V;
+                }
+                .method public f(n.i32).i32 {
+                BODY
+                }
+                }
+                """.replace("BODY", body);
+
+        var method = new OllirResult(code, CompilerConfig.getDefault()).getOllirClass().getMethods().stream()
+                .filter(m -> m.getMethodName().equals("f"))
+                .findFirst().orElseThrow();
+        OllirCfg.build(method);
+
+        return method;
+    }
+
+    @Test
+    public void liveAroundLoop() {
+        var method = method("""
+                i.i32 :=.i32 0.i32;
+                s.i32 :=.i32 0.i32;
+                whileCond0:
+                tmp0.bool :=.bool i.i32 <.bool n.i32;
+                if (tmp0.bool) goto whileLoop0;
+                goto whileEnd0;
+                whileLoop0:
+                s.i32 :=.i32 s.i32 +.i32 i.i32;
+                i.i32 :=.i32 i.i32 +.i32 1.i32;
+                goto whileCond0;
+                whileEnd0:
+                ret.i32 s.i32;
+                """);
+        var metadata = new CfgMetadata(method);
+        var instructions = method.getInstructions();
+
+        assertEquals(Set.of("n"), metadata.getLiveIn(instructions.get(0)));
+        assertEquals(Set.of("i", "n", "s", "tmp0"), metadata.getLiveOut(instructions.get(2)));
+        // the back edge keeps everything the loop reads live at its end
+        assertEquals(Set.of("i", "n", "s"), metadata.getLiveOut(instructions.get(6)));
+        assertEquals(Set.of("s"), metadata.getLiveIn(instructions.get(8)));
+
+        // tmp0 is only live between the comparison and the branch
+        assertEquals(Set.of("i-n", "i-s", "n-s", "n-tmp0", "i-tmp0", "s-tmp0"), interferences(metadata));
+    }
+
+    private static Set<String> interferences(CfgMetadata metadata) {
+        var graph = metadata.getInterferenceGraph();
+        var variables = metadata.getVariables();
+
+        var pairs = new HashSet<String>();
+        for (int node = 0; node < graph.size(); node++) {
+            for (int neighbour : graph.getNeighbours(node)) {
+                var variable1 = variables.get(node);
+                var variable2 = variables.get(neighbour);
+                if (variable1.compareTo(variable2) < 0) pairs.add(variable1 + "-" + variable2);
+            }
+        }
+
+        return pairs;
+    }
+
+    @Test
+    public void variablesThatDoNotOverlap() {
+        var method = method("""
+                a.i32 :=.i32 n.i32 +.i32 1.i32;
+                b.i32 :=.i32 a.i32 *.i32 2.i32;
+                c.i32 :=.i32 b.i32 -.i32 n.i32;
+                ret.i32 c.i32;
+                """);
+
+        assertEquals(Set.of("a-n", "b-n"), interferences(new CfgMetadata(method)));
+    }
+
+    @Test(timeout = 10_000)
+    public void largeNestedLoops() {
+        var body = new StringBuilder();
+        int depth = 20;
+
+        for (int loop = 0; loop < depth; loop++) {
+            body.append("i").append(loop).append(".i32 :=.i32 0.i32;\n");
+            body.append("whileCond").append(loop).append(":\n");
+            body.append("tmp").append(loop).append(".bool :=.bool i").append(loop).append(".i32 <.bool n.i32;\n");
+            body.append("if (tmp").append(loop).append(".bool) goto whileLoop").append(loop).append(";\n");
+            body.append("goto whileEnd").append(loop).append(";\n");
+            body.append("whileLoop").append(loop).append(":\n");
+        }
+        body.append("s.i32 :=.i32 0.i32;\n");
+        for (int i = 0; i < 3_000; i++) {
+            body.append("s.i32 :=.i32 s.i32 +.i32 n.i32;\n");
+        }
+        for (int loop = depth - 1; loop >= 0; loop--) {
+            body.append("i").append(loop).append(".i32 :=.i32 i").append(loop).append(".i32 +.i32 1.i32;\n");
+            body.append("goto whileCond").append(loop).append(";\n");
+            body.append("whileEnd").append(loop).append(":\n");
+        }
+        body.append("ret.i32 n.i32;\n");
+
+        var method = method(body.toString());
+        var metadata = new CfgMetadata(method);
+
+        // the counters of every loop are live in the innermost body, which does not use them
+        var live = metadata.getLiveIn(method.getLabels().get("whileLoop" + (depth - 1)));
+        for (int loop = 0; loop < depth; loop++) {
+            assertTrue(live.toString(), live.contains("i" + loop));
+        }
+        assertFalse(live.contains("s"));
+    }
+}
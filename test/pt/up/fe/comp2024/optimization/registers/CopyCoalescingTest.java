@@ -0,0 +1,60 @@
+package pt.up.fe.comp2024.optimization.registers;
+
+import org.junit.Test;
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class CopyCoalescingTest {
+
+    private static final String CODE = """
+            import io;
+            class A {
+                public int f(int n) {
+                    int i;
+                    int sum;
+                    int square;
+                    i = 0;
+                    sum = 0;
+                    while (i < n) {
+                        square = i * i + i;
+                        sum = sum + square;
+                        i = i + 1;
+                    }
+                    return sum;
+                }
+                public static void main(String[] args) {
+                    io.println(new A().f(10));
+                }
+            }
+            """;
+
+    // a value stored in a register, only to be copied to another one
+    private static final Pattern COPY = Pattern.compile("istore(?:_| )(\\d+)\\s+iload(?:_| )\\1\\s+istore");
+
+    private static String jasmin(String registers) {
+        var config = CompilerConfig.getDefault();
+        config.put("registerAllocation", registers);
+
+        var result = new JmmCompiler().compile(CODE, config);
+        assertFalse(result.getReports().toString(), result.hasErrors());
+
+        return result.getJasminCode().get();
+    }
+
+    @Test
+    public void temporariesShareRegisters() {
+        var plain = jasmin("-1");
+        var allocated = jasmin("0");
+
+        assertTrue(plain, COPY.matcher(plain).find());
+        assertFalse(allocated, COPY.matcher(allocated).find());
+        assertTrue(allocated, allocated.lines().count() < plain.lines().count());
+
+        assertEquals(new JasminResult(plain).run(), new JasminResult(allocated).run());
+    }
+}
@@ -0,0 +1,189 @@
+package pt.up.fe.comp2024.profiling;
+
+import com.google.gson.JsonParser;
+import org.junit.After;
+import org.junit.Test;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class CompileProfilerTest {
+
+    private CompileProfiler profiler;
+
+    @After
+    public void stopProfiler() {
+        if (profiler != null) {
+            profiler.stop();
+        }
+    }
+
+    private static List<String> names(CompileProfiler profiler) {
+        List<String> names = new ArrayList<>();
+        profiler.getSteps().forEach(step -> names.add(step.getName()));
+        return names;
+    }
+
+    @Test
+    public void timeRunsStepWithoutProfiler() {
+        var ran = new AtomicBoolean();
+        CompileProfiler.time("step", () -> ran.set(true));
+
+        assertTrue(ran.get());
+        assertEquals(Integer.valueOf(3), CompileProfiler.time("step", () -> 3));
+    }
+
+    @Test
+    public void nestedStepsAreNamedAfterTheirPath() {
+        profiler = CompileProfiler.start("Foo.jmm");
+
+        CompileProfiler.time("parse", () -> {
+        });
+        int result = CompileProfiler.time("analysis", () -> {
+            CompileProfiler.time("first", () -> CompileProfiler.time("inner", () -> {
+            }));
+            return CompileProfiler.time("second", () -> 42);
+        });
+        CompileProfiler.time("jasmin", () -> {
+        });
+
+        assertEquals(42, result);
+        assertEquals(List.of("parse", "analysis", "analysis/first", "analysis/first/inner", "analysis/second", "jasmin"),
+                names(profiler));
+
+        // a step takes at least as long as the steps inside it
+        var steps = profiler.getSteps();
+        assertTrue(steps.get(1).getWallNanos() >= steps.get(2).getWallNanos() + steps.get(4).getWallNanos());
+    }
+
+    @Test
+    public void failedStepIsRecordedAndLeavesThePath() {
+        profiler = CompileProfiler.start("Foo.jmm");
+
+        try {
+            CompileProfiler.time("outer", () -> CompileProfiler.time("failing", (Runnable) () -> {
+                throw new IllegalStateException();
+            }));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        CompileProfiler.time("after", () -> {
+        });
+
+        assertEquals(List.of("outer", "outer/failing", "after"), names(profiler));
+    }
+
+    @Test
+    public void addedStepsAreNamedAfterTheirPath() {
+        CompileProfiler.add("ignored", 10);
+
+        profiler = CompileProfiler.start("Foo.jmm");
+        CompileProfiler.time("outer", () -> CompileProfiler.add("added", 10));
+
+        assertEquals(List.of("outer", "outer/added"), names(profiler));
+        assertEquals(10, profiler.getSteps().get(1).getWallNanos());
+        assertEquals(-1, profiler.getSteps().get(1).getAllocatedBytes());
+    }
+
+    @Test
+    public void stoppedProfilerRecordsNothing() {
+        profiler = CompileProfiler.start("Foo.jmm");
+        CompileProfiler.time("before", () -> {
+        });
+        profiler.stop();
+        CompileProfiler.time("after", () -> {
+        });
+
+        assertEquals(List.of("before"), names(profiler));
+    }
+
+    @Test
+    public void stoppingAnotherProfilerKeepsTheActiveOne() {
+        var previous = CompileProfiler.start("Old.jmm");
+        profiler = CompileProfiler.start("New.jmm");
+
+        previous.stop();
+        CompileProfiler.time("step", () -> {
+        });
+
+        assertTrue(previous.getSteps().isEmpty());
+        assertEquals(List.of("step"), names(profiler));
+    }
+
+    @Test
+    public void profilerIsOnlyActiveInItsThread() throws InterruptedException {
+        profiler = CompileProfiler.start("Foo.jmm");
+
+        var other = new Thread(() -> CompileProfiler.time("other", () -> {
+        }));
+        other.start();
+        other.join();
+
+        assertTrue(profiler.getSteps().isEmpty());
+    }
+
+    @Test
+    public void toJson() {
+        profiler = CompileProfiler.start("Foo.jmm");
+        CompileProfiler.time("outer", () -> CompileProfiler.time("inner", () -> {
+        }));
+        profiler.stop();
+
+        var json = JsonParser.parseString(profiler.toJson()).getAsJsonObject();
+        assertEquals("Foo.jmm", json.get("input").getAsString());
+        // the path of the steps being measured is not part of the profile
+        assertFalse(json.has("path"));
+
+        var steps = json.getAsJsonArray("steps");
+        assertEquals(2, steps.size());
+        assertEquals("outer", steps.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("outer/inner", steps.get(1).getAsJsonObject().get("name").getAsString());
+        for (var step : steps) {
+            assertTrue(step.getAsJsonObject().get("wallNanos").getAsLong() >= 0);
+            assertTrue(step.getAsJsonObject().has("allocatedBytes"));
+        }
+    }
+
+    @Test
+    public void compilationStages() {
+        String code = SpecsIo.read(new File("test/pt/up/fe/comp/cp2/apps/Simple.jmm"));
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), "true");
+
+        profiler = CompileProfiler.start("Simple.jmm");
+        assertFalse(new JmmCompiler().compile(code, config).hasErrors());
+        profiler.stop();
+
+        var names = names(profiler);
+        for (var stage : List.of("parse", "analysis", "toOllir", "optimize", "jasmin")) {
+            assertTrue(stage + " in " + names, names.contains(stage));
+        }
+    }
+
+    @Test
+    public void analysisPassesAreTimed() {
+        String code = SpecsIo.read(new File("test/pt/up/fe/comp/cp2/apps/Simple.jmm"));
+
+        for (var parallel : List.of("false", "true")) {
+            var config = CompilerConfig.getDefault();
+            config.put(CompilerConfig.getParallelAnalysisKey(), parallel);
+
+            profiler = CompileProfiler.start("Simple.jmm");
+            assertFalse(new JmmCompiler().compile(code, config).hasErrors());
+            profiler.stop();
+
+            var names = names(profiler);
+            for (var pass : List.of("UndeclaredVariable", "IncompatibleTypesOperation", "AddWhileLabelNumber")) {
+                assertTrue(pass + " in " + names, names.contains("analysis/passes/" + pass));
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package pt.up.fe.comp2024.server;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pt.up.fe.comp.jmm.report.Report;
+import pt.up.fe.comp.jmm.report.ReportType;
+import pt.up.fe.comp.jmm.report.Stage;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+import pt.up.fe.comp2024.server.CompileProtocol.Request;
+import pt.up.fe.comp2024.server.CompileProtocol.Response;
+import pt.up.fe.specs.util.SpecsIo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompileServerTest {
+
+    private static final File INPUT = new File("test/pt/up/fe/comp/cp2/apps/Simple.jmm");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String expectedJasmin(File input) {
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getInputFileKey(), input.getAbsolutePath());
+
+        return new JmmCompiler().compile(SpecsIo.read(input), config).getJasminCode().orElseThrow();
+    }
+
+    /**
+     * Runs the server on stdin and stdout, as '-s' does, with the given requests as input.
+     *
+     * @return the responses, one per line
+     */
+    private static List<Response> serveStdio(String... requests) throws IOException {
+        var input = new ByteArrayInputStream((String.join("\n", requests) + "\n").getBytes(StandardCharsets.UTF_8));
+        var output = new ByteArrayOutputStream();
+
+        var in = System.in;
+        var out = System.out;
+        try {
+            System.setIn(input);
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+            new CompileServer(1).serveStdio();
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+
+        return output.toString(StandardCharsets.UTF_8).lines()
+                .map(CompileProtocol::parseResponse)
+                .toList();
+    }
+
+    @Test
+    public void requestRoundTrip() {
+        var request = new Request("7", List.of("-i=Foo.jmm", "-o", "-r=2"), "editor");
+        var parsed = CompileProtocol.parseRequest(CompileProtocol.toJson(request));
+
+        assertEquals("7", parsed.getId());
+        assertEquals(List.of("-i=Foo.jmm", "-o", "-r=2"), parsed.getArgs());
+        assertEquals("editor", parsed.getSession().orElseThrow());
+
+        var withoutSession = CompileProtocol.parseRequest(CompileProtocol.toJson(new Request("8", List.of())));
+        assertTrue(withoutSession.getSession().isEmpty());
+        assertTrue(withoutSession.getArgs().isEmpty());
+    }
+
+    @Test
+    public void responseRoundTrip() {
+        var reports = List.of(Report.newWarn(Stage.SEMANTIC, 3, 4, "unused variable", null),
+                Report.newError(Stage.OTHER, -1, -1, "crash", new RuntimeException("not serialized")));
+        var result = new CompilationResult(reports, "ollir code", "jasmin code");
+        var parsed = CompileProtocol.parseResponse(CompileProtocol.toJson(Response.of("1", result, 42)));
+
+        assertEquals("1", parsed.getId());
+        assertFalse(parsed.isSuccess());
+        assertEquals("ollir code", parsed.getOllirCode());
+        assertEquals("jasmin code", parsed.getJasminCode());
+        assertEquals(42, parsed.getTimeMillis());
+
+        assertEquals(2, parsed.getReports().size());
+        assertEquals(ReportType.WARNING, parsed.getReports().get(0).getType());
+        assertEquals(Stage.SEMANTIC, parsed.getReports().get(0).getStage());
+        assertEquals(3, parsed.getReports().get(0).getLine());
+        assertEquals("unused variable", parsed.getReports().get(0).getMessage());
+        // the exception is not sent, only its message
+        assertEquals("crash (exception: not serialized)", parsed.getReports().get(1).getMessage());
+    }
+
+    @Test
+    public void serveStdioExchange() throws IOException {
+        String inputArg = "-i=" + INPUT.getAbsolutePath();
+        var responses = serveStdio(
+                CompileProtocol.toJson(new Request("valid", List.of(inputArg))),
+                "{not json",
+                "",
+                CompileProtocol.toJson(new Request("session1", List.of(inputArg), "editor")),
+                CompileProtocol.toJson(new Request("session2", List.of(inputArg), "editor")),
+                CompileProtocol.toJson(new Request("noInput", List.of("-o"))));
+
+        // the blank line gets no response
+        assertEquals(5, responses.size());
+
+        var valid = responses.get(0);
+        assertEquals("valid", valid.getId());
+        assertTrue(valid.isSuccess());
+        assertEquals(expectedJasmin(INPUT), valid.getJasminCode());
+
+        var malformed = responses.get(1);
+        assertNull(malformed.getId());
+        assertFalse(malformed.isSuccess());
+        assertTrue(malformed.getReports().get(0).getMessage().startsWith("Invalid request"));
+
+        // the second request of the session has nothing to recompile, and gets the same code
+        for (var session : responses.subList(2, 4)) {
+            assertTrue(session.isSuccess());
+            assertEquals(valid.getJasminCode(), session.getJasminCode());
+        }
+        assertEquals("session1", responses.get(2).getId());
+        assertEquals("session2", responses.get(3).getId());
+
+        var noInput = responses.get(4);
+        assertEquals("noInput", noInput.getId());
+        assertFalse(noInput.isSuccess());
+        assertNull(noInput.getJasminCode());
+    }
+
+    @Test
+    public void compileErrorsAreReported() throws IOException {
+        var input = folder.newFile("Invalid.jmm");
+        SpecsIo.write(input, "class Invalid { public int foo() { return true; } }");
+
+        var responses = serveStdio(CompileProtocol.toJson(new Request("1", List.of("-i=" + input.getAbsolutePath()))));
+
+        assertEquals(1, responses.size());
+        assertFalse(responses.get(0).isSuccess());
+        assertTrue(responses.get(0).getReports().stream().anyMatch(report -> report.getType() == ReportType.ERROR));
+        assertNull(responses.get(0).getJasminCode());
+    }
+
+    @Test
+    public void unreadableInputIsReported() throws IOException {
+        String missing = new File(folder.getRoot(), "Missing.jmm").getAbsolutePath();
+        String directory = folder.newFolder("Directory.jmm").getAbsolutePath();
+
+        // with '-s' the arguments do not check that the input file exists
+        var responses = serveStdio(
+                CompileProtocol.toJson(new Request("missing", List.of("-s", "-i=" + missing))),
+                CompileProtocol.toJson(new Request("directory", List.of("-s", "-i=" + directory), "editor")),
+                CompileProtocol.toJson(new Request("valid", List.of("-i=" + INPUT.getAbsolutePath()))));
+
+        assertEquals(3, responses.size());
+        for (var response : responses.subList(0, 2)) {
+            assertFalse(response.isSuccess());
+            assertTrue(response.getReports().get(0).getMessage().startsWith("Could not read input file"));
+        }
+        assertEquals("missing", responses.get(0).getId());
+        assertEquals("directory", responses.get(1).getId());
+        assertTrue(responses.get(2).isSuccess());
+    }
+
+    @Test
+    public void failedRequestDoesNotStopServer() throws IOException {
+        var server = new CompileServer(1) {
+            @Override
+            public Response handle(String line) {
+                if (line.contains("crash")) {
+                    throw new IllegalStateException("crash");
+                }
+                return super.handle(line);
+            }
+        };
+
+        String requests = CompileProtocol.toJson(new Request("crash", List.of())) + "\n"
+                + CompileProtocol.toJson(new Request("valid", List.of("-i=" + INPUT.getAbsolutePath()))) + "\n";
+        var output = new StringWriter();
+        server.serve(new BufferedReader(new StringReader(requests)), new PrintWriter(output));
+
+        var responses = output.toString().lines().map(CompileProtocol::parseResponse).toList();
+        assertEquals(2, responses.size());
+        assertEquals("crash", responses.get(0).getId());
+        assertFalse(responses.get(0).isSuccess());
+        assertTrue(responses.get(0).getReports().get(0).getMessage().startsWith("Exception while handling request"));
+        assertTrue(responses.get(1).isSuccess());
+    }
+
+    @Test
+    public void socketExchange() throws Exception {
+        Path socket = folder.getRoot().toPath().resolve("jmm.sock");
+        var server = new CompileServer(2);
+        var serverThread = new Thread(() -> {
+            try {
+                server.serveSocket(socket);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        serverThread.start();
+
+        try {
+            for (int tries = 0; !Files.exists(socket) && tries < 100; tries++) {
+                Thread.sleep(50);
+            }
+
+            var response = new CompileClient(socket).compile(List.of("-i=" + INPUT.getAbsolutePath()));
+            assertTrue(response.isSuccess());
+            assertEquals(expectedJasmin(INPUT), response.getJasminCode());
+        } finally {
+            server.close();
+        }
+
+        // the server stops accepting connections, and removes the socket file
+        serverThread.join(5000);
+        assertFalse(serverThread.isAlive());
+        assertFalse(Files.exists(socket));
+    }
+}
@@ -0,0 +1,65 @@
+package pt.up.fe.comp2024.symboltable;
+
+import org.junit.Test;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.parser.JmmParserImpl;
+
+import static org.junit.Assert.*;
+
+public class ScopedLookupTest {
+
+    private static final String CODE = """
+            class Scopes {
+                int a;
+                boolean b;
+                Scopes c;
+
+                public int foo(boolean a, int x) {
+                    int b;
+                    return x;
+                }
+
+                public int bar() {
+                    int[] x;
+                    return 0;
+                }
+            }
+            """;
+
+    private static JmmSymbolTable build() {
+        var root = new JmmParserImpl().parse(CODE, CompilerConfig.getDefault()).getRootNode();
+        return JmmSymbolTableBuilder.build(root);
+    }
+
+    @Test
+    public void parametersAndLocalsShadowFields() {
+        var table = build();
+
+        var a = table.resolve("foo", "a").orElseThrow();
+        assertEquals(ScopedSymbol.Scope.PARAMETER, a.scope());
+        assertEquals("boolean", a.symbol().getType().getName());
+
+        assertEquals(ScopedSymbol.Scope.LOCAL, table.resolve("foo", "b").orElseThrow().scope());
+        assertEquals(ScopedSymbol.Scope.FIELD, table.resolve("foo", "c").orElseThrow().scope());
+        assertEquals(ScopedSymbol.Scope.FIELD, table.resolve("bar", "a").orElseThrow().scope());
+        assertTrue(table.resolve("bar", "y").isEmpty());
+    }
+
+    @Test
+    public void unknownMethodsOnlySeeFields() {
+        var table = build();
+
+        assertEquals(ScopedSymbol.Scope.FIELD, table.resolve("baz", "a").orElseThrow().scope());
+        assertTrue(table.resolve("baz", "x").isEmpty());
+    }
+
+    @Test
+    public void anyMethodLookupUsesTheFirstMethod() {
+        var table = build();
+
+        var x = table.resolveInAnyMethod("x").orElseThrow();
+        assertEquals(ScopedSymbol.Scope.PARAMETER, x.scope());
+        assertFalse(x.symbol().getType().isArray());
+        assertEquals(ScopedSymbol.Scope.FIELD, table.resolveInAnyMethod("c").orElseThrow().scope());
+    }
+}
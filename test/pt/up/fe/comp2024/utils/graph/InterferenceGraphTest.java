@@ -0,0 +1,68 @@
+package pt.up.fe.comp2024.utils.graph;
+
+import org.junit.Test;
+import pt.up.fe.comp2024.utils.graph.algorithms.GreedyGraphColoringAlgorithm;
+import pt.up.fe.comp2024.utils.graph.algorithms.KColorsAlgorithm;
+
+import static org.junit.Assert.*;
+
+public class InterferenceGraphTest {
+
+    /**
+     * A cycle of four nodes, 0 - 1 - 2 - 3 - 0.
+     */
+    private static InterferenceGraph cycle() {
+        var graph = new InterferenceGraph(4);
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 0);
+
+        return graph;
+    }
+
+    @Test
+    public void edges() {
+        var graph = cycle();
+        graph.addEdge(1, 0);
+        graph.addEdge(2, 2);
+
+        assertTrue(graph.interferes(0, 1));
+        assertTrue(graph.interferes(1, 0));
+        assertFalse(graph.interferes(0, 2));
+        assertFalse(graph.interferes(2, 2));
+
+        assertEquals(2, graph.degree(0));
+        assertArrayEquals(new int[]{1, 3}, graph.getNeighbours(0));
+    }
+
+    @Test
+    public void genericView() {
+        var graph = cycle();
+        graph.setColor(2, 5);
+
+        var view = graph.toGraph();
+        assertEquals(4, view.getNodes().size());
+        assertEquals(2, view.getNodes().get(1).getEdges().size());
+        assertEquals(Integer.valueOf(5), view.getNodes().get(2).getColor().orElseThrow());
+        assertTrue(view.getNodes().get(0).getColor().isEmpty());
+    }
+
+    @Test
+    public void coloring() {
+        var graph = cycle();
+        // a precolored node keeps its color
+        graph.setColor(0, 0);
+
+        assertTrue(new GreedyGraphColoringAlgorithm().execute(graph, 1));
+        assertEquals(0, graph.getColor(0));
+        for (int node = 0; node < graph.size(); node++) {
+            for (int neighbour : graph.getNeighbours(node)) {
+                assertNotEquals(graph.getColor(node), graph.getColor(neighbour));
+            }
+        }
+
+        assertFalse(new KColorsAlgorithm(1).execute(cycle(), 1));
+        assertTrue(new KColorsAlgorithm(2).execute(cycle(), 1));
+    }
+}
@@ -0,0 +1,91 @@
+package pt.up.fe.comp2024.utils.graph.algorithms;
+
+import org.junit.Test;
+import pt.up.fe.comp2024.utils.graph.InterferenceGraph;
+
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class ChaitinBriggsAlgorithmTest {
+
+    /**
+     * Two rows of three nodes, each node interfering with the nodes of the other row except the one in its column: it
+     * takes two colors, but coloring the nodes in order (0 and 1 in the first column) takes three.
+     */
+    private static InterferenceGraph crown() {
+        var graph = new InterferenceGraph(6);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                if (i != j) graph.addEdge(2 * i, 2 * j + 1);
+            }
+        }
+
+        return graph;
+    }
+
+    private static void assertValidColoring(InterferenceGraph graph) {
+        for (int node = 0; node < graph.size(); node++) {
+            assertTrue(graph.hasColor(node));
+            for (int neighbour : graph.getNeighbours(node)) {
+                assertNotEquals(graph.getColor(node), graph.getColor(neighbour));
+            }
+        }
+    }
+
+    @Test
+    public void colorsWhereGreedyFails() {
+        assertFalse(new KColorsAlgorithm(2).execute(crown(), 0));
+
+        var graph = crown();
+        assertTrue(new ChaitinBriggsAlgorithm(2).execute(graph, 0));
+        assertValidColoring(graph);
+    }
+
+    @Test
+    public void fewestColors() {
+        var graph = crown();
+        graph.setColor(0, 0);
+
+        assertTrue(new ChaitinBriggsAlgorithm(0).execute(graph, 1));
+        assertValidColoring(graph);
+        assertEquals(0, graph.getColor(0));
+        for (int node = 1; node < graph.size(); node++) {
+            assertTrue(graph.getColor(node) == 1 || graph.getColor(node) == 2);
+        }
+    }
+
+    @Test
+    public void coalescesMoves() {
+        // 0 is copied to 1 and 3, which interfere with each other but not with 0
+        var graph = new InterferenceGraph(4);
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.addMove(1, 0);
+        graph.addMove(3, 0);
+
+        assertTrue(new ChaitinBriggsAlgorithm(0).execute(graph, 0));
+        assertValidColoring(graph);
+        assertEquals(graph.getColor(0), graph.getColor(1));
+        assertNotEquals(graph.getColor(0), graph.getColor(3));
+    }
+
+    @Test
+    public void reportsSufficientColors() {
+        // a clique of four nodes
+        var graph = new InterferenceGraph(4);
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                graph.addEdge(i, j);
+            }
+        }
+
+        var algorithm = new ChaitinBriggsAlgorithm(3);
+        assertFalse(algorithm.execute(graph, 0));
+        assertEquals(Optional.of(4), algorithm.getSufficientColors());
+        assertFalse(graph.hasColor(0));
+
+        assertTrue(new ChaitinBriggsAlgorithm(4).execute(graph, 0));
+        assertValidColoring(graph);
+    }
+}
@@ -0,0 +1,234 @@
+package utils;
+
+import java.util.Random;
+
+/**
+ * Generates random, semantically valid Java-- programs from a seed, so that the same seed always gives the same
+ * program.
+ * <p>
+ * Programs use the constructs of the grammar (fields, locals, arrays, arithmetic and boolean expressions, if/else,
+ * while loops, method calls and calls to imported classes). Their shape is controlled by {@link Options}.
+ * <p>
+ * Identifiers never clash with OLLIR keywords (e.g. "array", "field"), since the compiler does not rename them.
+ */
+public class JmmProgramGenerator {
+
+    private static final String CLASS_NAME = "Generated";
+    private static final int MAX_EXPR_DEPTH = 2;
+    private static final int MAX_BLOCK_STATEMENTS = 4;
+    private static final double BRANCH_DENSITY = 0.15;
+
+    public static class Options {
+        private int methods = 4;
+        private int statements = 100;
+        private int nestingDepth = 2;
+        private int variables = 6;
+        private double loopDensity = 0.1;
+        private boolean runnable = false;
+
+        public Options methods(int methods) {
+            this.methods = Math.max(1, methods);
+            return this;
+        }
+
+        /**
+         * Total number of statements, spread over the methods. Compound statements (if/else, while) count as one
+         * statement, plus the statements in their bodies.
+         */
+        public Options statements(int statements) {
+            this.statements = statements;
+            return this;
+        }
+
+        public Options nestingDepth(int nestingDepth) {
+            this.nestingDepth = nestingDepth;
+            return this;
+        }
+
+        /**
+         * Number of int locals declared in each method (at least 1).
+         */
+        public Options variables(int variables) {
+            this.variables = Math.max(1, variables);
+            return this;
+        }
+
+        /**
+         * Probability of a statement being a while loop, when the nesting depth allows it.
+         */
+        public Options loopDensity(double loopDensity) {
+            this.loopDensity = loopDensity;
+            return this;
+        }
+
+        /**
+         * Programs that run to the end, so that their output can be compared (e.g. with and without optimizations):
+         * methods do not call each other (which could recurse forever), and arrays are only accessed at index 0.
+         */
+        public Options runnable(boolean runnable) {
+            this.runnable = runnable;
+            return this;
+        }
+    }
+
+    private final Options options;
+    private final Random random;
+    private final StringBuilder code;
+
+    public JmmProgramGenerator(long seed, Options options) {
+        this.options = options;
+        this.random = new Random(seed);
+        this.code = new StringBuilder();
+    }
+
+    public static String generate(long seed, Options options) {
+        return new JmmProgramGenerator(seed, options).generate();
+    }
+
+    public String generate() {
+        code.setLength(0);
+
+        code.append("import io;\n\n");
+        code.append("class ").append(CLASS_NAME).append(" {\n");
+        code.append("    int total;\n");
+        code.append("    boolean enabled;\n\n");
+
+        int statementsPerMethod = options.statements / options.methods;
+        int remainder = options.statements % options.methods;
+        for (int method = 0; method < options.methods; method++) {
+            generateMethod(method, statementsPerMethod + (method < remainder ? 1 : 0));
+        }
+
+        code.append("    public static void main(String[] args) {\n");
+        code.append("        ").append(CLASS_NAME).append(" generated;\n");
+        code.append("        generated = new ").append(CLASS_NAME).append("();\n");
+        code.append("        io.println(generated.method0(1, 2));\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        return code.toString();
+    }
+
+    private void generateMethod(int method, int statements) {
+        code.append("    public int method").append(method).append("(int a, int b) {\n");
+
+        for (int variable = 0; variable < options.variables; variable++) {
+            code.append("        int v").append(variable).append(";\n");
+        }
+        // one counter per nesting level, so that nested loops never change the counter of an enclosing one
+        for (int depth = 0; depth < options.nestingDepth; depth++) {
+            code.append("        int i").append(depth).append(";\n");
+        }
+        code.append("        int[] values;\n");
+        code.append("        boolean ready;\n");
+
+        // every local is assigned before the random statements
+        for (int variable = 0; variable < options.variables; variable++) {
+            code.append("        v").append(variable).append(" = ").append(random.nextInt(100)).append(";\n");
+        }
+        code.append("        values = new int[").append(1 + random.nextInt(16)).append("];\n");
+        code.append("        ready = a < b;\n");
+
+        generateStatements(statements, 0, "        ");
+
+        code.append("        return ").append(intVariable()).append(";\n");
+        code.append("    }\n\n");
+    }
+
+    /**
+     * Generates exactly the given number of statements.
+     */
+    private void generateStatements(int statements, int depth, String indent) {
+        int remaining = statements;
+
+        while (remaining > 0) {
+            boolean canNest = depth < options.nestingDepth && remaining >= 2;
+            double choice = random.nextDouble();
+
+            if (canNest && choice < options.loopDensity) {
+                int body = 1 + random.nextInt(Math.min(MAX_BLOCK_STATEMENTS, remaining - 1));
+                generateWhile(body, depth, indent);
+                remaining -= 1 + body;
+            } else if (canNest && choice < options.loopDensity + BRANCH_DENSITY) {
+                int body = 1 + random.nextInt(Math.min(MAX_BLOCK_STATEMENTS, remaining - 1));
+                generateIfElse(body, depth, indent);
+                remaining -= 1 + body;
+            } else {
+                generateSimpleStatement(indent);
+                remaining -= 1;
+            }
+        }
+    }
+
+    private void generateWhile(int body, int depth, String indent) {
+        String counter = "i" + depth;
+
+        code.append(indent).append(counter).append(" = 0;\n");
+        code.append(indent).append("while (").append(counter).append(" < ").append(1 + random.nextInt(10)).append(") {\n");
+        generateStatements(body, depth + 1, indent + "    ");
+        code.append(indent).append("    ").append(counter).append(" = ").append(counter).append(" + 1;\n");
+        code.append(indent).append("}\n");
+    }
+
+    private void generateIfElse(int body, int depth, String indent) {
+        int thenStatements = body == 1 ? 1 : 1 + random.nextInt(body - 1);
+        int elseStatements = body - thenStatements;
+
+        code.append(indent).append("if (").append(boolExpr(0)).append(") {\n");
+        generateStatements(thenStatements, depth + 1, indent + "    ");
+        code.append(indent).append("} else {\n");
+        generateStatements(elseStatements, depth + 1, indent + "    ");
+        code.append(indent).append("}\n");
+    }
+
+    private void generateSimpleStatement(String indent) {
+        code.append(indent);
+
+        switch (random.nextInt(8)) {
+            case 0 -> code.append("values[").append(arrayIndex(1)).append("] = ").append(intExpr(0)).append(";\n");
+            case 1 -> code.append("ready = ").append(boolExpr(0)).append(";\n");
+            case 2 -> code.append("total = ").append(intExpr(0)).append(";\n");
+            case 3 -> code.append("io.println(").append(intExpr(0)).append(");\n");
+            default -> code.append(intVariable()).append(" = ").append(intExpr(0)).append(";\n");
+        }
+    }
+
+    private String intExpr(int depth) {
+        int choices = depth < MAX_EXPR_DEPTH ? 9 : 4;
+
+        return switch (random.nextInt(choices)) {
+            case 0 -> String.valueOf(random.nextInt(1000));
+            case 1 -> random.nextBoolean() ? "a" : "b";
+            case 2 -> "total";
+            case 3 -> intVariable();
+            case 4 -> intExpr(depth + 1) + " + " + intExpr(depth + 1);
+            case 5 -> intExpr(depth + 1) + " * " + intExpr(depth + 1);
+            case 6 -> "(" + intExpr(depth + 1) + " - " + intExpr(depth + 1) + ")";
+            case 7 -> random.nextBoolean() ? "values.length" : "values[" + arrayIndex(depth + 1) + "]";
+            default -> !options.runnable
+                    ? "this.method" + random.nextInt(options.methods) + "(" + intExpr(depth + 1) + ", "
+                    + intExpr(depth + 1) + ")"
+                    : intVariable();
+        };
+    }
+
+    private String arrayIndex(int depth) {
+        return options.runnable ? "0" : intExpr(depth);
+    }
+
+    private String boolExpr(int depth) {
+        int choices = depth < MAX_EXPR_DEPTH ? 5 : 3;
+
+        return switch (random.nextInt(choices)) {
+            case 0 -> random.nextBoolean() ? "true" : "false";
+            case 1 -> random.nextBoolean() ? "ready" : "enabled";
+            case 2 -> intExpr(MAX_EXPR_DEPTH) + " < " + intExpr(MAX_EXPR_DEPTH);
+            case 3 -> boolExpr(depth + 1) + " && " + boolExpr(depth + 1);
+            default -> "!(" + boolExpr(depth + 1) + ")";
+        };
+    }
+
+    private String intVariable() {
+        return "v" + random.nextInt(options.variables);
+    }
+}
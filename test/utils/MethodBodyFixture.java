@@ -0,0 +1,81 @@
+package utils;
+
+import pt.up.fe.comp.jmm.jasmin.JasminResult;
+import pt.up.fe.comp2024.CompilationResult;
+import pt.up.fe.comp2024.CompilerConfig;
+import pt.up.fe.comp2024.JmmCompiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * A class with a method whose body is given by each test, to compile it with and without optimizations ('-o') and
+ * compare what each one generates and outputs.
+ */
+public class MethodBodyFixture {
+
+    private static final String BODY = "BODY";
+
+    private final String code;
+
+    /**
+     * @param code the code of the class, with BODY where the body of the method goes
+     */
+    public MethodBodyFixture(String code) {
+        this.code = code;
+    }
+
+    public String withBody(String body) {
+        return code.replace(BODY, body);
+    }
+
+    public CompilationResult compile(String body, boolean optimize) {
+        return compileProgram(withBody(body), optimize);
+    }
+
+    /**
+     * @return the optimized OLLIR code
+     */
+    public String ollir(String body) {
+        return compile(body, true).getOllirCode().get();
+    }
+
+    public String jasmin(String body, boolean optimize) {
+        return compile(body, optimize).getJasminCode().get();
+    }
+
+    /**
+     * @return what the program prints
+     */
+    public String run(String body, boolean optimize) {
+        return new JasminResult(jasmin(body, optimize)).run();
+    }
+
+    public void assertSameOutput(String body) {
+        assertSameProgramOutput(withBody(body));
+    }
+
+    /**
+     * Compiles a whole program, which must have no errors.
+     */
+    public static CompilationResult compileProgram(String code, boolean optimize) {
+        var config = CompilerConfig.getDefault();
+        config.put(CompilerConfig.getOptimizeKey(), String.valueOf(optimize));
+
+        var result = new JmmCompiler().compile(code, config);
+        assertFalse(result.getReports().toString(), result.hasErrors());
+
+        return result;
+    }
+
+    /**
+     * Checks that a whole program prints and returns the same with and without optimizations.
+     */
+    public static void assertSameProgramOutput(String code) {
+        var plain = new JasminResult(compileProgram(code, false).getJasminCode().get()).runWithFullOutput();
+        var optimized = new JasminResult(compileProgram(code, true).getJasminCode().get()).runWithFullOutput();
+
+        assertEquals(code, plain.getStdOut(), optimized.getStdOut());
+        assertEquals(code, plain.getReturnValue(), optimized.getReturnValue());
+    }
+}